@@ -0,0 +1,10 @@
+package me.bruno.shorturl.reactive;
+
+/**
+ * Change of a code logged in the cache_change table by the main application
+ *
+ * @param id   the id of the change, increasing
+ * @param code the changed code
+ */
+public record CodeChange(long id, String code) {
+}
@@ -0,0 +1,116 @@
+package me.bruno.shorturl.reactive;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Tails the change log of the main application and invalidates the changed codes, like its CacheChangePoller
+ * Ids are allocated before commit, so a smaller id can show up after a bigger one.
+ * The cursor only moves past an id once it is read, or once the gap is older than the gap timeout.
+ * Polls run on the scheduler thread, never on the event loop.
+ */
+@Log4j2
+@Component
+public class ReactiveCacheChangePoller {
+
+    @Autowired
+    private RedirectRepository redirectRepository;
+
+    @Autowired
+    private RedirectService redirectService;
+
+    // Configuration
+    @Value("${short-url.cache-sync.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${short-url.cache-sync.gap-timeout:PT10S}")
+    private Duration gapTimeout;
+
+    // Every change up to the cursor is applied, -1 until the poller starts
+    private long cursor = -1;
+
+    // Changes after the cursor already applied, waiting for the ids in between
+    private final TreeSet<Long> applied = new TreeSet<>();
+
+    private long gapSince;
+
+    /**
+     * Invalidates the codes changed since the last poll
+     * Changes made before this application started are skipped, its caches were empty
+     */
+    @Scheduled(
+            initialDelayString = "${short-url.cache-sync.poll-interval:PT0.5S}",
+            fixedDelayString = "${short-url.cache-sync.poll-interval:PT0.5S}"
+    )
+    public synchronized void poll() {
+        try {
+            if (this.cursor < 0) {
+                this.cursor = this.redirectRepository.findLastChangeId().block(Duration.ofSeconds(30));
+                return;
+            }
+
+            Set<String> codes = new HashSet<>();
+            long after = this.cursor;
+
+            while (true) {
+                List<CodeChange> changes = this.redirectRepository.findCodeChangesAfter(after, this.batchSize)
+                        .collectList()
+                        .block(Duration.ofSeconds(30));
+
+                for (CodeChange change : changes) {
+                    if (this.applied.add(change.id())) {
+                        codes.add(change.code());
+                    }
+                }
+
+                if (changes.size() < this.batchSize) {
+                    break;
+                }
+
+                after = changes.get(changes.size() - 1).id();
+            }
+
+            if (!codes.isEmpty()) {
+                this.redirectService.invalidateCodes(codes);
+            }
+
+            advance(System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            log.warn("Failed to poll cache changes", e);
+        }
+    }
+
+    private void advance(long now) {
+        while (!this.applied.isEmpty()) {
+            if (this.applied.first() == this.cursor + 1) {
+                this.cursor = this.applied.pollFirst();
+                continue;
+            }
+
+            if (this.gapSince == 0) {
+                this.gapSince = now;
+                return;
+            }
+
+            if (now - this.gapSince < this.gapTimeout.toMillis()) {
+                return;
+            }
+
+            // The missing ids were rolled back or skipped
+            this.cursor = this.applied.first() - 1;
+            this.gapSince = 0;
+        }
+
+        this.gapSince = 0;
+    }
+
+}
@@ -0,0 +1,85 @@
+package me.bruno.shorturl.reactive;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts clicks in memory and adds them to the database in the background, like ClickCounter of the main application
+ * Nothing is written on the event loop.
+ */
+@Log4j2
+@Component
+public class ReactiveClickCounter {
+
+    private final ConcurrentHashMap<String, LongAdder> pending = new ConcurrentHashMap<>();
+
+    @Autowired
+    private RedirectRepository redirectRepository;
+
+    /**
+     * Counts a click of a code
+     *
+     * @param code the code
+     */
+    public void increment(String code) {
+        LongAdder counter = this.pending.computeIfAbsent(code, key -> new LongAdder());
+        counter.increment();
+
+        // Removed as idle by a concurrent flush, the click would not be written
+        if (this.pending.get(code) != counter) {
+            reclaim(code, counter);
+        }
+    }
+
+    /**
+     * Adds the pending clicks to the database
+     * Clicks that fail to be written are counted again
+     */
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${short-url.clicks.flush-interval:PT5S}")
+    public void flush() {
+        Map<String, Long> clicks = new HashMap<>();
+
+        this.pending.forEach((code, counter) -> {
+            long value = counter.sumThenReset();
+            if (value > 0) {
+                clicks.put(code, value);
+            } else if (this.pending.remove(code, counter)) {
+                // Clicks racing with the removal are moved back
+                reclaim(code, counter);
+            }
+        });
+
+        if (clicks.isEmpty()) {
+            return;
+        }
+
+        try {
+            this.redirectRepository.addClicks(clicks).block(Duration.ofSeconds(30));
+        } catch (RuntimeException e) {
+            log.error("Failed to flush " + clicks.size() + " click counters", e);
+            clicks.forEach((code, value) -> this.pending.computeIfAbsent(code, key -> new LongAdder()).add(value));
+        }
+    }
+
+    /**
+     * Moves the clicks of a counter removed from the map to the current counter of the code
+     */
+    private void reclaim(String code, LongAdder removed) {
+        long value = removed.sumThenReset();
+
+        if (value != 0) {
+            this.pending.computeIfAbsent(code, key -> new LongAdder()).add(value);
+        }
+    }
+
+}
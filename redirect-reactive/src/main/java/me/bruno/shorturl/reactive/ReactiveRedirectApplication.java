@@ -0,0 +1,19 @@
+package me.bruno.shorturl.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Non-blocking redirect service for the edge tier
+ * Serves GET /{code} from the short_url table of the main application, read-only except for the click counts.
+ */
+@SpringBootApplication
+@EnableScheduling
+public class ReactiveRedirectApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(ReactiveRedirectApplication.class, args);
+    }
+
+}
@@ -0,0 +1,41 @@
+package me.bruno.shorturl.reactive;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Handler of GET /{code}, answers with the same status and headers as the servlet RedirectController
+ */
+@Component
+public class RedirectHandler {
+
+    // Same value Spring Security writes, redirects without max age must not be cached
+    static final String NO_CACHE = "no-cache, no-store, max-age=0, must-revalidate";
+
+    @Autowired
+    private RedirectService redirectService;
+
+    @Autowired
+    private ReactiveClickCounter clickCounter;
+
+    public Mono<ServerResponse> redirect(ServerRequest request) {
+        String code = request.pathVariable("code");
+
+        return this.redirectService.getByCode(code)
+                .flatMap(target -> {
+                    this.clickCounter.increment(target.code());
+                    return ServerResponse.status(target.status())
+                            .header(HttpHeaders.LOCATION, target.redirectUrl())
+                            .header(HttpHeaders.CACHE_CONTROL, target.isCacheable() ? "public, max-age=" + target.maxAge(OffsetDateTime.now()) : NO_CACHE)
+                            .build();
+                })
+                .switchIfEmpty(ServerResponse.notFound().build());
+    }
+
+}
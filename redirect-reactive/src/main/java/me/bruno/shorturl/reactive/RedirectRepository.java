@@ -0,0 +1,67 @@
+package me.bruno.shorturl.reactive;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+
+@Repository
+public class RedirectRepository {
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    // Find only valid codes active now, same as ShortURLService.getDetailsByCode
+    public Mono<RedirectTarget> findActiveByCode(String code) {
+        return this.databaseClient
+                .sql("SELECT code, redirect_url, redirect_status, cache_max_age, expires_at FROM short_url "
+                        + "WHERE code = :code AND deleted_at IS NULL "
+                        + "AND (active_from IS NULL OR active_from <= :now) AND (expires_at IS NULL OR expires_at > :now)")
+                .bind("code", code)
+                .bind("now", OffsetDateTime.now())
+                .map(row -> new RedirectTarget(
+                        row.get("code", String.class),
+                        row.get("redirect_url", String.class),
+                        row.get("redirect_status", Integer.class) == null ? 302 : row.get("redirect_status", Integer.class),
+                        row.get("cache_max_age", Integer.class),
+                        row.get("expires_at", OffsetDateTime.class)
+                ))
+                .one();
+    }
+
+    // Find the changes of codes after an id, ordered by id
+    public Flux<CodeChange> findCodeChangesAfter(long after, int limit) {
+        return this.databaseClient
+                .sql("SELECT id, entry_key FROM cache_change WHERE id > :after AND cache_name = 'SHORT_URL_CODE' "
+                        + "ORDER BY id LIMIT :limit")
+                .bind("after", after)
+                .bind("limit", limit)
+                .map(row -> new CodeChange(row.get("id", Long.class), row.get("entry_key", String.class)))
+                .all();
+    }
+
+    // Find the last id of the change log, 0 if it is empty
+    public Mono<Long> findLastChangeId() {
+        return this.databaseClient
+                .sql("SELECT COALESCE(MAX(id), 0) AS last_id FROM cache_change")
+                .map(row -> row.get("last_id", Long.class))
+                .one();
+    }
+
+    // Add clicks to valid codes, one statement per code
+    public Mono<Void> addClicks(Map<String, Long> clicks) {
+        return Flux.fromIterable(clicks.entrySet())
+                .concatMap(entry -> this.databaseClient
+                        .sql("UPDATE short_url SET clicks = clicks + :clicks WHERE code = :code AND deleted_at IS NULL")
+                        .bind("clicks", entry.getValue())
+                        .bind("code", entry.getKey())
+                        .fetch()
+                        .rowsUpdated())
+                .then();
+    }
+
+}
@@ -0,0 +1,19 @@
+package me.bruno.shorturl.reactive;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+@Configuration
+public class RedirectRouter {
+
+    @Bean
+    public RouterFunction<ServerResponse> redirectRoutes(RedirectHandler redirectHandler) {
+        return route(GET("/{code}"), redirectHandler::redirect);
+    }
+
+}
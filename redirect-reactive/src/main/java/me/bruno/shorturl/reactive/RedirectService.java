@@ -0,0 +1,78 @@
+package me.bruno.shorturl.reactive;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non-blocking lookup of valid codes, same semantics as ShortURLService.getByCode of the main application
+ * Concurrent lookups of the same code share one query. Expiring codes leave the cache at their expiration date.
+ * Codes changed or deleted by the main application are invalidated by {@link ReactiveCacheChangePoller},
+ * entries are kept 20 minutes at most in case the change log cannot be read.
+ */
+@Service
+public class RedirectService {
+
+    @Autowired
+    private RedirectRepository redirectRepository;
+
+    private static final long MAX_EXPIRATION_NANOS = TimeUnit.MINUTES.toNanos(20);
+
+    // Cache, valid codes only (an empty result is not stored)
+    private final AsyncLoadingCache<String, RedirectTarget> validCodeCache = Caffeine.newBuilder()
+            .expireAfter(Expiry.<String, RedirectTarget>writing((code, target) -> Duration.ofNanos(expirationNanos(target))))
+            .scheduler(Scheduler.systemScheduler())
+            .refreshAfterWrite(10, TimeUnit.MINUTES)
+            .buildAsync((code, executor) -> redirectRepository.findActiveByCode(code).toFuture());
+
+    // Cache, unknown codes only
+    private final Cache<String, Boolean> missingCodeCache = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterWrite(1, TimeUnit.MINUTES)
+            .build();
+
+    /**
+     * Gets the redirect of a valid code
+     *
+     * @param code the code to get
+     * @return the redirect, empty if the code does not exist or is deleted
+     */
+    public Mono<RedirectTarget> getByCode(String code) {
+        if (this.missingCodeCache.getIfPresent(code) != null) {
+            return Mono.empty();
+        }
+
+        return Mono.fromFuture(this.validCodeCache.get(code))
+                .filter(target -> target.expiresAt() == null || target.expiresAt().isAfter(OffsetDateTime.now()))
+                .switchIfEmpty(Mono.fromRunnable(() -> this.missingCodeCache.put(code, Boolean.TRUE)));
+    }
+
+    /**
+     * Removes changed codes from the caches, they are loaded again on the next lookup
+     *
+     * @param codes the changed codes
+     */
+    public void invalidateCodes(Collection<String> codes) {
+        this.validCodeCache.synchronous().invalidateAll(codes);
+        this.missingCodeCache.invalidateAll(codes);
+    }
+
+    private static long expirationNanos(RedirectTarget target) {
+        if (target.expiresAt() == null) {
+            return MAX_EXPIRATION_NANOS;
+        }
+
+        return Math.max(0, Math.min(MAX_EXPIRATION_NANOS, Duration.between(OffsetDateTime.now(), target.expiresAt()).toNanos()));
+    }
+
+}
@@ -0,0 +1,36 @@
+package me.bruno.shorturl.reactive;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+
+/**
+ * Redirect of a valid code, the columns of short_url needed to answer GET /{code}
+ *
+ * @param code         the code
+ * @param redirectUrl  the redirect URL
+ * @param status       the redirect status code (301, 302, 307 or 308)
+ * @param cacheMaxAge  the Cache-Control max age in seconds, null if not cacheable
+ * @param expiresAt    the date from which the code no longer redirects, null if it does not expire
+ */
+public record RedirectTarget(String code, String redirectUrl, int status, Integer cacheMaxAge, OffsetDateTime expiresAt) {
+
+    /**
+     * Checks if browsers and proxies may cache the redirect
+     *
+     * @return true if the redirect has a max age
+     */
+    public boolean isCacheable() {
+        return cacheMaxAge != null && cacheMaxAge > 0;
+    }
+
+    /**
+     * Gets the Cache-Control max age, no longer than until the expiration date
+     *
+     * @param now the current date
+     * @return the max age in seconds
+     */
+    public long maxAge(OffsetDateTime now) {
+        return expiresAt == null ? cacheMaxAge : Math.max(0, Math.min(cacheMaxAge, Duration.between(now, expiresAt).getSeconds()));
+    }
+
+}
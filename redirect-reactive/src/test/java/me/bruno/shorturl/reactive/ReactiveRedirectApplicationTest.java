@@ -0,0 +1,115 @@
+package me.bruno.shorturl.reactive;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ReactiveRedirectApplicationTest {
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Autowired
+    DatabaseClient databaseClient;
+
+    @Autowired
+    ReactiveClickCounter clickCounter;
+
+    @Autowired
+    ReactiveCacheChangePoller cacheChangePoller;
+
+    @BeforeEach
+    void setUp() {
+        clickCounter.flush();
+        databaseClient.sql("DELETE FROM short_url").then().block();
+        insert("active", "https://example.com", 301, 3600, null);
+        insert("temporary", "https://example.org", 302, null, null);
+        insert("deleted", "https://example.net", 302, null, OffsetDateTime.now());
+    }
+
+    @Test
+    void testRedirect_ActiveCode_RedirectWithHeaders() {
+        webTestClient.get().uri("/active")
+                .exchange()
+                .expectStatus().isEqualTo(301)
+                .expectHeader().valueEquals(HttpHeaders.LOCATION, "https://example.com")
+                .expectHeader().valueEquals(HttpHeaders.CACHE_CONTROL, "public, max-age=3600");
+
+        webTestClient.get().uri("/temporary")
+                .exchange()
+                .expectStatus().isFound()
+                .expectHeader().valueEquals(HttpHeaders.CACHE_CONTROL, RedirectHandler.NO_CACHE);
+    }
+
+    @Test
+    void testRedirect_DeletedOrUnknownCode_NotFound() {
+        webTestClient.get().uri("/deleted")
+                .exchange()
+                .expectStatus().isNotFound();
+
+        webTestClient.get().uri("/unknown")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void testRedirect_CodeChangedByMainApplication_RedirectToNewURL() {
+        cacheChangePoller.poll();
+        webTestClient.get().uri("/temporary")
+                .exchange()
+                .expectHeader().valueEquals(HttpHeaders.LOCATION, "https://example.org");
+
+        databaseClient.sql("UPDATE short_url SET redirect_url = 'https://example.org/changed' WHERE code = 'temporary'")
+                .then().block();
+        databaseClient.sql("INSERT INTO cache_change (cache_name, entry_key, node, created_at) "
+                        + "VALUES ('SHORT_URL_CODE', 'temporary', 'main', :now)")
+                .bind("now", OffsetDateTime.now())
+                .then().block();
+
+        cacheChangePoller.poll();
+
+        webTestClient.get().uri("/temporary")
+                .exchange()
+                .expectHeader().valueEquals(HttpHeaders.LOCATION, "https://example.org/changed");
+    }
+
+    @Test
+    void testFlush_AddClicks() {
+        webTestClient.get().uri("/active").exchange().expectStatus().isEqualTo(301);
+        webTestClient.get().uri("/active").exchange().expectStatus().isEqualTo(301);
+
+        clickCounter.flush();
+
+        Long clicks = databaseClient.sql("SELECT clicks FROM short_url WHERE code = 'active'")
+                .map(row -> row.get("clicks", Long.class))
+                .one()
+                .block();
+        assertEquals(2L, clicks);
+    }
+
+    private void insert(String code, String redirectUrl, int status, Integer cacheMaxAge, OffsetDateTime deletedAt) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql("INSERT INTO short_url "
+                        + "(id, code, redirect_url, redirect_status, cache_max_age, created_at, updated_at, deleted_at) "
+                        + "VALUES (:id, :code, :redirectUrl, :status, :cacheMaxAge, :now, :now, :deletedAt)")
+                .bind("id", UUID.randomUUID())
+                .bind("code", code)
+                .bind("redirectUrl", redirectUrl)
+                .bind("status", status)
+                .bind("now", OffsetDateTime.now());
+
+        spec = cacheMaxAge == null ? spec.bindNull("cacheMaxAge", Integer.class) : spec.bind("cacheMaxAge", cacheMaxAge);
+        spec = deletedAt == null ? spec.bindNull("deletedAt", OffsetDateTime.class) : spec.bind("deletedAt", deletedAt);
+        spec.then().block();
+    }
+
+}
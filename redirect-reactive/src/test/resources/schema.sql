@@ -0,0 +1,26 @@
+-- Same columns as the short_url table created by the main application
+CREATE TABLE IF NOT EXISTS short_url (
+    id UUID PRIMARY KEY,
+    code VARCHAR(144) NOT NULL,
+    redirect_url VARCHAR(255) NOT NULL,
+    note VARCHAR(255),
+    redirect_status INTEGER DEFAULT 302 NOT NULL,
+    cache_max_age INTEGER,
+    active_from TIMESTAMP WITH TIME ZONE,
+    expires_at TIMESTAMP WITH TIME ZONE,
+    clicks BIGINT DEFAULT 0 NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    deleted_at TIMESTAMP WITH TIME ZONE,
+    active_code VARCHAR(144) UNIQUE,
+    url_hash BIGINT
+);
+
+-- Same columns as the cache_change table created by the main application
+CREATE TABLE IF NOT EXISTS cache_change (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    cache_name VARCHAR(32) NOT NULL,
+    entry_key VARCHAR(255) NOT NULL,
+    node VARCHAR(36) NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
@@ -0,0 +1,67 @@
+package me.bruno.shorturl.benchmark;
+
+import me.bruno.shorturl.dto.APIAuthKeyDTO;
+import me.bruno.shorturl.service.APIAuthKeyService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * APIAuthKeyService.validateKey of valid and unknown keys
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class APIAuthKeyBenchmark {
+
+    // Power of two, so the index is a mask
+    private static final int KEYS = 1 << 10;
+
+    private ConfigurableApplicationContext context;
+
+    private APIAuthKeyService apiAuthKeyService;
+
+    private final String[] validKeys = new String[KEYS];
+
+    private final String[] unknownKeys = new String[KEYS];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.context = BenchmarkApplication.start("keys");
+        this.apiAuthKeyService = this.context.getBean(APIAuthKeyService.class);
+
+        for (int i = 0; i < KEYS; i++) {
+            this.validKeys[i] = this.apiAuthKeyService.save(APIAuthKeyDTO.builder().name("benchmark " + i).build()).getSecret();
+            this.unknownKeys[i] = "unknown-" + i;
+            this.apiAuthKeyService.validateKey(this.validKeys[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public boolean validateKeyValid(Cursor cursor) {
+        return this.apiAuthKeyService.validateKey(this.validKeys[cursor.next()]);
+    }
+
+    @Benchmark
+    public boolean validateKeyUnknown(Cursor cursor) {
+        return this.apiAuthKeyService.validateKey(this.unknownKeys[cursor.next()]);
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int index;
+
+        int next() {
+            return this.index++ & (KEYS - 1);
+        }
+
+    }
+
+}
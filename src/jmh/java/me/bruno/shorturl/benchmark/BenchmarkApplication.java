@@ -0,0 +1,62 @@
+package me.bruno.shorturl.benchmark;
+
+import me.bruno.shorturl.ShortUrlApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts the application with an in-memory H2 database for the benchmarks
+ */
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    /**
+     * Starts the application
+     *
+     * @param database   the name of the in-memory database
+     * @param properties the properties to add, as key=value
+     * @return the application context
+     */
+    static ConfigurableApplicationContext start(String database, String... properties) {
+        List<String> all = new ArrayList<>(List.of(
+                "server.port=0",
+                "spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                "spring.flyway.enabled=false",
+                "logging.level.root=WARN",
+                "logging.level.org.springframework.web=WARN",
+                "logging.level.org.springframework.security=WARN",
+                "short-url.cache-sync.enabled=false"
+        ));
+        all.addAll(List.of(properties));
+
+        return new SpringApplicationBuilder(ShortUrlApplication.class)
+                .properties(all.toArray(String[]::new))
+                .run();
+    }
+
+    /**
+     * Inserts valid links with the codes s1 to s{count}, in a single statement
+     *
+     * @param context the application context
+     * @param count   the number of links
+     */
+    static void seed(ConfigurableApplicationContext context, int count) {
+        if (count <= 0) {
+            return;
+        }
+
+        context.getBean(JdbcTemplate.class).update("INSERT INTO short_url "
+                + "(id, code, active_code, redirect_url, redirect_status, clicks, created_at, updated_at) "
+                + "SELECT RANDOM_UUID(), CONCAT('s', X), CONCAT('s', X), CONCAT('https://example.com/', X), 302, 0, "
+                + "CURRENT_TIMESTAMP, CURRENT_TIMESTAMP "
+                + "FROM SYSTEM_RANGE(1, ?)", count);
+    }
+
+}
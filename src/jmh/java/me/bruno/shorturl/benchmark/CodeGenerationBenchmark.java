@@ -0,0 +1,47 @@
+package me.bruno.shorturl.benchmark;
+
+import me.bruno.shorturl.service.ShortURLService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ShortURLService.generateCode of each generator, with the table filled with a number of links
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CodeGenerationBenchmark {
+
+    @Param({"0", "100000", "1000000"})
+    public int fill;
+
+    @Param({"random", "sequence", "pool"})
+    public String generator;
+
+    private ConfigurableApplicationContext context;
+
+    private ShortURLService shortURLService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.context = BenchmarkApplication.start("generation-" + this.generator + "-" + this.fill,
+                "short-url.code.generator=" + this.generator, "short-url.code.sequence.scramble-key=8191");
+        BenchmarkApplication.seed(this.context, this.fill);
+
+        this.shortURLService = this.context.getBean(ShortURLService.class);
+        this.shortURLService.rebuildCodeFilter();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public String generateCode() {
+        return this.shortURLService.generateCode();
+    }
+
+}
@@ -0,0 +1,76 @@
+package me.bruno.shorturl.benchmark;
+
+import me.bruno.shorturl.entity.ShortURLEntity;
+import me.bruno.shorturl.service.ShortURLService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ShortURLService.getByCode of cached codes and of unknown codes
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CodeLookupBenchmark {
+
+    private static final int LINKS = 100_000;
+
+    // Power of two, so the index is a mask
+    private static final int CODES = 1 << 16;
+
+    @Param({"true", "false"})
+    public boolean codeFilter;
+
+    private ConfigurableApplicationContext context;
+
+    private ShortURLService shortURLService;
+
+    private final String[] hits = new String[CODES];
+
+    private final String[] misses = new String[CODES];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.context = BenchmarkApplication.start("lookup", "short-url.code-filter.enabled=" + this.codeFilter);
+        BenchmarkApplication.seed(this.context, LINKS);
+
+        this.shortURLService = this.context.getBean(ShortURLService.class);
+        this.shortURLService.rebuildCodeFilter();
+
+        for (int i = 0; i < CODES; i++) {
+            this.hits[i] = "s" + (i + 1);
+            this.misses[i] = "m" + (i + 1);
+            this.shortURLService.getByCode(this.hits[i]);
+            this.shortURLService.getByCode(this.misses[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public ShortURLEntity getByCodeHit(Cursor cursor) {
+        return this.shortURLService.getByCode(this.hits[cursor.next()]);
+    }
+
+    @Benchmark
+    public ShortURLEntity getByCodeMiss(Cursor cursor) {
+        return this.shortURLService.getByCode(this.misses[cursor.next()]);
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int index;
+
+        int next() {
+            return this.index++ & (CODES - 1);
+        }
+
+    }
+
+}
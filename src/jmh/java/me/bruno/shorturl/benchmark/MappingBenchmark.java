@@ -0,0 +1,71 @@
+package me.bruno.shorturl.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import me.bruno.shorturl.dto.ShortURLDTO;
+import me.bruno.shorturl.entity.RedirectStatus;
+import me.bruno.shorturl.entity.ShortURLEntity;
+import me.bruno.shorturl.mapper.ShortURLMapper;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ShortURLMapper mapping and Jackson serialization of ShortURLEntity, without the application context
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MappingBenchmark {
+
+    private final ShortURLMapper shortURLMapper = Mappers.getMapper(ShortURLMapper.class);
+
+    // Configured like the ObjectMapper of Spring Boot
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private ShortURLDTO shortURLDTO;
+
+    private ShortURLEntity shortURLEntity;
+
+    @Setup
+    public void setUp() {
+        this.shortURLDTO = ShortURLDTO.builder()
+                .code("abc123")
+                .redirectUrl("https://example.com/some/long/path?query=value")
+                .note("benchmark")
+                .redirectStatus(RedirectStatus.FOUND)
+                .cacheMaxAge(3600)
+                .build();
+
+        this.shortURLEntity = ShortURLEntity.builder()
+                .id(UUID.randomUUID())
+                .code("abc123")
+                .redirectUrl("https://example.com/some/long/path?query=value")
+                .note("benchmark")
+                .redirectStatus(RedirectStatus.FOUND)
+                .cacheMaxAge(3600)
+                .createdAt(OffsetDateTime.now())
+                .updatedAt(OffsetDateTime.now())
+                .build();
+    }
+
+    @Benchmark
+    public ShortURLEntity toModel() {
+        return this.shortURLMapper.toModel(this.shortURLDTO);
+    }
+
+    @Benchmark
+    public ShortURLDTO toDto() {
+        return this.shortURLMapper.toDto(this.shortURLEntity);
+    }
+
+    @Benchmark
+    public byte[] serializeEntity() throws JsonProcessingException {
+        return this.objectMapper.writeValueAsBytes(this.shortURLEntity);
+    }
+
+}
@@ -0,0 +1,77 @@
+package me.bruno.shorturl.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET /{code} of cached codes over HTTP, answered by RedirectFilter (fast path) or by RedirectController (MVC path)
+ * The client and the connection are the same for both, the difference between the two runs is the server path.
+ * Run with the gc profiler (default) to compare the allocation per redirect.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RedirectBenchmark {
+
+    // Power of two, so the index is a mask
+    private static final int CODES = 1 << 12;
+
+    @Param({"true", "false"})
+    public boolean fastPath;
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient client;
+
+    private final HttpRequest[] requests = new HttpRequest[CODES];
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        this.context = BenchmarkApplication.start("redirect", "short-url.redirect.fast-path.enabled=" + this.fastPath);
+        BenchmarkApplication.seed(this.context, CODES);
+
+        String port = this.context.getEnvironment().getProperty("local.server.port");
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+
+        for (int i = 0; i < CODES; i++) {
+            this.requests[i] = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/s" + (i + 1))).GET().build();
+
+            // Loads the code into the cache
+            if (this.client.send(this.requests[i], HttpResponse.BodyHandlers.discarding()).statusCode() != 302) {
+                throw new IllegalStateException("code s" + (i + 1) + " did not redirect");
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public int redirect(Cursor cursor) throws IOException, InterruptedException {
+        return this.client.send(this.requests[cursor.next()], HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int index;
+
+        int next() {
+            return this.index++ & (CODES - 1);
+        }
+
+    }
+
+}
@@ -0,0 +1,45 @@
+package me.bruno.shorturl.loadtest;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Inserts valid links with bulk SQL, much faster than the REST API
+ * Codes are l1 to l{count}, the rank of a code in the Zipf distribution is its number.
+ */
+final class LinkSeeder {
+
+    private static final int CHUNK_SIZE = 500_000;
+
+    private LinkSeeder() {
+    }
+
+    static String code(int rank) {
+        return "l" + rank;
+    }
+
+    /**
+     * Inserts the links in chunks of INSERT ... SELECT (H2)
+     *
+     * @param jdbcTemplate the JDBC template
+     * @param count        the number of links
+     */
+    static void seed(JdbcTemplate jdbcTemplate, int count) {
+        long start = System.currentTimeMillis();
+
+        for (int from = 1; from <= count; from += CHUNK_SIZE) {
+            int to = Math.min(count, from + CHUNK_SIZE - 1);
+
+            jdbcTemplate.update("INSERT INTO short_url "
+                    + "(id, code, active_code, redirect_url, redirect_status, clicks, created_at, updated_at) "
+                    + "SELECT RANDOM_UUID(), CONCAT('l', X), CONCAT('l', X), CONCAT('https://example.com/', X), 302, 0, "
+                    + "CURRENT_TIMESTAMP, CURRENT_TIMESTAMP "
+                    + "FROM SYSTEM_RANGE(?, ?)", from, to);
+
+            System.out.printf("Seeded %,d/%,d links%n", to, count);
+        }
+
+        long duration = Math.max(1, System.currentTimeMillis() - start);
+        System.out.printf("Seeded %,d links in %,dms (%,d links/s)%n", count, duration, count * 1000L / duration);
+    }
+
+}
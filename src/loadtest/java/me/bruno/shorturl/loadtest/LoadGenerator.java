@@ -0,0 +1,120 @@
+package me.bruno.shorturl.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open loop request generator
+ * Requests are sent at fixed intervals whatever the latency of the previous ones, and their latency is
+ * measured from the time they should have been sent (no coordinated omission).
+ */
+final class LoadGenerator {
+
+    private final LoadTestConfig config;
+    private final String baseUrl;
+    private final ZipfSampler sampler;
+    private final HttpClient client;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    final OperationStats redirects = new OperationStats("redirect");
+    final OperationStats creates = new OperationStats("create");
+    final OperationStats reads = new OperationStats("read");
+
+    LoadGenerator(LoadTestConfig config, String baseUrl) {
+        this.config = config;
+        this.baseUrl = baseUrl;
+        this.sampler = new ZipfSampler(config.links(), config.zipf());
+        this.client = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    /**
+     * Sends requests at the configured rate for a duration, then waits for the requests in flight
+     *
+     * @param duration the duration
+     */
+    void run(Duration duration) throws InterruptedException {
+        int total = this.config.redirects() + this.config.creates() + this.config.reads();
+        long interval = TimeUnit.SECONDS.toNanos(1) / this.config.rate();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        Random random = new Random();
+
+        for (long i = 0; ; i++) {
+            long intended = start + i * interval;
+            if (intended >= end) {
+                break;
+            }
+
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            int operation = random.nextInt(total);
+            if (operation < this.config.redirects()) {
+                boolean miss = random.nextDouble() < this.config.missRatio();
+                String code = miss ? "x" + Long.toHexString(random.nextLong()) : LinkSeeder.code(this.sampler.sample(random));
+                send(this.redirects, intended, HttpRequest.newBuilder(URI.create(this.baseUrl + "/" + code)).GET().build(), miss ? 404 : 0);
+            } else if (operation < this.config.redirects() + this.config.creates()) {
+                String body = "{\"redirectUrl\":\"https://example.com/created/" + Long.toHexString(random.nextLong()) + "\"}";
+                send(this.creates, intended, api("").POST(HttpRequest.BodyPublishers.ofString(body)).build(), 201);
+            } else {
+                String code = LinkSeeder.code(this.sampler.sample(random));
+                send(this.reads, intended, api("/code/" + code).GET().build(), 200);
+            }
+        }
+
+        while (this.inFlight.get() > 0) {
+            Thread.sleep(10);
+        }
+    }
+
+    void reset() {
+        this.redirects.reset();
+        this.creates.reset();
+        this.reads.reset();
+    }
+
+    private HttpRequest.Builder api(String path) {
+        return HttpRequest.newBuilder(URI.create(this.baseUrl + "/api/v1/shorturl" + path))
+                .header("API-Key", this.config.apiKey())
+                .header("Content-Type", "application/json");
+    }
+
+    /**
+     * Sends a request, 0 as expected status accepts any redirect
+     */
+    private void send(OperationStats stats, long intended, HttpRequest request, int expectedStatus) {
+        if (this.inFlight.incrementAndGet() > this.config.maxInFlight()) {
+            this.inFlight.decrementAndGet();
+            stats.recordError();
+            return;
+        }
+
+        this.client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, throwable) -> {
+            this.inFlight.decrementAndGet();
+
+            if (throwable != null || !expected(response.statusCode(), expectedStatus)) {
+                stats.recordError();
+                return;
+            }
+
+            stats.recordSuccess(System.nanoTime() - intended);
+        });
+    }
+
+    private static boolean expected(int status, int expectedStatus) {
+        return expectedStatus == 0 ? status >= 300 && status < 400 : status == expectedStatus;
+    }
+
+}
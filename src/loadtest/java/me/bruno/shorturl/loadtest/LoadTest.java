@@ -0,0 +1,74 @@
+package me.bruno.shorturl.loadtest;
+
+import me.bruno.shorturl.ShortUrlApplication;
+import me.bruno.shorturl.service.ShortURLService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+
+/**
+ * End-to-end load test, ./gradlew loadTest [-PloadTestArgs="--links=1000000 --rate=5000 --duration=60"]
+ * Starts the application on a random port with an in-memory database, seeds the links, then runs a mix of
+ * redirects (Zipf distributed codes, some unknown), creates and admin reads, and reports the latency percentiles
+ * of each operation. The warmup run is not reported.
+ * <p>
+ * Options: links, rate, duration, warmup (seconds), zipf, miss-ratio, redirects, creates, reads (mix weights),
+ * max-in-flight, api-key.
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws InterruptedException {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ShortUrlApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.flyway.enabled=false",
+                        "logging.level.root=WARN",
+                        "short-url.api.default.key=" + config.apiKey(),
+                        "short-url.cache-sync.enabled=false",
+                        "short-url.redirect.miss-limit.enabled=false" // Every request comes from the same address
+                )
+                .run();
+
+        try {
+            LinkSeeder.seed(context.getBean(JdbcTemplate.class), config.links());
+
+            // Seeded rows bypass the service, so the code filter and index are rebuilt
+            ShortURLService shortURLService = context.getBean(ShortURLService.class);
+            shortURLService.rebuildCodeFilter();
+            shortURLService.rebuildCodeIndex();
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LoadGenerator generator = new LoadGenerator(config, "http://localhost:" + port);
+
+            System.out.printf("Warming up for %ds at %,d req/s%n", config.warmup().toSeconds(), config.rate());
+            generator.run(config.warmup());
+            generator.reset();
+
+            System.out.printf("Running for %ds at %,d req/s%n", config.duration().toSeconds(), config.rate());
+            generator.run(config.duration());
+
+            report(config, generator);
+        } finally {
+            context.close();
+        }
+    }
+
+    private static void report(LoadTestConfig config, LoadGenerator generator) {
+        Duration duration = config.duration();
+
+        System.out.printf("%nLinks %,d, rate %,d req/s, zipf %.2f, miss ratio %.2f, mix %d/%d/%d%n",
+                config.links(), config.rate(), config.zipf(), config.missRatio(),
+                config.redirects(), config.creates(), config.reads());
+        System.out.println(generator.redirects.report(duration));
+        System.out.println(generator.creates.report(duration));
+        System.out.println(generator.reads.report(duration));
+    }
+
+}
@@ -0,0 +1,61 @@
+package me.bruno.shorturl.loadtest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Options of the load test, from --name=value arguments
+ *
+ * @param links       links seeded before the test
+ * @param rate        requests per second, sent at fixed intervals whatever the latency (open loop)
+ * @param duration    duration of the measured run
+ * @param warmup      duration of the run before the measured one, not reported
+ * @param zipf        exponent of the Zipf distribution of the redirected codes
+ * @param missRatio   fraction of redirects to unknown codes
+ * @param redirects   weight of redirects in the mix
+ * @param creates     weight of creates in the mix
+ * @param reads       weight of admin reads (lookup by code) in the mix
+ * @param maxInFlight requests in flight before new ones are dropped and counted as errors
+ * @param apiKey      API key of the creates and admin reads, created as the default key
+ */
+record LoadTestConfig(
+        int links,
+        int rate,
+        Duration duration,
+        Duration warmup,
+        double zipf,
+        double missRatio,
+        int redirects,
+        int creates,
+        int reads,
+        int maxInFlight,
+        String apiKey
+) {
+
+    static LoadTestConfig parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Invalid argument, expected --name=value: " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+
+        return new LoadTestConfig(
+                Integer.parseInt(options.getOrDefault("links", "1000000")),
+                Integer.parseInt(options.getOrDefault("rate", "2000")),
+                Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "60"))),
+                Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "10"))),
+                Double.parseDouble(options.getOrDefault("zipf", "1.1")),
+                Double.parseDouble(options.getOrDefault("miss-ratio", "0.05")),
+                Integer.parseInt(options.getOrDefault("redirects", "90")),
+                Integer.parseInt(options.getOrDefault("creates", "5")),
+                Integer.parseInt(options.getOrDefault("reads", "5")),
+                Integer.parseInt(options.getOrDefault("max-in-flight", "10000")),
+                options.getOrDefault("api-key", "load-test")
+        );
+    }
+
+}
@@ -0,0 +1,61 @@
+package me.bruno.shorturl.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and errors of an operation
+ * Latencies are measured from the intended send time, so a slow server is not hidden by delayed sends.
+ */
+final class OperationStats {
+
+    private static final long MAX_LATENCY = TimeUnit.MINUTES.toNanos(1);
+
+    private final String name;
+    private final Histogram latencies = new ConcurrentHistogram(MAX_LATENCY, 3);
+    private final LongAdder errors = new LongAdder();
+
+    OperationStats(String name) {
+        this.name = name;
+    }
+
+    void recordSuccess(long latencyNanos) {
+        this.latencies.recordValue(Math.min(latencyNanos, MAX_LATENCY));
+    }
+
+    void recordError() {
+        this.errors.increment();
+    }
+
+    void reset() {
+        this.latencies.reset();
+        this.errors.reset();
+    }
+
+    String report(Duration duration) {
+        long count = this.latencies.getTotalCount();
+        long errors = this.errors.sum();
+        double seconds = Math.max(1, duration.toMillis()) / 1000d;
+
+        return String.format("%-9s %,10d ok %,8d errors (%5.2f%%) %,10.0f req/s | p50 %8.2f p90 %8.2f p99 %8.2f p99.9 %8.2f max %8.2f ms",
+                this.name,
+                count,
+                errors,
+                count + errors == 0 ? 0 : errors * 100d / (count + errors),
+                count / seconds,
+                millis(this.latencies.getValueAtPercentile(50)),
+                millis(this.latencies.getValueAtPercentile(90)),
+                millis(this.latencies.getValueAtPercentile(99)),
+                millis(this.latencies.getValueAtPercentile(99.9)),
+                millis(this.latencies.getMaxValue()));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000d;
+    }
+
+}
@@ -0,0 +1,80 @@
+package me.bruno.shorturl.loadtest;
+
+import java.util.Random;
+
+/**
+ * Samples ranks 1..n with probability proportional to 1 / rank^exponent, in constant time
+ * Rejection-inversion sampling (Hörmann and Derflinger), no table of n entries is needed.
+ */
+final class ZipfSampler {
+
+    private final int n;
+    private final double exponent;
+    private final double hIntegralX1;
+    private final double hIntegralN;
+    private final double s;
+
+    ZipfSampler(int n, double exponent) {
+        if (n < 1 || exponent <= 0) {
+            throw new IllegalArgumentException("invalid number of elements or exponent");
+        }
+
+        this.n = n;
+        this.exponent = exponent;
+        this.hIntegralX1 = hIntegral(1.5) - 1d;
+        this.hIntegralN = hIntegral(n + 0.5);
+        this.s = 2d - hIntegralInverse(hIntegral(2.5) - h(2));
+    }
+
+    /**
+     * Samples a rank, 1 is the most frequent
+     *
+     * @param random the source of randomness
+     * @return the rank, between 1 and n
+     */
+    int sample(Random random) {
+        while (true) {
+            double u = this.hIntegralN + random.nextDouble() * (this.hIntegralX1 - this.hIntegralN);
+            double x = hIntegralInverse(u);
+            int k = (int) (x + 0.5);
+
+            if (k < 1) {
+                k = 1;
+            } else if (k > this.n) {
+                k = this.n;
+            }
+
+            if (k - x <= this.s || u >= hIntegral(k + 0.5) - h(k)) {
+                return k;
+            }
+        }
+    }
+
+    private double hIntegral(double x) {
+        double logX = Math.log(x);
+        return helper2((1d - this.exponent) * logX) * logX;
+    }
+
+    private double h(double x) {
+        return Math.exp(-this.exponent * Math.log(x));
+    }
+
+    private double hIntegralInverse(double x) {
+        double t = x * (1d - this.exponent);
+        if (t < -1d) {
+            t = -1d;
+        }
+        return Math.exp(helper1(t) * x);
+    }
+
+    // log(1 + x) / x, accurate near 0
+    private static double helper1(double x) {
+        return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1d - x * (0.5 - x * (1d / 3d - 0.25 * x));
+    }
+
+    // (exp(x) - 1) / x, accurate near 0
+    private static double helper2(double x) {
+        return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1d + x * 0.5 * (1d + x * (1d / 3d) * (1d + 0.25 * x));
+    }
+
+}
@@ -0,0 +1,107 @@
+package me.bruno.shorturl.cache;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * In-memory membership filter for active codes, backed by a Bloom filter.
+ * A negative answer means the code is certainly not active, so the lookup can skip the database.
+ * Until the first build the filter is pass-through (every code might be active).
+ */
+public class ActiveCodeFilter {
+
+    // Filter used by lookups, null until the first build
+    private volatile BloomFilter<CharSequence> filter;
+
+    // Filter being rebuilt, receives the same puts as the current one
+    private volatile BloomFilter<CharSequence> building;
+
+    /**
+     * Checks if the code might be active
+     *
+     * @param code the code to check
+     * @return false if the code is certainly not active, true otherwise
+     */
+    public boolean mightContain(String code) {
+        BloomFilter<CharSequence> current = this.filter;
+        return current == null || current.mightContain(code);
+    }
+
+    /**
+     * Adds an active code to the filter
+     * Codes can not be removed, removed codes are answered by the caller's negative cache
+     *
+     * @param code the code to add
+     */
+    public void put(String code) {
+        // The filter being rebuilt is read first: it is published as the current filter before being cleared,
+        // so a put that sees no filter being rebuilt also sees the rebuilt filter
+        BloomFilter<CharSequence> next = this.building;
+        BloomFilter<CharSequence> current = this.filter;
+
+        if (current != null) {
+            current.put(code);
+        }
+
+        if (next != null && next != current) {
+            next.put(code);
+        }
+    }
+
+    /**
+     * Starts a rebuild, codes added while rebuilding are kept in the new filter
+     *
+     * @param expectedInsertions the expected number of codes
+     * @param fpp                the desired false positive probability
+     * @return the filter to be loaded with the active codes
+     */
+    public BloomFilter<CharSequence> startRebuild(long expectedInsertions, double fpp) {
+        BloomFilter<CharSequence> next = BloomFilter.create(
+                Funnels.stringFunnel(StandardCharsets.UTF_8),
+                Math.max(1, expectedInsertions),
+                fpp
+        );
+        this.building = next;
+        return next;
+    }
+
+    /**
+     * Replaces the current filter with the rebuilt one
+     */
+    public void finishRebuild() {
+        BloomFilter<CharSequence> next = this.building;
+        if (next != null) {
+            this.filter = next;
+            this.building = null;
+        }
+    }
+
+    /**
+     * Drops the filter being rebuilt, the current filter is kept
+     */
+    public void abortRebuild() {
+        this.building = null;
+    }
+
+    /**
+     * Checks if the filter was built at least once
+     *
+     * @return true if lookups are being filtered
+     */
+    public boolean isReady() {
+        return this.filter != null;
+    }
+
+    /**
+     * Gets the approximate number of codes in the filter
+     *
+     * @return the approximate number of codes, 0 if not built
+     */
+    public long approximateSize() {
+        BloomFilter<CharSequence> current = this.filter;
+        return current == null ? 0 : current.approximateElementCount();
+    }
+
+}
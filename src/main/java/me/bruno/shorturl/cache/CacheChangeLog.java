@@ -0,0 +1,82 @@
+package me.bruno.shorturl.cache;
+
+import me.bruno.shorturl.entity.CacheChangeEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Writes the changes of cached entries to the change log
+ * Must be called in the transaction of the change, so the log and the change are committed together
+ * Written with batched JDBC inserts, Hibernate does not batch inserts of entities with identity ids.
+ */
+@Component
+public class CacheChangeLog {
+
+    private static final String INSERT_CHANGE_SQL = "INSERT INTO cache_change (cache_name, entry_key, node, created_at) VALUES (?, ?, ?, ?)";
+
+    // Id of this node, its own changes are skipped by its poller
+    private final String node = UUID.randomUUID().toString();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Configuration
+    @Value("${short-url.cache-sync.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * Records a change of a cached entry
+     *
+     * @param cacheName the cache of the entry
+     * @param key       the key of the entry
+     */
+    public void record(CacheChangeEntity.CacheName cacheName, String key) {
+        record(cacheName, List.of(key));
+    }
+
+    /**
+     * Records the changes of cached entries
+     *
+     * @param cacheName the cache of the entries
+     * @param keys      the keys of the entries
+     */
+    public void record(CacheChangeEntity.CacheName cacheName, Collection<String> keys) {
+        if (!this.enabled || keys.isEmpty()) {
+            return;
+        }
+
+        OffsetDateTime now = OffsetDateTime.now();
+        this.jdbcTemplate.batchUpdate(INSERT_CHANGE_SQL, keys, keys.size(), (statement, key) -> {
+            statement.setString(1, cacheName.name());
+            statement.setString(2, key);
+            statement.setString(3, this.node);
+            statement.setObject(4, now);
+        });
+    }
+
+    /**
+     * Gets the id of this node
+     *
+     * @return the node id
+     */
+    public String getNode() {
+        return this.node;
+    }
+
+    /**
+     * Checks if changes are recorded
+     *
+     * @return true if enabled
+     */
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+}
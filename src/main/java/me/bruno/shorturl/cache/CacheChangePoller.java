@@ -0,0 +1,161 @@
+package me.bruno.shorturl.cache;
+
+import lombok.extern.log4j.Log4j2;
+import me.bruno.shorturl.entity.CacheChangeEntity;
+import me.bruno.shorturl.repository.CacheChangeRepository;
+import me.bruno.shorturl.service.APIAuthKeyService;
+import me.bruno.shorturl.service.ShortURLService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Tails the change log by id and invalidates the changed entries of this node caches
+ * Ids are allocated before commit, so a smaller id can show up after a bigger one.
+ * The cursor only moves past an id once it is read, or once the gap is older than the gap timeout
+ * (rolled back or skipped ids never show up).
+ */
+@Log4j2
+@Component
+public class CacheChangePoller {
+
+    @Autowired
+    private CacheChangeRepository cacheChangeRepository;
+
+    @Autowired
+    private CacheChangeLog cacheChangeLog;
+
+    @Autowired
+    private ShortURLService shortURLService;
+
+    @Autowired
+    private APIAuthKeyService apiAuthKeyService;
+
+    // Configuration
+    @Value("${short-url.cache-sync.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${short-url.cache-sync.gap-timeout:PT10S}")
+    private Duration gapTimeout;
+
+    @Value("${short-url.cache-sync.retention:PT1H}")
+    private Duration retention;
+
+    // Every change up to the cursor is applied, -1 until the poller starts
+    private long cursor = -1;
+
+    // Changes after the cursor already applied, waiting for the ids in between
+    private final TreeSet<Long> applied = new TreeSet<>();
+
+    private long gapSince;
+
+    /**
+     * Applies the changes made by other nodes since the last poll
+     * Changes made before this node started are skipped, its caches were empty
+     */
+    @Scheduled(
+            initialDelayString = "${short-url.cache-sync.poll-interval:PT0.5S}",
+            fixedDelayString = "${short-url.cache-sync.poll-interval:PT0.5S}"
+    )
+    public synchronized void poll() {
+        if (!this.cacheChangeLog.isEnabled()) {
+            return;
+        }
+
+        try {
+            if (this.cursor < 0) {
+                this.cursor = this.cacheChangeRepository.findLastId();
+                return;
+            }
+
+            Set<String> codes = new HashSet<>();
+            Set<String> keys = new HashSet<>();
+            long after = this.cursor;
+
+            while (true) {
+                List<CacheChangeEntity> changes = this.cacheChangeRepository.findChangesAfter(after, PageRequest.of(0, this.batchSize));
+
+                for (CacheChangeEntity change : changes) {
+                    if (!this.applied.add(change.getId()) || this.cacheChangeLog.getNode().equals(change.getNode())) {
+                        continue;
+                    }
+
+                    switch (change.getCacheName()) {
+                        case SHORT_URL_CODE -> codes.add(change.getEntryKey());
+                        case API_KEY -> keys.add(change.getEntryKey());
+                    }
+                }
+
+                if (changes.size() < this.batchSize) {
+                    break;
+                }
+
+                after = changes.get(changes.size() - 1).getId();
+            }
+
+            if (!codes.isEmpty()) {
+                this.shortURLService.invalidateCodes(codes);
+            }
+
+            if (!keys.isEmpty()) {
+                this.apiAuthKeyService.invalidateKeys(keys);
+            }
+
+            advance(System.currentTimeMillis());
+        } catch (DataAccessException e) {
+            log.warn("Failed to poll cache changes", e);
+        }
+    }
+
+    /**
+     * Deletes changes older than the retention, every node has read them
+     */
+    @Transactional
+    @Scheduled(fixedDelayString = "${short-url.cache-sync.cleanup-interval:PT10M}")
+    public void cleanup() {
+        if (!this.cacheChangeLog.isEnabled()) {
+            return;
+        }
+
+        int deleted = this.cacheChangeRepository.deleteCreatedBefore(OffsetDateTime.now().minus(this.retention));
+        if (deleted > 0) {
+            log.info("Deleted " + deleted + " cache changes");
+        }
+    }
+
+    private void advance(long now) {
+        while (!this.applied.isEmpty()) {
+            if (this.applied.first() == this.cursor + 1) {
+                this.cursor = this.applied.pollFirst();
+                continue;
+            }
+
+            if (this.gapSince == 0) {
+                this.gapSince = now;
+                return;
+            }
+
+            if (now - this.gapSince < this.gapTimeout.toMillis()) {
+                return;
+            }
+
+            // The missing ids were rolled back or skipped
+            this.cursor = this.applied.first() - 1;
+            this.gapSince = 0;
+        }
+
+        this.gapSince = 0;
+    }
+
+}
@@ -0,0 +1,149 @@
+package me.bruno.shorturl.cache;
+
+import lombok.extern.log4j.Log4j2;
+import me.bruno.shorturl.repository.ShortURLRepository;
+import me.bruno.shorturl.service.ShortURLService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads active links into the code cache at startup, before the application reports ready
+ * Pages are loaded in parallel. With a ready fraction below 1 the application reports ready
+ * once that fraction is loaded and the rest is loaded in the background.
+ * The progress is reported as a health indicator, see /actuator/health/warmup.
+ */
+@Log4j2
+@Component
+public class CacheWarmer implements ApplicationRunner, HealthIndicator {
+
+    @Autowired
+    private ShortURLRepository shortURLRepository;
+
+    @Autowired
+    private ShortURLService shortURLService;
+
+    // Configuration
+    @Value("${short-url.cache.warmup.enabled:false}")
+    private boolean enabled;
+
+    @Value("${short-url.cache.warmup.budget:100000}")
+    private int budget;
+
+    @Value("${short-url.cache.warmup.page-size:1000}")
+    private int pageSize;
+
+    @Value("${short-url.cache.warmup.parallelism:4}")
+    private int parallelism;
+
+    @Value("${short-url.cache.warmup.order:clicks}")
+    private CacheWarmupOrder order;
+
+    @Value("${short-url.cache.warmup.ready-fraction:1.0}")
+    private double readyFraction;
+
+    private final AtomicLong loaded = new AtomicLong();
+
+    private volatile int total;
+
+    private volatile boolean done;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!this.enabled) {
+            this.done = true;
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        PageRequest limit = PageRequest.of(0, this.budget);
+        List<String> codes = this.order == CacheWarmupOrder.CREATED
+                ? this.shortURLRepository.findActiveCodesByCreation(limit)
+                : this.shortURLRepository.findActiveCodesByClicks(limit);
+        this.total = codes.size();
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, this.parallelism));
+        List<CompletableFuture<Void>> pages = new ArrayList<>();
+
+        for (int from = 0; from < codes.size(); from += this.pageSize) {
+            List<String> page = codes.subList(from, Math.min(codes.size(), from + this.pageSize));
+            pages.add(CompletableFuture.runAsync(() -> loadPage(page), executor));
+        }
+
+        // Blocks the startup until the ready fraction is loaded, pages run roughly in order
+        long readyAt = (long) Math.ceil(codes.size() * Math.min(1.0, Math.max(0.0, this.readyFraction)));
+        for (CompletableFuture<Void> page : pages) {
+            if (this.loaded.get() >= readyAt) {
+                break;
+            }
+            page.exceptionally(e -> null).join();
+        }
+
+        log.info("Cache warm-up ready with " + this.loaded.get() + "/" + codes.size() + " links in "
+                + (System.currentTimeMillis() - start) + "ms");
+
+        CompletableFuture.allOf(pages.toArray(CompletableFuture[]::new))
+                .whenComplete((result, error) -> {
+                    executor.shutdown();
+                    this.done = true;
+
+                    if (error != null) {
+                        log.error("Cache warm-up failed", error);
+                    }
+
+                    long duration = Math.max(1, System.currentTimeMillis() - start);
+                    log.info("Cache warm-up finished with " + this.loaded.get() + " links in " + duration + "ms ("
+                            + (this.loaded.get() * 1000 / duration) + " links/s)");
+                });
+    }
+
+    private void loadPage(List<String> codes) {
+        this.loaded.addAndGet(this.shortURLService.warmCache(codes));
+    }
+
+    /**
+     * Gets the number of links loaded into the cache
+     *
+     * @return the number of loaded links
+     */
+    public long getLoaded() {
+        return this.loaded.get();
+    }
+
+    /**
+     * Checks if the warm-up finished (or is disabled)
+     *
+     * @return true if finished
+     */
+    public boolean isDone() {
+        return this.done;
+    }
+
+    /**
+     * Reports the progress of the warm-up, up once the application is ready even if links are still loading
+     *
+     * @return the health with the loaded and total links
+     */
+    @Override
+    public Health health() {
+        return Health.up()
+                .withDetail("enabled", this.enabled)
+                .withDetail("loaded", this.loaded.get())
+                .withDetail("total", this.total)
+                .withDetail("done", this.done)
+                .build();
+    }
+
+}
@@ -0,0 +1,18 @@
+package me.bruno.shorturl.cache;
+
+/**
+ * Which links are loaded first by the cache warm-up
+ */
+public enum CacheWarmupOrder {
+
+    /**
+     * Most clicked first
+     */
+    CLICKS,
+
+    /**
+     * Most recently created first
+     */
+    CREATED
+
+}
@@ -0,0 +1,21 @@
+package me.bruno.shorturl.cache;
+
+/**
+ * Hits and misses of each tier of the code cache
+ *
+ * @param localHits    hits of the local (L1) cache
+ * @param localMisses  misses of the local (L1) cache
+ * @param sharedTier   name of the shared (L2) tier, null if there is none
+ * @param sharedHits   hits of the shared (L2) tier
+ * @param sharedMisses misses of the shared (L2) tier, loaded from the database
+ * @param sharedErrors errors of the shared (L2) tier, handled as misses
+ */
+public record CodeCacheStats(
+        long localHits,
+        long localMisses,
+        String sharedTier,
+        long sharedHits,
+        long sharedMisses,
+        long sharedErrors
+) {
+}
@@ -0,0 +1,50 @@
+package me.bruno.shorturl.cache;
+
+/**
+ * Shared (L2) tier of the code cache, behind the local Caffeine cache of each node
+ * Values are opaque bytes, encoded by {@link TieredCodeCache}. Implementations may drop entries at any time
+ * and must not throw on a miss, errors are counted and handled as misses.
+ */
+public interface CodeCacheTier {
+
+    /**
+     * Gets the name of the tier, used in the cache stats
+     *
+     * @return the name
+     */
+    String getName();
+
+    /**
+     * Gets the value of a code
+     *
+     * @param code the code
+     * @return the value or null if not cached
+     */
+    byte[] get(String code);
+
+    /**
+     * Puts the value of a code
+     *
+     * @param code  the code
+     * @param value the value
+     */
+    void put(String code, byte[] value);
+
+    /**
+     * Removes the value of a code
+     *
+     * @param code the code
+     */
+    void remove(String code);
+
+    /**
+     * Tells if the tier is shared by the nodes of one host only
+     * Nodes on other hosts cannot update it, changes they make must be removed from it when they are received.
+     *
+     * @return true if the tier is local to the host
+     */
+    default boolean isHostLocal() {
+        return false;
+    }
+
+}
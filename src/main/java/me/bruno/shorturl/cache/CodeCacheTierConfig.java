@@ -0,0 +1,40 @@
+package me.bruno.shorturl.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Creates the shared tier of the code cache selected by short-url.cache.l2.type
+ * none (default), file (memory-mapped file shared by the nodes of a host) or redis (shared by every node)
+ */
+@Configuration
+public class CodeCacheTierConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "short-url.cache.l2.type", havingValue = "file")
+    public MappedFileCodeCacheTier mappedFileCodeCacheTier(
+            @Value("${short-url.cache.l2.file.path:cache/codes.bin}") String path,
+            @Value("${short-url.cache.l2.file.slots:262144}") int slots,
+            @Value("${short-url.cache.l2.file.slot-size:1024}") int slotSize,
+            @Value("${short-url.cache.l2.ttl:PT20M}") Duration ttl
+    ) throws IOException {
+        return new MappedFileCodeCacheTier(Path.of(path), slots, slotSize, ttl);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "short-url.cache.l2.type", havingValue = "redis")
+    public RedisCodeCacheTier redisCodeCacheTier(
+            RedisConnectionFactory connectionFactory,
+            @Value("${short-url.cache.l2.ttl:PT20M}") Duration ttl
+    ) {
+        return new RedisCodeCacheTier(connectionFactory, ttl);
+    }
+
+}
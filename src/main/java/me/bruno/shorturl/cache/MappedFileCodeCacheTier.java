@@ -0,0 +1,177 @@
+package me.bruno.shorturl.cache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Shared tier of the code cache in a memory-mapped file
+ * Nodes on the same host mapping the same file share the entries. The file is a direct-mapped table of
+ * fixed size slots, a code always goes to the same slot and replaces what was there.
+ * <p>
+ * Each slot is guarded by a version (seqlock): writers move it to odd with a compare-and-set, write, then move it
+ * to the next even value. Readers read the slot between two reads of the version and drop it if the version changed.
+ * A writer that loses the compare-and-set skips its write, entries are always reloadable from the database.
+ * Removes wait for the slot instead, so they are not lost. Entries older than the TTL are misses.
+ * Slot layout: {@code version | key length | value length | padding | written at | key | value}.
+ */
+public class MappedFileCodeCacheTier implements CodeCacheTier, Closeable {
+
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private static final int HEADER_SIZE = 24;
+
+    // Spins of a remove waiting for a writer, after that the writer is considered dead
+    private static final int MAX_SPINS = 10_000;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int slots;
+    private final int slotSize;
+    private final long ttlMillis;
+
+    /**
+     * Opens or creates the cache file
+     *
+     * @param file     the file, shared by the nodes of the host
+     * @param slots    the number of slots
+     * @param slotSize the size of a slot, rounded up to a multiple of 8, entries larger than a slot are not cached
+     * @param ttl      the time to live of the entries
+     * @throws IOException if the file cannot be mapped
+     */
+    public MappedFileCodeCacheTier(Path file, int slots, int slotSize, Duration ttl) throws IOException {
+        this.slots = slots;
+        this.slotSize = (slotSize + 7) & ~7;
+        this.ttlMillis = ttl.toMillis();
+
+        long size = (long) this.slots * this.slotSize;
+        if (slots <= 0 || this.slotSize <= HEADER_SIZE || size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("invalid slots or slot size");
+        }
+
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        this.buffer.order(ByteOrder.nativeOrder());
+    }
+
+    @Override
+    public String getName() {
+        return "file";
+    }
+
+    @Override
+    public boolean isHostLocal() {
+        return true;
+    }
+
+    @Override
+    public byte[] get(String code) {
+        byte[] key = code.getBytes(StandardCharsets.UTF_8);
+        int position = position(key);
+
+        int version = (int) INTS.getAcquire(this.buffer, position);
+        if ((version & 1) != 0) {
+            return null;
+        }
+
+        int keyLength = this.buffer.getInt(position + 4);
+        int valueLength = this.buffer.getInt(position + 8);
+        long writtenAt = this.buffer.getLong(position + 16);
+
+        if (keyLength != key.length || valueLength <= 0 || HEADER_SIZE + keyLength + valueLength > this.slotSize
+                || System.currentTimeMillis() - writtenAt > this.ttlMillis) {
+            return null;
+        }
+
+        byte[] storedKey = new byte[keyLength];
+        this.buffer.get(position + HEADER_SIZE, storedKey);
+
+        byte[] value = new byte[valueLength];
+        this.buffer.get(position + HEADER_SIZE + keyLength, value);
+
+        // The slot was changed while it was read
+        VarHandle.acquireFence();
+        if ((int) INTS.getVolatile(this.buffer, position) != version) {
+            return null;
+        }
+
+        return Arrays.equals(key, storedKey) ? value : null;
+    }
+
+    @Override
+    public void put(String code, byte[] value) {
+        byte[] key = code.getBytes(StandardCharsets.UTF_8);
+
+        if (HEADER_SIZE + key.length + value.length > this.slotSize) {
+            return;
+        }
+
+        int position = position(key);
+        int version = (int) INTS.getVolatile(this.buffer, position);
+
+        if ((version & 1) != 0 || !INTS.compareAndSet(this.buffer, position, version, version + 1)) {
+            return;
+        }
+
+        this.buffer.putInt(position + 4, key.length);
+        this.buffer.putInt(position + 8, value.length);
+        this.buffer.putLong(position + 16, System.currentTimeMillis());
+        this.buffer.put(position + HEADER_SIZE, key);
+        this.buffer.put(position + HEADER_SIZE + key.length, value);
+
+        INTS.setRelease(this.buffer, position, version + 2);
+    }
+
+    @Override
+    public void remove(String code) {
+        byte[] key = code.getBytes(StandardCharsets.UTF_8);
+        int position = position(key);
+
+        for (int spins = 0; ; spins++) {
+            int version = (int) INTS.getVolatile(this.buffer, position);
+            boolean writing = (version & 1) != 0;
+
+            if (writing && spins < MAX_SPINS) {
+                Thread.onSpinWait();
+                continue;
+            }
+
+            int locked = writing ? version + 2 : version + 1;
+            if (INTS.compareAndSet(this.buffer, position, version, locked)) {
+                // Cleared even if the slot has another code, a collision only costs a reload
+                this.buffer.putInt(position + 8, 0);
+                INTS.setRelease(this.buffer, position, locked + 1);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.buffer.force();
+        this.channel.close();
+    }
+
+    private int position(byte[] key) {
+        int h = Arrays.hashCode(key);
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return Math.floorMod(h, this.slots) * this.slotSize;
+    }
+
+}
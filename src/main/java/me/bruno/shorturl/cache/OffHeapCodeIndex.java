@@ -0,0 +1,367 @@
+package me.bruno.shorturl.cache;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Off-heap hash index of codes to their redirect
+ * Open addressing (linear probing) over direct buffers, only the code and redirect URL bytes and the
+ * redirect flags are kept, so tens of millions of links cost almost no heap and no GC work.
+ * Writes are serialized, reads are lock-free.
+ * <p>
+ * Slots are longs of {@code hash << 32 | record address / 8 + 1} (0 is an empty slot).
+ * Records are appended to fixed size chunks and are 8 byte aligned:
+ * {@code header (removed flag, status) | cache max age | code length | url length | code | url}.
+ * A replaced record is left behind as garbage until the index is rebuilt.
+ * Removed codes are kept as tombstones, so a rebuild running at the same time does not put them back.
+ */
+public class OffHeapCodeIndex {
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private static final int REMOVED = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int MAX_CAPACITY = 1 << 27;
+    private static final double MAX_LOAD = 0.7;
+
+    private final int chunkShift;
+    private final int chunkSize;
+
+    // Readers get the table, then the slot, then the chunks, the writer publishes them in the opposite order
+    private volatile Table table;
+    private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+
+    // Writer state
+    private int chunkPosition;
+    private int usedSlots;
+    private long garbageBytes;
+    private volatile int size;
+
+    /**
+     * Creates an empty index
+     *
+     * @param initialCapacity the initial number of slots, rounded up to a power of two
+     * @param chunkSize       the size of the record chunks, rounded up to a power of two
+     */
+    public OffHeapCodeIndex(int initialCapacity, int chunkSize) {
+        if (initialCapacity <= 0 || chunkSize <= HEADER_SIZE) {
+            throw new IllegalArgumentException("invalid capacity or chunk size");
+        }
+
+        this.chunkShift = 32 - Integer.numberOfLeadingZeros(chunkSize - 1);
+        this.chunkSize = 1 << this.chunkShift;
+        this.table = new Table(Math.min(MAX_CAPACITY, ceilingPowerOfTwo(initialCapacity)));
+    }
+
+    /**
+     * Gets the redirect of a code
+     *
+     * @param code the code
+     * @return the entry or null if the code is unknown or removed
+     */
+    public Entry get(String code) {
+        byte[] key = code.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(key);
+        Table table = this.table;
+
+        for (int i = hash & table.mask; ; i = (i + 1) & table.mask) {
+            long slot = (long) LONGS.getAcquire(table.slots, i << 3);
+
+            if (slot == 0) {
+                return null;
+            }
+
+            if ((int) (slot >>> 32) == hash) {
+                long address = address(slot);
+                ByteBuffer chunk = this.chunks[(int) (address >>> this.chunkShift)];
+                int position = (int) (address & (this.chunkSize - 1));
+
+                if (matches(chunk, position, key)) {
+                    return read(chunk, position, code);
+                }
+            }
+        }
+    }
+
+    /**
+     * Puts the redirect of a code, replacing the current one
+     *
+     * @param code         the code
+     * @param redirectUrl  the redirect URL
+     * @param status       the redirect status code
+     * @param cacheMaxAge  the Cache-Control max age in seconds, negative if not cacheable
+     */
+    public synchronized void put(String code, String redirectUrl, int status, int cacheMaxAge) {
+        write(code, redirectUrl, status, cacheMaxAge, true);
+    }
+
+    /**
+     * Puts the redirect of a code, unless the code is already known (or removed)
+     *
+     * @param code         the code
+     * @param redirectUrl  the redirect URL
+     * @param status       the redirect status code
+     * @param cacheMaxAge  the Cache-Control max age in seconds, negative if not cacheable
+     */
+    public synchronized void putIfAbsent(String code, String redirectUrl, int status, int cacheMaxAge) {
+        write(code, redirectUrl, status, cacheMaxAge, false);
+    }
+
+    /**
+     * Removes a code, keeping a tombstone
+     *
+     * @param code the code
+     */
+    public synchronized void remove(String code) {
+        byte[] key = code.getBytes(StandardCharsets.UTF_8);
+        int slot = findSlot(key, hash(key));
+
+        if (slot >= 0) {
+            long address = address((long) LONGS.get(this.table.slots, slot << 3));
+            ByteBuffer chunk = this.chunks[(int) (address >>> this.chunkShift)];
+            int position = (int) (address & (this.chunkSize - 1));
+            int header = (int) INTS.get(chunk, position);
+
+            if ((header & REMOVED) == 0) {
+                INTS.setRelease(chunk, position, header | REMOVED);
+                this.size--;
+            }
+            return;
+        }
+
+        insert(-slot - 1, hash(key), key, new byte[0], REMOVED, -1);
+    }
+
+    /**
+     * Gets the number of known codes, removed codes excluded
+     *
+     * @return the number of codes
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Gets the off-heap memory in use, slots and record chunks
+     *
+     * @return the memory in bytes
+     */
+    public long memoryBytes() {
+        return (long) this.table.slots.capacity() + (long) this.chunks.length * this.chunkSize;
+    }
+
+    /**
+     * Gets the bytes of replaced records, reclaimed when the index is rebuilt
+     *
+     * @return the garbage in bytes
+     */
+    public synchronized long garbageBytes() {
+        return this.garbageBytes;
+    }
+
+    private void write(String code, String redirectUrl, int status, int cacheMaxAge, boolean replace) {
+        byte[] key = code.getBytes(StandardCharsets.UTF_8);
+        byte[] url = redirectUrl.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(key);
+        int slot = findSlot(key, hash);
+
+        if (slot < 0) {
+            insert(-slot - 1, hash, key, url, status << 8, cacheMaxAge);
+            this.size++;
+            return;
+        }
+
+        if (!replace) {
+            return;
+        }
+
+        long previous = address((long) LONGS.get(this.table.slots, slot << 3));
+        ByteBuffer previousChunk = this.chunks[(int) (previous >>> this.chunkShift)];
+        int previousPosition = (int) (previous & (this.chunkSize - 1));
+
+        if (((int) INTS.get(previousChunk, previousPosition) & REMOVED) != 0) {
+            this.size++;
+        }
+
+        this.garbageBytes += recordSize(previousChunk.getInt(previousPosition + 8), previousChunk.getInt(previousPosition + 12));
+        long address = append(key, url, status << 8, cacheMaxAge);
+        LONGS.setRelease(this.table.slots, slot << 3, slotValue(hash, address));
+    }
+
+    private void insert(int slot, int hash, byte[] key, byte[] url, int header, int cacheMaxAge) {
+        long address = append(key, url, header, cacheMaxAge);
+
+        if (this.usedSlots + 1 > this.table.mask * MAX_LOAD) {
+            resize();
+            slot = -findSlot(key, hash) - 1;
+        }
+
+        LONGS.setRelease(this.table.slots, slot << 3, slotValue(hash, address));
+        this.usedSlots++;
+    }
+
+    /**
+     * Finds the slot of a code, writer only
+     *
+     * @return the slot or (-insertion slot - 1) if the code is not in the index
+     */
+    private int findSlot(byte[] key, int hash) {
+        Table table = this.table;
+
+        for (int i = hash & table.mask; ; i = (i + 1) & table.mask) {
+            long slot = (long) LONGS.get(table.slots, i << 3);
+
+            if (slot == 0) {
+                return -i - 1;
+            }
+
+            if ((int) (slot >>> 32) == hash) {
+                long address = address(slot);
+                if (matches(this.chunks[(int) (address >>> this.chunkShift)], (int) (address & (this.chunkSize - 1)), key)) {
+                    return i;
+                }
+            }
+        }
+    }
+
+    private void resize() {
+        Table current = this.table;
+        int capacity = current.mask + 1;
+
+        if (capacity >= MAX_CAPACITY) {
+            throw new IllegalStateException("code index is full");
+        }
+
+        Table resized = new Table(capacity * 2);
+        for (int i = 0; i < capacity; i++) {
+            long slot = (long) LONGS.get(current.slots, i << 3);
+            if (slot == 0) {
+                continue;
+            }
+
+            int j = (int) (slot >>> 32) & resized.mask;
+            while ((long) LONGS.get(resized.slots, j << 3) != 0) {
+                j = (j + 1) & resized.mask;
+            }
+            LONGS.set(resized.slots, j << 3, slot);
+        }
+
+        this.table = resized;
+    }
+
+    private long append(byte[] key, byte[] url, int header, int cacheMaxAge) {
+        int recordSize = recordSize(key.length, url.length);
+
+        if (recordSize > this.chunkSize) {
+            throw new IllegalArgumentException("record is larger than a chunk");
+        }
+
+        ByteBuffer[] chunks = this.chunks;
+        if (chunks.length == 0 || this.chunkPosition + recordSize > this.chunkSize) {
+            if ((long) (chunks.length + 1) << this.chunkShift > 0x7FFFFFFFFL) {
+                throw new IllegalStateException("code index is full");
+            }
+
+            chunks = Arrays.copyOf(chunks, chunks.length + 1);
+            chunks[chunks.length - 1] = ByteBuffer.allocateDirect(this.chunkSize + 7).alignedSlice(8).order(ByteOrder.nativeOrder());
+            this.chunks = chunks;
+            this.chunkPosition = 0;
+        }
+
+        ByteBuffer chunk = chunks[chunks.length - 1];
+        int position = this.chunkPosition;
+
+        chunk.putInt(position, header);
+        chunk.putInt(position + 4, cacheMaxAge);
+        chunk.putInt(position + 8, key.length);
+        chunk.putInt(position + 12, url.length);
+        chunk.put(position + HEADER_SIZE, key);
+        chunk.put(position + HEADER_SIZE + key.length, url);
+
+        this.chunkPosition += recordSize;
+        return ((long) (chunks.length - 1) << this.chunkShift) + position;
+    }
+
+    private static boolean matches(ByteBuffer chunk, int position, byte[] key) {
+        if (chunk.getInt(position + 8) != key.length) {
+            return false;
+        }
+
+        int start = position + HEADER_SIZE;
+        for (int i = 0; i < key.length; i++) {
+            if (chunk.get(start + i) != key[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static Entry read(ByteBuffer chunk, int position, String code) {
+        int header = (int) INTS.getAcquire(chunk, position);
+
+        if ((header & REMOVED) != 0) {
+            return null;
+        }
+
+        byte[] url = new byte[chunk.getInt(position + 12)];
+        chunk.get(position + HEADER_SIZE + chunk.getInt(position + 8), url);
+
+        return new Entry(code, new String(url, StandardCharsets.UTF_8), header >>> 8, chunk.getInt(position + 4));
+    }
+
+    private static int recordSize(int keyLength, int urlLength) {
+        return (HEADER_SIZE + keyLength + urlLength + 7) & ~7;
+    }
+
+    private static long address(long slot) {
+        return ((slot & 0xFFFFFFFFL) - 1) << 3;
+    }
+
+    private static long slotValue(int hash, long address) {
+        return ((long) hash << 32) | ((address >>> 3) + 1);
+    }
+
+    private static int hash(byte[] key) {
+        int h = Arrays.hashCode(key);
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private static int ceilingPowerOfTwo(int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+
+    /**
+     * Redirect of a code
+     *
+     * @param code        the code
+     * @param redirectUrl the redirect URL
+     * @param status      the redirect status code
+     * @param cacheMaxAge the Cache-Control max age in seconds, negative if not cacheable
+     */
+    public record Entry(String code, String redirectUrl, int status, int cacheMaxAge) {
+    }
+
+    private static final class Table {
+
+        private final ByteBuffer slots;
+        private final int mask;
+
+        private Table(int capacity) {
+            this.slots = ByteBuffer.allocateDirect(capacity * 8 + 7).alignedSlice(8).order(ByteOrder.nativeOrder());
+            this.mask = capacity - 1;
+        }
+
+    }
+
+}
@@ -0,0 +1,54 @@
+package me.bruno.shorturl.cache;
+
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.Duration;
+
+/**
+ * Shared tier of the code cache in Redis, shared by every node
+ */
+public class RedisCodeCacheTier implements CodeCacheTier {
+
+    private static final String KEY_PREFIX = "short-url:code:";
+
+    private final RedisTemplate<String, byte[]> redisTemplate;
+    private final Duration ttl;
+
+    /**
+     * Creates the tier
+     *
+     * @param connectionFactory the Redis connection factory
+     * @param ttl               the time to live of the entries
+     */
+    public RedisCodeCacheTier(RedisConnectionFactory connectionFactory, Duration ttl) {
+        this.ttl = ttl;
+        this.redisTemplate = new RedisTemplate<>();
+        this.redisTemplate.setConnectionFactory(connectionFactory);
+        this.redisTemplate.setKeySerializer(RedisSerializer.string());
+        this.redisTemplate.setValueSerializer(RedisSerializer.byteArray());
+        this.redisTemplate.afterPropertiesSet();
+    }
+
+    @Override
+    public String getName() {
+        return "redis";
+    }
+
+    @Override
+    public byte[] get(String code) {
+        return this.redisTemplate.opsForValue().get(KEY_PREFIX + code);
+    }
+
+    @Override
+    public void put(String code, byte[] value) {
+        this.redisTemplate.opsForValue().set(KEY_PREFIX + code, value, this.ttl);
+    }
+
+    @Override
+    public void remove(String code) {
+        this.redisTemplate.delete(KEY_PREFIX + code);
+    }
+
+}
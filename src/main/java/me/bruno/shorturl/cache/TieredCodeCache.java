@@ -0,0 +1,280 @@
+package me.bruno.shorturl.cache;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.log4j.Log4j2;
+import me.bruno.shorturl.entity.ShortURLEntity;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Cache of valid codes, a local Caffeine cache (L1) in front of an optional shared tier (L2)
+ * Local misses read through the shared tier, then the database. Saves and removes write through both tiers.
+ * Refreshes skip the shared tier and go to the database, so stale shared entries are replaced.
+ * Entries of links with an activation or expiration date expire locally at that date, on Caffeine's timer wheel.
+ */
+@Log4j2
+public class TieredCodeCache {
+
+    private static final long MAX_EXPIRATION_NANOS = TimeUnit.MINUTES.toNanos(20);
+
+    private static final ObjectMapper MAPPER = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    private final Function<String, ShortURLEntity> loader;
+    private final Supplier<CodeCacheTier> sharedTier;
+
+    private final LoadingCache<String, ShortURLEntity> localCache;
+
+    private final LongAdder sharedHits = new LongAdder();
+    private final LongAdder sharedMisses = new LongAdder();
+    private final LongAdder sharedErrors = new LongAdder();
+
+    /**
+     * Creates the cache
+     *
+     * @param loader     loads a valid ShortURL from the database, null if it does not exist
+     * @param sharedTier supplies the shared tier, null if there is none
+     */
+    public TieredCodeCache(Function<String, ShortURLEntity> loader, Supplier<CodeCacheTier> sharedTier) {
+        this(loader, sharedTier, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates the cache
+     *
+     * @param loader     loads a valid ShortURL from the database, null if it does not exist
+     * @param sharedTier supplies the shared tier, null if there is none
+     * @param executor   runs the refreshes
+     */
+    public TieredCodeCache(Function<String, ShortURLEntity> loader, Supplier<CodeCacheTier> sharedTier, Executor executor) {
+        this.loader = loader;
+        this.sharedTier = sharedTier;
+        this.localCache = Caffeine.newBuilder()
+                .executor(executor)
+                .expireAfter(new LinkExpiry())
+                .scheduler(Scheduler.systemScheduler())
+                .refreshAfterWrite(10, TimeUnit.MINUTES)
+                .recordStats()
+                .build(new CacheLoader<>() {
+                    @Override
+                    public ShortURLEntity load(String code) {
+                        return loadThroughShared(code);
+                    }
+
+                    @Override
+                    public ShortURLEntity reload(String code, ShortURLEntity oldValue) {
+                        return loadFromSource(code);
+                    }
+                });
+    }
+
+    /**
+     * Gets the valid ShortURL of a code
+     *
+     * @param code the code
+     * @return the valid ShortURL or null if it does not exist
+     */
+    public ShortURLEntity get(String code) {
+        return this.localCache.get(code);
+    }
+
+    /**
+     * Puts a valid ShortURL in both tiers
+     *
+     * @param shortURLEntity the valid ShortURL
+     */
+    public void put(ShortURLEntity shortURLEntity) {
+        this.localCache.put(shortURLEntity.getCode(), shortURLEntity);
+        putShared(shortURLEntity);
+    }
+
+    /**
+     * Puts a valid ShortURL in the local tier only
+     *
+     * @param shortURLEntity the valid ShortURL
+     */
+    public void putLocal(ShortURLEntity shortURLEntity) {
+        this.localCache.put(shortURLEntity.getCode(), shortURLEntity);
+    }
+
+    /**
+     * Removes a code from both tiers
+     *
+     * @param code the code
+     */
+    public void remove(String code) {
+        this.localCache.invalidate(code);
+
+        CodeCacheTier tier = this.sharedTier.get();
+        if (tier != null) {
+            try {
+                tier.remove(code);
+            } catch (RuntimeException e) {
+                this.sharedErrors.increment();
+                log.warn("Failed to remove code from " + tier.getName() + " cache", e);
+            }
+        }
+    }
+
+    /**
+     * Removes a code changed by another node
+     * A shared tier was already updated by the node that made the change, a host-local tier may not have been.
+     *
+     * @param code the code
+     */
+    public void invalidateChanged(String code) {
+        CodeCacheTier tier = this.sharedTier.get();
+
+        if (tier != null && tier.isHostLocal()) {
+            remove(code);
+        } else {
+            this.localCache.invalidate(code);
+        }
+    }
+
+    /**
+     * Gets the hits and misses of each tier
+     *
+     * @return the stats
+     */
+    public CodeCacheStats stats() {
+        CacheStats local = this.localCache.stats();
+        CodeCacheTier tier = this.sharedTier.get();
+
+        return new CodeCacheStats(
+                local.hitCount(),
+                local.missCount(),
+                tier == null ? null : tier.getName(),
+                this.sharedHits.sum(),
+                this.sharedMisses.sum(),
+                this.sharedErrors.sum()
+        );
+    }
+
+    /**
+     * Registers the metrics of both tiers, the local tier as a Caffeine cache and the shared tier as counters
+     *
+     * @param meterRegistry the registry
+     * @param name          the name of the cache
+     */
+    public void bindTo(MeterRegistry meterRegistry, String name) {
+        CaffeineCacheMetrics.monitor(meterRegistry, this.localCache, name);
+
+        String tier = this.sharedTier.get() == null ? "none" : this.sharedTier.get().getName();
+        sharedCounter(meterRegistry, name, tier, "hit", this.sharedHits);
+        sharedCounter(meterRegistry, name, tier, "miss", this.sharedMisses);
+        sharedCounter(meterRegistry, name, tier, "error", this.sharedErrors);
+    }
+
+    private static void sharedCounter(MeterRegistry meterRegistry, String name, String tier, String result, LongAdder adder) {
+        FunctionCounter.builder("shorturl.cache.shared.gets", adder, LongAdder::sum)
+                .description("Gets of the shared tier of the code cache")
+                .tag("cache", name)
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Gets the time an entry stays in the local tier, 20 minutes at most, until the next activation or expiration date
+     *
+     * @param shortURLEntity the valid ShortURL
+     * @param now            the current date
+     * @return the time in nanoseconds
+     */
+    static long expirationNanos(ShortURLEntity shortURLEntity, OffsetDateTime now) {
+        long nanos = MAX_EXPIRATION_NANOS;
+
+        for (OffsetDateTime date : new OffsetDateTime[]{shortURLEntity.getActiveFrom(), shortURLEntity.getExpiresAt()}) {
+            if (date != null && date.isAfter(now)) {
+                nanos = Math.min(nanos, Duration.between(now, date).toNanos());
+            }
+        }
+
+        return nanos;
+    }
+
+    private ShortURLEntity loadThroughShared(String code) {
+        CodeCacheTier tier = this.sharedTier.get();
+
+        if (tier != null) {
+            try {
+                byte[] value = tier.get(code);
+                if (value != null) {
+                    this.sharedHits.increment();
+                    return MAPPER.readValue(value, ShortURLEntity.class);
+                }
+                this.sharedMisses.increment();
+            } catch (IOException | RuntimeException e) {
+                this.sharedErrors.increment();
+                log.warn("Failed to get code from " + tier.getName() + " cache", e);
+            }
+        }
+
+        return loadFromSource(code);
+    }
+
+    private ShortURLEntity loadFromSource(String code) {
+        ShortURLEntity shortURLEntity = this.loader.apply(code);
+
+        if (shortURLEntity != null) {
+            putShared(shortURLEntity);
+        }
+
+        return shortURLEntity;
+    }
+
+    private void putShared(ShortURLEntity shortURLEntity) {
+        CodeCacheTier tier = this.sharedTier.get();
+
+        if (tier != null) {
+            try {
+                tier.put(shortURLEntity.getCode(), MAPPER.writeValueAsBytes(shortURLEntity));
+            } catch (IOException | RuntimeException e) {
+                this.sharedErrors.increment();
+                log.warn("Failed to put code in " + tier.getName() + " cache", e);
+            }
+        }
+    }
+
+    private static final class LinkExpiry implements Expiry<String, ShortURLEntity> {
+
+        @Override
+        public long expireAfterCreate(String code, ShortURLEntity shortURLEntity, long currentTime) {
+            return expirationNanos(shortURLEntity, OffsetDateTime.now());
+        }
+
+        @Override
+        public long expireAfterUpdate(String code, ShortURLEntity shortURLEntity, long currentTime, long currentDuration) {
+            return expirationNanos(shortURLEntity, OffsetDateTime.now());
+        }
+
+        @Override
+        public long expireAfterRead(String code, ShortURLEntity shortURLEntity, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+    }
+
+}
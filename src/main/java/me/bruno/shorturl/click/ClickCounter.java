@@ -0,0 +1,132 @@
+package me.bruno.shorturl.click;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import me.bruno.shorturl.repository.ClickRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts clicks in memory and writes them behind to the database
+ * Redirects only increment a striped counter, they never wait for the database
+ */
+@Log4j2
+@Component
+public class ClickCounter {
+
+    private final ConcurrentHashMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    @Autowired
+    private ClickRepository clickRepository;
+
+    // Configuration
+    @Value("${short-url.clicks.enabled:true}")
+    private boolean enabled;
+
+    @Value("${short-url.clicks.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * Counts a click on the code
+     *
+     * @param code the code of the valid ShortURL
+     */
+    public void increment(String code) {
+        if (!this.enabled) {
+            return;
+        }
+
+        LongAdder counter = this.counters.get(code);
+        if (counter == null) {
+            counter = this.counters.computeIfAbsent(code, key -> new LongAdder());
+        }
+
+        counter.increment();
+
+        // Removed as idle by a concurrent flush, the click would not be written
+        if (this.counters.get(code) != counter) {
+            reclaim(code, counter);
+        }
+    }
+
+    /**
+     * Gets the clicks of the code not written to the database yet
+     *
+     * @param code the code
+     * @return the pending clicks
+     */
+    public long getPending(String code) {
+        LongAdder counter = this.counters.get(code);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * Writes the pending clicks to the database
+     * Called periodically and on shutdown
+     */
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${short-url.clicks.flush-interval:PT5S}")
+    public void flush() {
+        List<Map.Entry<String, Long>> pending = drain();
+
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+
+        try {
+            this.clickRepository.addClicks(pending, this.batchSize);
+            log.debug("Flushed clicks of " + pending.size() + " codes in " + (System.currentTimeMillis() - start) + "ms");
+        } catch (RuntimeException e) {
+            log.error("Failed to flush clicks, will retry", e);
+            pending.forEach(entry -> this.counters.computeIfAbsent(entry.getKey(), key -> new LongAdder()).add(entry.getValue()));
+        }
+    }
+
+    /**
+     * Takes the pending clicks out of the counters
+     * Subtracts what was read instead of resetting, so concurrent increments are not lost
+     */
+    private List<Map.Entry<String, Long>> drain() {
+        List<Map.Entry<String, Long>> pending = new ArrayList<>();
+
+        this.counters.forEach((code, counter) -> {
+            long clicks = counter.sum();
+
+            if (clicks == 0) {
+                // Idle for a whole interval, clicks racing with the removal are moved back
+                if (this.counters.remove(code, counter)) {
+                    reclaim(code, counter);
+                }
+                return;
+            }
+
+            counter.add(-clicks);
+            pending.add(Map.entry(code, clicks));
+        });
+
+        return pending;
+    }
+
+    /**
+     * Moves the clicks of a counter removed from the map to the current counter of the code
+     * Both the flush and the incrementing thread may call it, sumThenReset takes each click once.
+     */
+    private void reclaim(String code, LongAdder removed) {
+        long clicks = removed.sumThenReset();
+
+        if (clicks != 0) {
+            this.counters.computeIfAbsent(code, key -> new LongAdder()).add(clicks);
+        }
+    }
+
+}
@@ -0,0 +1,11 @@
+package me.bruno.shorturl.click;
+
+/**
+ * Consumer of the click events drained from the ring buffer
+ */
+@FunctionalInterface
+interface ClickEventHandler {
+
+    void onEvent(long timestamp, String code, String referrer, String userAgent, String clientIp);
+
+}
@@ -0,0 +1,119 @@
+package me.bruno.shorturl.click;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free ring buffer of click events, many producers and a single consumer
+ * Slots are preallocated, offering an event stores references only and never blocks:
+ * when the buffer is full the event is rejected.
+ */
+final class ClickEventRingBuffer {
+
+    private final int capacity;
+
+    private final int mask;
+
+    // Next sequence to be claimed by a producer
+    private final AtomicLong tail = new AtomicLong();
+
+    // Next sequence to be read, written by the consumer only
+    private volatile long head;
+
+    // Sequence + 1 of the event published in each slot
+    private final AtomicLongArray published;
+
+    private final long[] timestamps;
+    private final String[] codes;
+    private final String[] referrers;
+    private final String[] userAgents;
+    private final String[] clientIps;
+
+    ClickEventRingBuffer(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two");
+        }
+
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.published = new AtomicLongArray(capacity);
+        this.timestamps = new long[capacity];
+        this.codes = new String[capacity];
+        this.referrers = new String[capacity];
+        this.userAgents = new String[capacity];
+        this.clientIps = new String[capacity];
+    }
+
+    /**
+     * Offers an event, never blocks
+     *
+     * @return false if the buffer is full and the event was dropped
+     */
+    boolean offer(long timestamp, String code, String referrer, String userAgent, String clientIp) {
+        long sequence;
+        do {
+            sequence = this.tail.get();
+
+            if (sequence - this.head >= this.capacity) {
+                return false;
+            }
+        } while (!this.tail.compareAndSet(sequence, sequence + 1));
+
+        int slot = (int) (sequence & this.mask);
+        this.timestamps[slot] = timestamp;
+        this.codes[slot] = code;
+        this.referrers[slot] = referrer;
+        this.userAgents[slot] = userAgent;
+        this.clientIps[slot] = clientIp;
+
+        // Release the slot contents to the consumer
+        this.published.lazySet(slot, sequence + 1);
+        return true;
+    }
+
+    /**
+     * Passes the published events to the handler, in order
+     * Must be called by a single thread. An event whose handler throws is consumed,
+     * the exception is rethrown after the slots drained so far are freed.
+     *
+     * @param handler the handler of each event
+     * @param max     the max number of events to drain
+     * @return the number of drained events
+     */
+    int drain(ClickEventHandler handler, int max) {
+        long sequence = this.head;
+        int count = 0;
+
+        try {
+            while (count < max) {
+                int slot = (int) (sequence & this.mask);
+
+                if (this.published.get(slot) != sequence + 1) {
+                    break;
+                }
+
+                try {
+                    handler.onEvent(this.timestamps[slot], this.codes[slot], this.referrers[slot], this.userAgents[slot], this.clientIps[slot]);
+                } finally {
+                    this.codes[slot] = null;
+                    this.referrers[slot] = null;
+                    this.userAgents[slot] = null;
+                    this.clientIps[slot] = null;
+
+                    sequence++;
+                    count++;
+                }
+            }
+        } finally {
+            // Frees the drained slots for the producers
+            this.head = sequence;
+        }
+
+        return count;
+    }
+
+    int capacity() {
+        return this.capacity;
+    }
+
+}
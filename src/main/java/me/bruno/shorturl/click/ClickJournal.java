@@ -0,0 +1,185 @@
+package me.bruno.shorturl.click;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Append-only journal of click events, for offline analysis
+ * Redirects offer events to a lock-free ring buffer, a single writer thread appends them
+ * to memory-mapped segment files. Events are dropped when the buffer is full.
+ */
+@Log4j2
+@Component
+public class ClickJournal {
+
+    private static final int DRAIN_BATCH = 4096;
+
+    // Configuration
+    @Value("${short-url.journal.enabled:false}")
+    private boolean enabled;
+
+    @Value("${short-url.journal.directory:journal}")
+    private String directory;
+
+    @Value("${short-url.journal.buffer-size:65536}")
+    private int bufferSize;
+
+    @Value("${short-url.journal.segment-size:67108864}")
+    private int segmentSize;
+
+    @Value("${short-url.journal.roll-interval:PT1H}")
+    private Duration rollInterval;
+
+    @Value("${short-url.journal.hash-key:short-url}")
+    private String hashKey;
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final LongAdder written = new LongAdder();
+
+    private ClickEventRingBuffer ringBuffer;
+
+    private ClickJournalSegmentWriter segmentWriter;
+
+    private HashFunction hashFunction;
+
+    private Thread writerThread;
+
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!this.enabled) {
+            return;
+        }
+
+        // Keyed hash, the user agents and IPs can not be recovered without the key
+        HashCode key = Hashing.sha256().hashString(this.hashKey, StandardCharsets.UTF_8);
+        byte[] keyBytes = key.asBytes();
+        this.hashFunction = Hashing.sipHash24(
+                HashCode.fromBytes(Arrays.copyOfRange(keyBytes, 0, 8)).asLong(),
+                HashCode.fromBytes(Arrays.copyOfRange(keyBytes, 8, 16)).asLong()
+        );
+
+        Path path = Path.of(this.directory);
+        this.segmentWriter = new ClickJournalSegmentWriter(path, this.segmentSize, this.rollInterval);
+        this.ringBuffer = new ClickEventRingBuffer(Integer.highestOneBit(Math.max(2, this.bufferSize)));
+        this.running = true;
+
+        this.writerThread = new Thread(this::runWriter, "click-journal-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+
+        log.info("Click journal started in " + path.toAbsolutePath());
+    }
+
+    /**
+     * Records a click event, never blocks
+     * The event is dropped if the writer is behind
+     *
+     * @param code      the redirected code
+     * @param referrer  the Referer header, may be null
+     * @param userAgent the User-Agent header, may be null
+     * @param clientIp  the client IP, may be null
+     */
+    public void record(String code, String referrer, String userAgent, String clientIp) {
+        ClickEventRingBuffer buffer = this.ringBuffer;
+
+        if (buffer != null && !buffer.offer(System.currentTimeMillis(), code, referrer, userAgent, clientIp)) {
+            this.dropped.increment();
+        }
+    }
+
+    /**
+     * Gets the number of events dropped because the buffer was full
+     *
+     * @return the number of dropped events
+     */
+    public long getDropped() {
+        return this.dropped.sum();
+    }
+
+    /**
+     * Gets the number of events written to the journal
+     *
+     * @return the number of written events
+     */
+    public long getWritten() {
+        return this.written.sum();
+    }
+
+    private void runWriter() {
+        ClickEventHandler handler = this::write;
+
+        while (true) {
+            boolean stopping = !this.running;
+
+            try {
+                int drained = this.ringBuffer.drain(handler, DRAIN_BATCH);
+
+                if (drained == 0) {
+                    if (stopping) {
+                        break;
+                    }
+
+                    this.segmentWriter.rollIfExpired();
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                }
+            } catch (IOException | RuntimeException e) {
+                log.error("Failed to write click journal", e);
+                LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(1));
+            }
+        }
+
+        this.segmentWriter.close();
+    }
+
+    private void write(long timestamp, String code, String referrer, String userAgent, String clientIp) {
+        try {
+            if (this.segmentWriter.append(timestamp, code, referrer, hash(userAgent), hash(clientIp))) {
+                this.written.increment();
+            } else {
+                this.dropped.increment();
+            }
+        } catch (IOException e) {
+            this.dropped.increment();
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long hash(String value) {
+        return value == null ? 0 : this.hashFunction.hashString(value, StandardCharsets.UTF_8).asLong();
+    }
+
+    /**
+     * Stops the writer, the buffered events are written before returning
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!this.running) {
+            return;
+        }
+
+        this.running = false;
+        this.writerThread.join(TimeUnit.SECONDS.toMillis(10));
+
+        log.info("Click journal stopped, written " + getWritten() + " events, dropped " + getDropped());
+    }
+
+}
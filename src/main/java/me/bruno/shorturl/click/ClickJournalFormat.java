@@ -0,0 +1,33 @@
+package me.bruno.shorturl.click;
+
+/**
+ * Binary format of the click journal segments
+ * <pre>
+ * segment: MAGIC (int), VERSION (int), records..., 0 (int) or end of file
+ * record:  length (int, bytes after this field), timestamp (long, epoch millis),
+ *          user agent hash (long), client ip hash (long),
+ *          code length (short), code (UTF-8), referrer length (short), referrer (UTF-8)
+ * </pre>
+ */
+final class ClickJournalFormat {
+
+    static final int MAGIC = 0x53554A4C; // "SUJL"
+
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = Integer.BYTES * 2;
+
+    // timestamp, user agent hash, client ip hash and both string lengths
+    static final int RECORD_FIXED_SIZE = Long.BYTES * 3 + Short.BYTES * 2;
+
+    // Referrers are truncated to keep records compact
+    static final int MAX_REFERRER_LENGTH = 512;
+
+    static final String FILE_PREFIX = "clicks-";
+
+    static final String FILE_SUFFIX = ".journal";
+
+    private ClickJournalFormat() {
+    }
+
+}
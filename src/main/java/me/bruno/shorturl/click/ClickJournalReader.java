@@ -0,0 +1,79 @@
+package me.bruno.shorturl.click;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Reads the records of a click journal segment, for offline analysis
+ */
+public final class ClickJournalReader {
+
+    private ClickJournalReader() {
+    }
+
+    /**
+     * Reads all records of the segment
+     *
+     * @param segment  the segment file
+     * @param consumer the consumer of each record
+     * @return the number of records read
+     * @throws IOException              if the file can not be read
+     * @throws IllegalArgumentException if the file is not a click journal segment
+     */
+    public static long read(Path segment, Consumer<ClickRecord> consumer) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.remaining() < ClickJournalFormat.HEADER_SIZE
+                || buffer.getInt() != ClickJournalFormat.MAGIC
+                || buffer.getInt() != ClickJournalFormat.VERSION) {
+            throw new IllegalArgumentException("Not a click journal segment: " + segment);
+        }
+
+        long count = 0;
+        while (buffer.remaining() >= Integer.BYTES) {
+            int length = buffer.getInt();
+
+            if (length == 0 || length > buffer.remaining()) {
+                break;
+            }
+
+            long timestamp = buffer.getLong();
+            long userAgentHash = buffer.getLong();
+            long clientIpHash = buffer.getLong();
+            String code = readString(buffer);
+            String referrer = readString(buffer);
+
+            consumer.accept(new ClickRecord(timestamp, code, referrer.isEmpty() ? null : referrer, userAgentHash, clientIpHash));
+            count++;
+        }
+
+        return count;
+    }
+
+    private static String readString(MappedByteBuffer buffer) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Click event of the journal
+     *
+     * @param timestamp     epoch millis of the redirect
+     * @param code          the redirected code
+     * @param referrer      the Referer header, truncated, or null
+     * @param userAgentHash keyed hash of the User-Agent header, 0 if absent
+     * @param clientIpHash  keyed hash of the client IP, 0 if absent
+     */
+    public record ClickRecord(long timestamp, String code, String referrer, long userAgentHash, long clientIpHash) {
+    }
+
+}
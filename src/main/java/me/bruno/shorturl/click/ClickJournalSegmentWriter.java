@@ -0,0 +1,127 @@
+package me.bruno.shorturl.click;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+/**
+ * Appends records to memory-mapped segment files
+ * Rolls to a new segment when the current one is full or older than the roll interval
+ * Not thread-safe, used by the journal writer thread only
+ */
+@Log4j2
+final class ClickJournalSegmentWriter implements Closeable {
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final long rollIntervalMillis;
+
+    private MappedByteBuffer segment;
+
+    private long segmentCreatedAt;
+
+    private int segmentIndex;
+
+    ClickJournalSegmentWriter(Path directory, int segmentSize, Duration rollInterval) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.rollIntervalMillis = rollInterval.toMillis();
+
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * Appends a record, rolling the segment if needed
+     *
+     * @return false if the record does not fit in an empty segment and was dropped
+     */
+    boolean append(long timestamp, String code, String referrer, long userAgentHash, long clientIpHash) throws IOException {
+        byte[] codeBytes = code.getBytes(StandardCharsets.UTF_8);
+        byte[] referrerBytes = referrer == null
+                ? new byte[0]
+                : truncate(referrer).getBytes(StandardCharsets.UTF_8);
+
+        int length = ClickJournalFormat.RECORD_FIXED_SIZE + codeBytes.length + referrerBytes.length;
+        int size = Integer.BYTES + length;
+
+        if (size > this.segmentSize - ClickJournalFormat.HEADER_SIZE - Integer.BYTES) {
+            return false;
+        }
+
+        // Keeps room for the end marker
+        if (this.segment == null || this.segment.remaining() < size + Integer.BYTES) {
+            roll();
+        }
+
+        this.segment.putInt(length);
+        this.segment.putLong(timestamp);
+        this.segment.putLong(userAgentHash);
+        this.segment.putLong(clientIpHash);
+        this.segment.putShort((short) codeBytes.length);
+        this.segment.put(codeBytes);
+        this.segment.putShort((short) referrerBytes.length);
+        this.segment.put(referrerBytes);
+        return true;
+    }
+
+    /**
+     * Rolls the segment if it is older than the roll interval
+     */
+    void rollIfExpired() throws IOException {
+        if (this.segment != null && System.currentTimeMillis() - this.segmentCreatedAt >= this.rollIntervalMillis) {
+            finishSegment();
+        }
+    }
+
+    @Override
+    public void close() {
+        finishSegment();
+    }
+
+    private void roll() throws IOException {
+        finishSegment();
+
+        long now = System.currentTimeMillis();
+        Path file = this.directory.resolve(String.format("%s%d-%04d%s",
+                ClickJournalFormat.FILE_PREFIX, now, this.segmentIndex++, ClickJournalFormat.FILE_SUFFIX));
+
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            this.segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, this.segmentSize);
+        }
+
+        this.segment.putInt(ClickJournalFormat.MAGIC);
+        this.segment.putInt(ClickJournalFormat.VERSION);
+        this.segmentCreatedAt = now;
+
+        log.debug("Rolled click journal to " + file);
+    }
+
+    private void finishSegment() {
+        if (this.segment == null) {
+            return;
+        }
+
+        // The rest of the file is zero filled, a zero length marks the end of the records
+        this.segment.force();
+        this.segment = null;
+    }
+
+    private static String truncate(String referrer) {
+        return referrer.length() > ClickJournalFormat.MAX_REFERRER_LENGTH
+                ? referrer.substring(0, ClickJournalFormat.MAX_REFERRER_LENGTH)
+                : referrer;
+    }
+
+}
@@ -1,18 +1,26 @@
 package me.bruno.shorturl.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.log4j.Log4j2;
 import me.bruno.shorturl.dto.APIAuthKeyDTO;
+import me.bruno.shorturl.dto.CursorPageDTO;
 import me.bruno.shorturl.entity.APIAuthKeyEntity;
+import me.bruno.shorturl.repository.KeysetCursor;
 import me.bruno.shorturl.service.APIAuthKeyService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
-import java.util.List;
 
 /**
  * CRUD API for APIAuthKeyEntity
@@ -22,14 +30,58 @@ import java.util.List;
 @RequestMapping("/api/v1/auth")
 public class APIAuthKeyController {
 
+    private static final int MAX_PAGE_LIMIT = 1000;
+
     @Autowired
     private APIAuthKeyService APIAuthKeyService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @GetMapping
-    public ResponseEntity<List<APIAuthKeyEntity>> list() {
-        List<APIAuthKeyEntity> all = APIAuthKeyService.getAll();
+    public ResponseEntity<CursorPageDTO<APIAuthKeyEntity>> list(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "100") int limit
+    ) {
+        if (limit < 1 || limit > MAX_PAGE_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_PAGE_LIMIT);
+        }
 
-        return ResponseEntity.ok(all);
+        KeysetCursor after = null;
+        if (StringUtils.hasText(cursor)) {
+            try {
+                after = KeysetCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid cursor");
+            }
+        }
+
+        CursorPageDTO<APIAuthKeyEntity> page = APIAuthKeyService.getPage(after, limit);
+
+        return ResponseEntity.ok(page);
+    }
+
+    /**
+     * Lists all keys as a JSON array written incrementally
+     */
+    @GetMapping("/stream")
+    public void stream(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.writeStartArray();
+
+            APIAuthKeyService.streamAll(apiAuthKeyEntity -> {
+                try {
+                    generator.writeObject(apiAuthKeyEntity);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            generator.writeEndArray();
+        }
     }
 
     @GetMapping("/{id}")
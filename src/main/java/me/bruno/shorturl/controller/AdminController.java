@@ -0,0 +1,49 @@
+package me.bruno.shorturl.controller;
+
+import lombok.extern.log4j.Log4j2;
+import me.bruno.shorturl.dto.PurgeResultDTO;
+import me.bruno.shorturl.service.ShortURLPurgeService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Maintenance API, runs jobs on demand
+ */
+@Log4j2
+@RestController
+@RequestMapping("/api/v1/admin")
+public class AdminController {
+
+    @Autowired
+    private ShortURLPurgeService shortURLPurgeService;
+
+    @PostMapping("/purge")
+    public ResponseEntity<PurgeResultDTO> purge() {
+        PurgeResultDTO progress = shortURLPurgeService.startPurge();
+
+        if (progress == null) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "purge already running");
+        }
+
+        log.info("Started purge of short urls deleted before " + progress.getDeletedBefore());
+        return ResponseEntity.accepted().body(progress);
+    }
+
+    @GetMapping("/purge")
+    public ResponseEntity<PurgeResultDTO> getPurge() {
+        PurgeResultDTO progress = shortURLPurgeService.getProgress();
+
+        if (progress == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "no purge since startup");
+        }
+
+        return ResponseEntity.ok(progress);
+    }
+
+}
@@ -1,9 +1,15 @@
 package me.bruno.shorturl.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.log4j.Log4j2;
+import me.bruno.shorturl.click.ClickCounter;
+import me.bruno.shorturl.click.ClickJournal;
 import me.bruno.shorturl.entity.ShortURLEntity;
+import me.bruno.shorturl.metrics.RedirectMetrics;
 import me.bruno.shorturl.service.ShortURLService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -24,8 +30,22 @@ public class RedirectController {
     @Autowired
     private ShortURLService shortURLService;
 
+    @Autowired
+    private ClickCounter clickCounter;
+
+    @Autowired
+    private ClickJournal clickJournal;
+
+    @Autowired
+    private RedirectMetrics redirectMetrics;
+
     @GetMapping("/{code}")
-    public RedirectView redirectByCode(@PathVariable("code") String code) {
+    public RedirectView redirectByCode(
+            @PathVariable("code") String code,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) {
+        long start = System.nanoTime();
         log.debug("Processing code: " + code);
 
         if (!StringUtils.hasText(code)) {
@@ -33,12 +53,25 @@ public class RedirectController {
         }
 
         ShortURLEntity shortURLEntity = shortURLService.getByCode(code);
-
-        if (shortURLEntity == null || shortURLEntity.getDeletedAt() != null) {
+        if (shortURLEntity == null) {
+            redirectMetrics.recordMvc(RedirectMetrics.Outcome.MISS, start);
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "code not found");
         }
 
-        return new RedirectView(shortURLEntity.getRedirectUrl());
+        clickCounter.increment(shortURLEntity.getCode());
+        clickJournal.record(
+                shortURLEntity.getCode(),
+                request.getHeader(HttpHeaders.REFERER),
+                request.getHeader(HttpHeaders.USER_AGENT),
+                request.getRemoteAddr()
+        );
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, RedirectHeaders.cacheControl(RedirectHeaders.maxAge(shortURLEntity)));
+
+        RedirectView redirectView = new RedirectView(shortURLEntity.getRedirectUrl());
+        redirectView.setStatusCode(HttpStatus.valueOf(RedirectHeaders.status(shortURLEntity).getCode()));
+        redirectMetrics.recordMvc(RedirectMetrics.Outcome.HIT, start);
+        return redirectView;
     }
 
 }
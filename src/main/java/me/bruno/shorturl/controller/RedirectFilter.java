@@ -0,0 +1,110 @@
+package me.bruno.shorturl.controller;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import me.bruno.shorturl.click.ClickCounter;
+import me.bruno.shorturl.click.ClickJournal;
+import me.bruno.shorturl.entity.ShortURLEntity;
+import me.bruno.shorturl.metrics.RedirectMetrics;
+import me.bruno.shorturl.service.ShortURLService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Fast path of {@link RedirectController}, runs before the security filter chain
+ * Valid codes are answered straight from the cache without handler mapping or view rendering.
+ * Anything else (misses, deleted codes, other paths) goes through the chain as before, and is measured by the controller.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 1)
+public class RedirectFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private ShortURLService shortURLService;
+
+    @Autowired
+    private ClickCounter clickCounter;
+
+    @Autowired
+    private ClickJournal clickJournal;
+
+    @Autowired
+    private RedirectMetrics redirectMetrics;
+
+    // Configuration
+    @Value("${short-url.redirect.fast-path.enabled:true}")
+    private boolean enabled;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        String code = extractCode(request);
+        ShortURLEntity shortURLEntity = code == null ? null : shortURLService.getByCode(code);
+
+        if (shortURLEntity == null || shortURLEntity.getDeletedAt() != null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        clickCounter.increment(shortURLEntity.getCode());
+        clickJournal.record(
+                shortURLEntity.getCode(),
+                request.getHeader(HttpHeaders.REFERER),
+                request.getHeader(HttpHeaders.USER_AGENT),
+                request.getRemoteAddr()
+        );
+
+        RedirectHeaders.write(response, shortURLEntity);
+        redirectMetrics.recordFastPath(RedirectMetrics.Outcome.HIT, start);
+    }
+
+    /**
+     * Gets the code of a GET /{code} request
+     * Encoded paths are left to Spring MVC, which decodes them
+     *
+     * @param request the request
+     * @return the code or null if the request is not a plain GET /{code}
+     */
+    private String extractCode(HttpServletRequest request) {
+        return enabled ? codeOf(request) : null;
+    }
+
+    /**
+     * Gets the code of a GET /{code} request, whether the fast path is enabled or not
+     *
+     * @param request the request
+     * @return the code or null if the request is not a plain GET /{code}
+     */
+    static String codeOf(HttpServletRequest request) {
+        if (!"GET".equals(request.getMethod())) {
+            return null;
+        }
+
+        String uri = request.getRequestURI();
+        int start = request.getContextPath().length() + 1;
+
+        if (uri.length() <= start || uri.charAt(start - 1) != '/') {
+            return null;
+        }
+
+        for (int i = start; i < uri.length(); i++) {
+            char c = uri.charAt(i);
+            if (c == '/' || c == '%' || c == ';') {
+                return null;
+            }
+        }
+
+        return uri.substring(start);
+    }
+
+}
@@ -0,0 +1,93 @@
+package me.bruno.shorturl.controller;
+
+import jakarta.servlet.http.HttpServletResponse;
+import me.bruno.shorturl.entity.RedirectStatus;
+import me.bruno.shorturl.entity.ShortURLEntity;
+import org.springframework.http.HttpHeaders;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes the status and headers of a redirect
+ * Cache-Control values are built once per max age, links share a few distinct values
+ */
+final class RedirectHeaders {
+
+    // Same value Spring Security writes, redirects without max age must not be cached
+    static final String NO_CACHE = "no-cache, no-store, max-age=0, must-revalidate";
+
+    private static final int MAX_CACHED_VALUES = 1024;
+
+    private static final ConcurrentHashMap<Integer, String> CACHE_CONTROL_VALUES = new ConcurrentHashMap<>();
+
+    private RedirectHeaders() {
+    }
+
+    /**
+     * Writes a redirect to the ShortURL destination
+     *
+     * @param response       the response
+     * @param shortURLEntity the valid ShortURL
+     */
+    static void write(HttpServletResponse response, ShortURLEntity shortURLEntity) {
+        response.setStatus(status(shortURLEntity).getCode());
+        response.setHeader(HttpHeaders.LOCATION, shortURLEntity.getRedirectUrl());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl(maxAge(shortURLEntity)));
+    }
+
+    /**
+     * Gets the max age of the ShortURL redirect, no longer than until its expiration date
+     *
+     * @param shortURLEntity the ShortURL
+     * @return the max age in seconds, null if not cacheable
+     */
+    static Integer maxAge(ShortURLEntity shortURLEntity) {
+        Integer maxAge = shortURLEntity.getCacheMaxAge();
+        OffsetDateTime expiresAt = shortURLEntity.getExpiresAt();
+
+        if (maxAge == null || expiresAt == null) {
+            return maxAge;
+        }
+
+        long untilExpiration = Duration.between(OffsetDateTime.now(), expiresAt).getSeconds();
+        return (int) Math.max(0, Math.min(maxAge, untilExpiration));
+    }
+
+    /**
+     * Gets the redirect status of the ShortURL
+     *
+     * @param shortURLEntity the ShortURL
+     * @return the redirect status, 302 if not set
+     */
+    static RedirectStatus status(ShortURLEntity shortURLEntity) {
+        RedirectStatus status = shortURLEntity.getRedirectStatus();
+        return status == null ? RedirectStatus.FOUND : status;
+    }
+
+    /**
+     * Gets the Cache-Control value of a max age
+     *
+     * @param maxAge the max age in seconds, null if not cacheable
+     * @return the Cache-Control value
+     */
+    static String cacheControl(Integer maxAge) {
+        if (maxAge == null || maxAge <= 0) {
+            return NO_CACHE;
+        }
+
+        String value = CACHE_CONTROL_VALUES.get(maxAge);
+        if (value != null) {
+            return value;
+        }
+
+        value = "public, max-age=" + maxAge;
+        if (CACHE_CONTROL_VALUES.size() < MAX_CACHED_VALUES) {
+            CACHE_CONTROL_VALUES.putIfAbsent(maxAge, value);
+        }
+
+        return value;
+    }
+
+}
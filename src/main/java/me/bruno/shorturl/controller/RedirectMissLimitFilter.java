@@ -0,0 +1,89 @@
+package me.bruno.shorturl.controller;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import me.bruno.shorturl.security.ClientMissLimiter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Blocks the clients walking codes, runs before {@link RedirectFilter}
+ * Redirects answered with 404 are counted as misses of the client address, clients over the miss limit
+ * get 429 without a code lookup until the block expires. Hits are not counted.
+ * Behind a proxy, set server.forward-headers-strategy so the client address is the original one.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 2)
+public class RedirectMissLimitFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Configuration
+    @Value("${short-url.redirect.miss-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${short-url.redirect.miss-limit.max-misses:100}")
+    private int maxMisses;
+
+    @Value("${short-url.redirect.miss-limit.window:PT1M}")
+    private Duration window;
+
+    @Value("${short-url.redirect.miss-limit.block-duration:PT5M}")
+    private Duration blockDuration;
+
+    @Value("${short-url.redirect.miss-limit.max-clients:100000}")
+    private int maxClients;
+
+    private ClientMissLimiter limiter;
+
+    private Counter blocked;
+
+    @PostConstruct
+    public void init() {
+        this.limiter = new ClientMissLimiter(this.maxMisses, this.window.toNanos(), this.blockDuration.toNanos(), this.maxClients);
+        this.blocked = Counter.builder("shorturl.redirects.blocked")
+                .description("Redirects rejected because the client went over the miss limit")
+                .register(this.meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!this.enabled || RedirectFilter.codeOf(request) == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String client = request.getRemoteAddr();
+        long blockedFor = this.limiter.blockedFor(client, System.nanoTime());
+
+        if (blockedFor > 0) {
+            this.blocked.increment();
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (Duration.ofNanos(blockedFor).toMillis() + 999) / 1000)));
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+
+        if (response.getStatus() == HttpStatus.NOT_FOUND.value()) {
+            this.limiter.recordMiss(client, System.nanoTime());
+        }
+    }
+
+}
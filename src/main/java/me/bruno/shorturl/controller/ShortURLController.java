@@ -1,17 +1,41 @@
 package me.bruno.shorturl.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.log4j.Log4j2;
+import me.bruno.shorturl.cache.CodeCacheStats;
+import me.bruno.shorturl.dto.CursorPageDTO;
+import me.bruno.shorturl.dto.ShortURLBatchResultDTO;
 import me.bruno.shorturl.dto.ShortURLDTO;
+import me.bruno.shorturl.entity.APIAuthKeyEntity;
 import me.bruno.shorturl.entity.ShortURLEntity;
+import me.bruno.shorturl.repository.KeysetCursor;
+import me.bruno.shorturl.repository.ShortURLFilter;
+import me.bruno.shorturl.repository.ShortURLStatus;
+import me.bruno.shorturl.security.APIKeyLimitFilter;
+import me.bruno.shorturl.security.APIKeyLimiter;
 import me.bruno.shorturl.service.ShortURLService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.net.URI;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -23,14 +47,69 @@ import java.util.UUID;
 @RequestMapping("/api/v1/shorturl")
 public class ShortURLController {
 
+    private static final int MAX_PAGE_LIMIT = 1000;
+
     @Autowired
     private ShortURLService shortURLService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private APIKeyLimiter apiKeyLimiter;
+
+    // Configuration
+    @Value("${short-url.batch.max-size:100000}")
+    private int batchMaxSize;
+
+    @Value("${short-url.batch.chunk-size:500}")
+    private int batchChunkSize;
+
     @GetMapping
-    public ResponseEntity<List<ShortURLEntity>> list() {
-        List<ShortURLEntity> all = shortURLService.getAll();
+    public ResponseEntity<CursorPageDTO<ShortURLEntity>> list(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "100") int limit,
+            @RequestParam(value = "status", defaultValue = "ALL") ShortURLStatus status,
+            @RequestParam(value = "createdFrom", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime createdFrom,
+            @RequestParam(value = "createdTo", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime createdTo
+    ) {
+        if (limit < 1 || limit > MAX_PAGE_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_PAGE_LIMIT);
+        }
+
+        ShortURLFilter filter = new ShortURLFilter(status, createdFrom, createdTo);
+        CursorPageDTO<ShortURLEntity> page = shortURLService.getPage(filter, decodeCursor(cursor), limit);
+
+        return ResponseEntity.ok(page);
+    }
+
+    /**
+     * Lists all ShortURLs as a JSON array written incrementally
+     * Memory is bounded, use it to export large lists
+     */
+    @GetMapping("/stream")
+    public void stream(
+            @RequestParam(value = "status", defaultValue = "ALL") ShortURLStatus status,
+            @RequestParam(value = "createdFrom", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime createdFrom,
+            @RequestParam(value = "createdTo", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime createdTo,
+            HttpServletResponse response
+    ) throws IOException {
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.writeStartArray();
+
+            shortURLService.streamAll(new ShortURLFilter(status, createdFrom, createdTo), shortURLEntity -> {
+                try {
+                    generator.writeObject(shortURLEntity);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
 
-        return ResponseEntity.ok(all);
+            generator.writeEndArray();
+        }
     }
 
     @GetMapping("/{id}")
@@ -49,7 +128,7 @@ public class ShortURLController {
     @GetMapping("/code/{code}")
     public ResponseEntity<ShortURLEntity> getByCode(@PathVariable("code") String code) {
 
-        ShortURLEntity shortURLEntity = shortURLService.getByCode(code);
+        ShortURLEntity shortURLEntity = shortURLService.getDetailsByCode(code);
 
         if (shortURLEntity == null) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "code not found");
@@ -59,19 +138,164 @@ public class ShortURLController {
         return ResponseEntity.ok(shortURLEntity);
     }
 
+    @GetMapping("/cache/stats")
+    public ResponseEntity<CodeCacheStats> getCacheStats() {
+        return ResponseEntity.ok(shortURLService.getCacheStats());
+    }
+
     @PostMapping
-    public ResponseEntity<ShortURLEntity> create(@RequestBody @Validated ShortURLDTO shortURLDto) {
+    public ResponseEntity<ShortURLEntity> create(
+            @RequestBody @Validated ShortURLDTO shortURLDto,
+            @RequestParam(value = "dedupe", defaultValue = "false") boolean dedupe,
+            @RequestAttribute(value = APIKeyLimitFilter.KEY_ATTRIBUTE, required = false) APIAuthKeyEntity apiKey
+    ) {
         if (shortURLDto.getId() != null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "id must be null");
         }
 
-        ShortURLEntity shortURLEntity = shortURLService.save(shortURLDto);
+        // Idempotent create, the existing short url with the same destination is returned and nothing is created
+        ShortURLEntity shortURLEntity;
+        if (dedupe) {
+            ShortURLService.ReuseResult result = shortURLService.saveOrReuse(shortURLDto);
+            if (result.reused()) {
+                log.info("Reused short url: " + result.shortURL());
+                return ResponseEntity.ok(result.shortURL());
+            }
+
+            shortURLEntity = result.shortURL();
+        } else {
+            shortURLEntity = shortURLService.save(shortURLDto);
+        }
+
+        recordCreates(apiKey, 1);
 
         log.info("Created short url: " + shortURLEntity);
         return ResponseEntity.created(URI.create("/api/v1/shorturl/" + shortURLEntity.getId()))
                 .body(shortURLEntity);
     }
 
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<ShortURLBatchResultDTO>> createBatch(
+            @RequestBody List<ShortURLDTO> shortURLDtos,
+            @RequestAttribute(value = APIKeyLimitFilter.KEY_ATTRIBUTE, required = false) APIAuthKeyEntity apiKey
+    ) {
+        if (shortURLDtos.size() > batchMaxSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "batch is too large, use NDJSON");
+        }
+
+        if (apiKey != null && shortURLDtos.size() > apiKeyLimiter.remainingCreates(apiKey)) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "batch is larger than the remaining daily create quota");
+        }
+
+        List<ShortURLBatchResultDTO> results = shortURLService.saveAll(shortURLDtos, 0);
+        recordCreates(apiKey, results.stream().filter(ShortURLBatchResultDTO::isCreated).count());
+
+        log.info("Created short urls in batch: " + results.stream().filter(ShortURLBatchResultDTO::isCreated).count()
+                + "/" + results.size());
+        return ResponseEntity.ok(results);
+    }
+
+    /**
+     * Batch create reading and writing NDJSON, one chunk at a time
+     * Memory is bounded by the chunk size, so there is no limit of items.
+     * The daily create quota is checked before the request only, a stream may go over it.
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public void createBatchStream(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            @RequestAttribute(value = APIKeyLimitFilter.KEY_ATTRIBUTE, required = false) APIAuthKeyEntity apiKey
+    ) throws IOException {
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+
+        BufferedReader reader = request.getReader();
+        Writer writer = response.getWriter();
+
+        List<ShortURLDTO> chunk = new ArrayList<>(batchChunkSize);
+        // Parse error of each item of the chunk, null if the line was parsed
+        List<String> parseErrors = new ArrayList<>(batchChunkSize);
+        int index = 0;
+        int created = 0;
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            if (!StringUtils.hasText(line)) {
+                continue;
+            }
+
+            try {
+                chunk.add(objectMapper.readValue(line, ShortURLDTO.class));
+                parseErrors.add(null);
+            } catch (JsonProcessingException e) {
+                chunk.add(null); // Skipped by saveAll, the result is replaced by the parse error
+                parseErrors.add("invalid JSON: " + e.getOriginalMessage());
+            }
+
+            if (chunk.size() >= batchChunkSize) {
+                int chunkCreated = writeBatchResults(writer, saveBatchChunk(chunk, parseErrors, index));
+                recordCreates(apiKey, chunkCreated);
+                created += chunkCreated;
+                index += chunk.size();
+                chunk.clear();
+                parseErrors.clear();
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            int chunkCreated = writeBatchResults(writer, saveBatchChunk(chunk, parseErrors, index));
+            recordCreates(apiKey, chunkCreated);
+            created += chunkCreated;
+            index += chunk.size();
+        }
+
+        writer.flush();
+        log.info("Created short urls in NDJSON batch: " + created + "/" + index);
+    }
+
+    private List<ShortURLBatchResultDTO> saveBatchChunk(List<ShortURLDTO> chunk, List<String> parseErrors, int firstIndex) {
+        List<ShortURLBatchResultDTO> results = new ArrayList<>(shortURLService.saveAll(chunk, firstIndex));
+
+        for (int i = 0; i < parseErrors.size(); i++) {
+            if (parseErrors.get(i) != null) {
+                results.set(i, ShortURLBatchResultDTO.failed(firstIndex + i, parseErrors.get(i)));
+            }
+        }
+
+        return results;
+    }
+
+    private void recordCreates(APIAuthKeyEntity apiKey, long creates) {
+        if (apiKey != null) {
+            apiKeyLimiter.recordCreates(apiKey, creates);
+        }
+    }
+
+    private KeysetCursor decodeCursor(String cursor) {
+        if (!StringUtils.hasText(cursor)) {
+            return null;
+        }
+
+        try {
+            return KeysetCursor.decodeUUID(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid cursor");
+        }
+    }
+
+    private int writeBatchResults(Writer writer, List<ShortURLBatchResultDTO> results) throws IOException {
+        int created = 0;
+
+        for (ShortURLBatchResultDTO result : results) {
+            writer.write(objectMapper.writeValueAsString(result));
+            writer.write('\n');
+            created += result.isCreated() ? 1 : 0;
+        }
+
+        writer.flush();
+        return created;
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<ShortURLEntity> updateById(
             @PathVariable("id") UUID id,
@@ -3,6 +3,7 @@ package me.bruno.shorturl.dto;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -30,4 +31,22 @@ public class APIAuthKeyDTO {
     @Length(min = 1, max = 255)
     private String name;
 
+    /**
+     * Sustained requests per second, unlimited if null
+     */
+    @Positive
+    private Double rateLimit;
+
+    /**
+     * Requests allowed at once, 1 if null (no burst above the sustained rate)
+     */
+    @Positive
+    private Integer rateBurst;
+
+    /**
+     * ShortURLs created per day (UTC), unlimited if null
+     */
+    @Positive
+    private Long dailyCreateQuota;
+
 }
\ No newline at end of file
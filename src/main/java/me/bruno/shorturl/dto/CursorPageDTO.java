@@ -0,0 +1,25 @@
+package me.bruno.shorturl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Page of a keyset paginated list
+ */
+@Data
+@AllArgsConstructor
+public class CursorPageDTO<T> {
+
+    /**
+     * Items of the page
+     */
+    private List<T> items;
+
+    /**
+     * Cursor of the next page, null if this is the last page
+     */
+    private String nextCursor;
+
+}
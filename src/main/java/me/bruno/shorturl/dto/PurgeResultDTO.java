@@ -0,0 +1,59 @@
+package me.bruno.shorturl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Result of a purge of deleted ShortURLs
+ */
+@Data
+@AllArgsConstructor
+public class PurgeResultDTO {
+
+    /**
+     * ShortURLs deleted before this date were purged
+     */
+    private OffsetDateTime deletedBefore;
+
+    /**
+     * Date when the purge started
+     */
+    private OffsetDateTime startedAt;
+
+    /**
+     * Number of purged ShortURLs
+     */
+    private long purged;
+
+    /**
+     * Number of batches, one transaction each
+     */
+    private int batches;
+
+    /**
+     * Duration of the purge in milliseconds, pauses included
+     */
+    private long durationMillis;
+
+    /**
+     * True while the purge is running
+     */
+    private boolean running;
+
+    /**
+     * True if the purge finished with every ShortURL purged, false while running or if it stopped on error or interrupt
+     */
+    private boolean completed;
+
+    /**
+     * Gets the throughput of the purge
+     *
+     * @return the purged ShortURLs per second
+     */
+    public double getPurgedPerSecond() {
+        return durationMillis == 0 ? purged : purged * 1000.0 / durationMillis;
+    }
+
+}
@@ -0,0 +1,52 @@
+package me.bruno.shorturl.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.UUID;
+
+/**
+ * Result of one item of a batch create
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ShortURLBatchResultDTO {
+
+    /**
+     * Position of the item in the request
+     */
+    private int index;
+
+    /**
+     * True if the item was created
+     */
+    private boolean created;
+
+    /**
+     * Id of the created ShortURL
+     */
+    private UUID id;
+
+    /**
+     * Code of the created ShortURL
+     */
+    private String code;
+
+    /**
+     * Reason why the item was not created
+     */
+    private String error;
+
+    public static ShortURLBatchResultDTO created(int index, UUID id, String code) {
+        return new ShortURLBatchResultDTO(index, true, id, code, null);
+    }
+
+    public static ShortURLBatchResultDTO failed(int index, String error) {
+        return new ShortURLBatchResultDTO(index, false, null, null, error);
+    }
+
+}
@@ -1,14 +1,18 @@
 package me.bruno.shorturl.dto;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import me.bruno.shorturl.entity.RedirectStatus;
 import org.hibernate.validator.constraints.URL;
 
+import java.time.OffsetDateTime;
 import java.util.UUID;
 
 /**
@@ -45,4 +49,35 @@ public class ShortURLDTO {
      */
     private String note;
 
+    /**
+     * HTTP status of the redirect (301, 302, 307 or 308), 302 if null
+     */
+    private RedirectStatus redirectStatus;
+
+    /**
+     * Max age in seconds clients may cache the redirect, not cacheable if null
+     */
+    @PositiveOrZero
+    private Integer cacheMaxAge;
+
+    /**
+     * Date from which the URL redirects, from its creation if null
+     */
+    private OffsetDateTime activeFrom;
+
+    /**
+     * Date from which the URL no longer redirects, never expires if null
+     */
+    private OffsetDateTime expiresAt;
+
+    /**
+     * Checks that the URL expires after it becomes active
+     *
+     * @return true if the dates are consistent
+     */
+    @AssertTrue(message = "must be after activeFrom")
+    boolean isExpiresAtAfterActiveFrom() {
+        return activeFrom == null || expiresAt == null || expiresAt.isAfter(activeFrom);
+    }
+
 }
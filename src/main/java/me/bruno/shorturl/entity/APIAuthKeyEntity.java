@@ -1,9 +1,7 @@
 package me.bruno.shorturl.entity;
 
-import jakarta.persistence.Column;
-import jakarta.persistence.Entity;
-import jakarta.persistence.Id;
-import jakarta.persistence.Table;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import jakarta.persistence.*;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
@@ -24,11 +22,11 @@ import java.util.Objects;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "api_key")
+@Table(name = "api_key", indexes = @Index(name = "index_created_at_key", columnList = "created_at, access_key"))
 public class APIAuthKeyEntity {
 
     /**
-     * Key to be used as authentication
+     * SHA-256 hex digest of the key, the key itself is not stored
      */
     @Id
     @NotNull
@@ -44,6 +42,32 @@ public class APIAuthKeyEntity {
     @Column(name = "name", nullable = false)
     private String name;
 
+    /**
+     * Sustained requests per second, unlimited if null
+     */
+    @Column(name = "rate_limit")
+    private Double rateLimit;
+
+    /**
+     * Requests allowed at once, 1 if null (no burst above the sustained rate)
+     */
+    @Column(name = "rate_burst")
+    private Integer rateBurst;
+
+    /**
+     * ShortURLs created per day (UTC), unlimited if null
+     */
+    @Column(name = "daily_create_quota")
+    private Long dailyCreateQuota;
+
+    /**
+     * Key to be used as authentication, only set in the response of the creation
+     */
+    @Transient
+    @ToString.Exclude
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String secret;
+
     /**
      * Timestamps
      */
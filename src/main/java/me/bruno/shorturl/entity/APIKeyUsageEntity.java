@@ -0,0 +1,66 @@
+package me.bruno.shorturl.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.Hibernate;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Entity to store the daily usage of API keys, the sum of every node
+ * Nodes add their counts periodically and read back the total to enforce the quotas
+ */
+@Entity
+@Getter
+@Setter
+@ToString
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "api_key_usage", indexes = @Index(name = "index_api_key_usage_day", columnList = "usage_day"))
+public class APIKeyUsageEntity {
+
+    /**
+     * Digest of the key and the day, {@code key:day}
+     */
+    @Id
+    @Column(name = "id", nullable = false, length = 80)
+    private String id;
+
+    /**
+     * Digest of the key
+     */
+    @Column(name = "access_key", nullable = false)
+    private String key;
+
+    /**
+     * Day (UTC)
+     */
+    @Column(name = "usage_day", nullable = false)
+    private LocalDate day;
+
+    /**
+     * ShortURLs created
+     */
+    @Column(name = "creates", nullable = false)
+    private long creates;
+
+    public static String id(String key, LocalDate day) {
+        return key + ":" + day;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) return false;
+        APIKeyUsageEntity usage = (APIKeyUsageEntity) o;
+        return Objects.equals(id, usage.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+}
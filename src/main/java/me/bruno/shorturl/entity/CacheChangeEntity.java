@@ -0,0 +1,87 @@
+package me.bruno.shorturl.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.Hibernate;
+
+import java.time.OffsetDateTime;
+import java.util.Objects;
+
+/**
+ * Entity to store the change log of cached entries
+ * Written in the same transaction as the change, read by every node to invalidate its caches
+ */
+@Entity
+@Getter
+@Setter
+@ToString
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "cache_change", indexes = @Index(name = "index_cache_change_created_at", columnList = "created_at"))
+public class CacheChangeEntity {
+
+    /**
+     * Increasing id, nodes tail the log by id
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    /**
+     * Cache of the changed entry
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "cache_name", nullable = false, length = 32)
+    private CacheName cacheName;
+
+    /**
+     * Key of the changed entry, the code or the API key
+     */
+    @Column(name = "entry_key", nullable = false)
+    private String entryKey;
+
+    /**
+     * Id of the node that made the change, it skips its own changes
+     */
+    @Column(name = "node", nullable = false, length = 36)
+    private String node;
+
+    /**
+     * Date of the change
+     */
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) return false;
+        CacheChangeEntity change = (CacheChangeEntity) o;
+        return id != null && Objects.equals(id, change.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    /**
+     * Caches kept in sync between nodes
+     */
+    public enum CacheName {
+
+        /**
+         * Codes of ShortURLs
+         */
+        SHORT_URL_CODE,
+
+        /**
+         * API keys
+         */
+        API_KEY
+
+    }
+
+}
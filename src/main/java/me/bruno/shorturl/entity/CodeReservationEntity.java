@@ -0,0 +1,57 @@
+package me.bruno.shorturl.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.Hibernate;
+
+import java.time.OffsetDateTime;
+import java.util.Objects;
+
+/**
+ * Entity to store codes reserved by a node for its code pool
+ * The primary key makes a code reservable by a single node
+ */
+@Entity
+@Getter
+@Setter
+@ToString
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "code_reservation", indexes = @Index(name = "index_reservation_node", columnList = "node"))
+public class CodeReservationEntity {
+
+    /**
+     * Reserved code
+     */
+    @Id
+    @Column(name = "code", nullable = false, length = 144)
+    private String code;
+
+    /**
+     * Id of the node that reserved the code
+     */
+    @Column(name = "node", nullable = false, length = 36)
+    private String node;
+
+    /**
+     * Date when the code was reserved
+     * Reservations older than the TTL are released
+     */
+    @Column(name = "reserved_at", nullable = false)
+    private OffsetDateTime reservedAt;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) return false;
+        CodeReservationEntity reservation = (CodeReservationEntity) o;
+        return Objects.equals(code, reservation.code);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(code);
+    }
+
+}
@@ -0,0 +1,52 @@
+package me.bruno.shorturl.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.*;
+import org.hibernate.Hibernate;
+
+import java.util.Objects;
+
+/**
+ * Entity to store the next free value of a code sequence
+ * Nodes lease blocks of values from it (hi/lo)
+ */
+@Entity
+@Getter
+@Setter
+@ToString
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "code_sequence")
+public class CodeSequenceEntity {
+
+    /**
+     * Name of the sequence
+     */
+    @Id
+    @Column(name = "name", nullable = false, length = 64)
+    private String name;
+
+    /**
+     * First value of the next block to be leased
+     */
+    @Column(name = "next_value", nullable = false)
+    private long nextValue;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) return false;
+        CodeSequenceEntity sequence = (CodeSequenceEntity) o;
+        return Objects.equals(name, sequence.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name);
+    }
+
+}
@@ -0,0 +1,53 @@
+package me.bruno.shorturl.entity;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import lombok.Getter;
+
+/**
+ * HTTP status of a redirect
+ * Serialized as the status code (301, 302, 307 or 308)
+ */
+@Getter
+public enum RedirectStatus {
+
+    MOVED_PERMANENTLY(301, true),
+    FOUND(302, false),
+    TEMPORARY_REDIRECT(307, false),
+    PERMANENT_REDIRECT(308, true);
+
+    /**
+     * HTTP status code
+     */
+    @JsonValue
+    private final int code;
+
+    /**
+     * Permanent redirects are cached by browsers even without caching headers
+     */
+    private final boolean permanent;
+
+    RedirectStatus(int code, boolean permanent) {
+        this.code = code;
+        this.permanent = permanent;
+    }
+
+    /**
+     * Gets the RedirectStatus of the status code
+     *
+     * @param code the status code
+     * @return the RedirectStatus
+     * @throws IllegalArgumentException if the code is not a supported redirect status
+     */
+    @JsonCreator
+    public static RedirectStatus fromCode(int code) {
+        for (RedirectStatus status : values()) {
+            if (status.code == code) {
+                return status;
+            }
+        }
+
+        throw new IllegalArgumentException("redirect status must be 301, 302, 307 or 308");
+    }
+
+}
@@ -0,0 +1,22 @@
+package me.bruno.shorturl.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores RedirectStatus as its status code
+ */
+@Converter(autoApply = true)
+public class RedirectStatusConverter implements AttributeConverter<RedirectStatus, Integer> {
+
+    @Override
+    public Integer convertToDatabaseColumn(RedirectStatus status) {
+        return status == null ? null : status.getCode();
+    }
+
+    @Override
+    public RedirectStatus convertToEntityAttribute(Integer code) {
+        return code == null ? null : RedirectStatus.fromCode(code);
+    }
+
+}
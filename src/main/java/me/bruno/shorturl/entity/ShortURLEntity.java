@@ -1,11 +1,15 @@
 package me.bruno.shorturl.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
+import jakarta.validation.constraints.PositiveOrZero;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import lombok.*;
 import org.hibernate.Hibernate;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.hibernate.validator.constraints.URL;
@@ -21,7 +25,12 @@ import java.util.UUID;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "short_url", indexes = @Index(name = "index_code", columnList = "code"))
+@Table(name = "short_url", indexes = {
+        @Index(name = "index_code", columnList = "code"),
+        @Index(name = "index_created_at_id", columnList = "created_at, id"),
+        @Index(name = "index_deleted_at_expires_at", columnList = "deleted_at, expires_at"),
+        @Index(name = "index_url_hash", columnList = "url_hash")
+}, uniqueConstraints = @UniqueConstraint(name = "unique_active_code", columnNames = "active_code"))
 public class ShortURLEntity {
 
     /**
@@ -56,6 +65,43 @@ public class ShortURLEntity {
     @Column(name = "note")
     private String note;
 
+    /**
+     * HTTP status of the redirect, 302 by default
+     */
+    @ColumnDefault("302")
+    @Column(name = "redirect_status", nullable = false)
+    private RedirectStatus redirectStatus;
+
+    /**
+     * Max age in seconds clients and intermediaries may cache the redirect
+     * If null, the redirect is not cacheable
+     */
+    @PositiveOrZero
+    @Column(name = "cache_max_age")
+    private Integer cacheMaxAge;
+
+    /**
+     * Date from which the URL redirects, the code is reserved before it
+     * If null, the URL redirects from its creation
+     */
+    @Column(name = "active_from")
+    private OffsetDateTime activeFrom;
+
+    /**
+     * Date from which the URL no longer redirects, it is deleted shortly after
+     * If null, the URL does not expire
+     */
+    @Column(name = "expires_at")
+    private OffsetDateTime expiresAt;
+
+    /**
+     * Number of redirects
+     * Written only by the click counter flush, never by the entity
+     */
+    @ColumnDefault("0")
+    @Column(name = "clicks", nullable = false, insertable = false, updatable = false)
+    private long clicks;
+
     /**
      * Timestamps
      */
@@ -74,6 +120,57 @@ public class ShortURLEntity {
     @Column(name = "deleted_at")
     private OffsetDateTime deletedAt;
 
+    /**
+     * Code of the URL while it is not deleted, null once deleted
+     * Unique, the database rejects two valid URLs with the same code. Set on persist and update.
+     */
+    @JsonIgnore
+    @ToString.Exclude
+    @Column(name = "active_code", length = 144)
+    private String activeCode;
+
+    /**
+     * Hash of the normalized redirect URL, see {@link URLNormalizer}
+     * Indexed to find the URLs with the same destination, the redirect URL itself is not. Set on persist and update.
+     */
+    @JsonIgnore
+    @ToString.Exclude
+    @Column(name = "url_hash")
+    private Long urlHash;
+
+    /**
+     * Checks if clients or intermediaries may have cached the redirect
+     * Deletes and updates of these links may not be seen until the cache expires
+     *
+     * @return true if the redirect is permanent or has a cache max age
+     */
+    @JsonProperty(value = "cacheableDownstream", access = JsonProperty.Access.READ_ONLY)
+    public boolean isCacheableDownstream() {
+        return (redirectStatus != null && redirectStatus.isPermanent()) || (cacheMaxAge != null && cacheMaxAge > 0);
+    }
+
+    /**
+     * Checks if the URL redirects at a date, within its activation and expiration dates
+     * Deleted URLs are not checked
+     *
+     * @param now the date
+     * @return true if the URL is active at the date
+     */
+    public boolean isActiveAt(OffsetDateTime now) {
+        return (activeFrom == null || !activeFrom.isAfter(now)) && (expiresAt == null || expiresAt.isAfter(now));
+    }
+
+    @PrePersist
+    @PreUpdate
+    void applyDefaults() {
+        if (redirectStatus == null) {
+            redirectStatus = RedirectStatus.FOUND;
+        }
+
+        activeCode = deletedAt == null ? code : null;
+        urlHash = redirectUrl == null ? null : URLNormalizer.hash(redirectUrl);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
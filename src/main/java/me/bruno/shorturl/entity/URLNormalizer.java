@@ -0,0 +1,74 @@
+package me.bruno.shorturl.entity;
+
+import com.google.common.hash.Hashing;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Normalizes redirect URLs, so the same destination written differently is found as a duplicate
+ * Only changes that keep the destination are made: surrounding spaces, scheme and host case,
+ * default port and empty path. The query and fragment are kept as is.
+ */
+public final class URLNormalizer {
+
+    private URLNormalizer() {
+    }
+
+    /**
+     * Normalizes a URL
+     *
+     * @param url the URL
+     * @return the normalized URL, the trimmed URL if it is not a hierarchical URL with a host
+     */
+    public static String normalize(String url) {
+        String trimmed = url.trim();
+
+        try {
+            URI uri = new URI(trimmed);
+            if (uri.isOpaque() || uri.getScheme() == null || uri.getHost() == null) {
+                return trimmed;
+            }
+
+            String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+            int port = uri.getPort();
+            if (("http".equals(scheme) && port == 80) || ("https".equals(scheme) && port == 443)) {
+                port = -1;
+            }
+
+            StringBuilder normalized = new StringBuilder(trimmed.length()).append(scheme).append("://");
+            if (uri.getRawUserInfo() != null) {
+                normalized.append(uri.getRawUserInfo()).append('@');
+            }
+            normalized.append(uri.getHost().toLowerCase(Locale.ROOT));
+            if (port != -1) {
+                normalized.append(':').append(port);
+            }
+            normalized.append(uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath());
+            if (uri.getRawQuery() != null) {
+                normalized.append('?').append(uri.getRawQuery());
+            }
+            if (uri.getRawFragment() != null) {
+                normalized.append('#').append(uri.getRawFragment());
+            }
+
+            return normalized.toString();
+        } catch (URISyntaxException e) {
+            return trimmed;
+        }
+    }
+
+    /**
+     * Hashes the normalized URL to a fixed width value, indexed instead of the URL
+     * Different URLs may have the same hash, the URLs must be compared
+     *
+     * @param url the URL
+     * @return the hash of the normalized URL
+     */
+    public static long hash(String url) {
+        return Hashing.murmur3_128().hashString(normalize(url), StandardCharsets.UTF_8).asLong();
+    }
+
+}
@@ -0,0 +1,43 @@
+package me.bruno.shorturl.generator;
+
+import me.bruno.shorturl.entity.CodeSequenceEntity;
+import me.bruno.shorturl.repository.CodeSequenceRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Leases blocks of sequence values from the database
+ * The sequence row is locked while leasing, so blocks never overlap across nodes
+ */
+@Service
+public class CodeBlockAllocator {
+
+    @Autowired
+    private CodeSequenceRepository codeSequenceRepository;
+
+    /**
+     * Leases a block of values, in its own transaction
+     * Creates the sequence if it does not exist
+     *
+     * @param name the name of the sequence
+     * @param size the number of values to lease
+     * @return the first value of the block, the block is [first, first + size)
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public long leaseBlock(String name, int size) {
+        CodeSequenceEntity sequence = this.codeSequenceRepository.findForUpdate(name)
+                .orElseGet(() -> CodeSequenceEntity.builder()
+                        .name(name)
+                        .nextValue(0)
+                        .build());
+
+        long first = sequence.getNextValue();
+        sequence.setNextValue(first + size);
+        this.codeSequenceRepository.saveAndFlush(sequence);
+
+        return first;
+    }
+
+}
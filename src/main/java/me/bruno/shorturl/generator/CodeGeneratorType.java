@@ -0,0 +1,23 @@
+package me.bruno.shorturl.generator;
+
+/**
+ * Strategies to generate codes
+ */
+public enum CodeGeneratorType {
+
+    /**
+     * Random alphanumeric codes, checked for uniqueness one by one
+     */
+    RANDOM,
+
+    /**
+     * Base62 codes of values leased in blocks from a database sequence
+     */
+    SEQUENCE,
+
+    /**
+     * Random codes reserved in advance by a background task
+     */
+    POOL
+
+}
@@ -0,0 +1,85 @@
+package me.bruno.shorturl.generator;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import me.bruno.shorturl.entity.CodeReservationEntity;
+import me.bruno.shorturl.repository.CodeReservationRepository;
+import me.bruno.shorturl.repository.ShortURLRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.*;
+
+/**
+ * Reserves codes in the database for a node
+ * Uniqueness is checked with set-based queries, one per batch
+ */
+@Service
+public class CodeReservationService {
+
+    @Autowired
+    private ShortURLRepository shortURLRepository;
+
+    @Autowired
+    private CodeReservationRepository codeReservationRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Reserves the free codes among the candidates
+     * If another node reserves one of them at the same time, the whole batch fails
+     *
+     * @param node       the id of the node
+     * @param candidates the candidate codes
+     * @return the reserved codes
+     */
+    @Transactional
+    public List<String> reserve(String node, Collection<String> candidates) {
+        Set<String> free = new LinkedHashSet<>(candidates);
+        free.removeAll(this.shortURLRepository.findExistingCodes(free));
+
+        if (!free.isEmpty()) {
+            free.removeAll(this.codeReservationRepository.findReservedCodes(free));
+        }
+
+        OffsetDateTime now = OffsetDateTime.now();
+        for (String code : free) {
+            // Persist directly, save() would select each assigned id first
+            this.entityManager.persist(CodeReservationEntity.builder()
+                    .code(code)
+                    .node(node)
+                    .reservedAt(now)
+                    .build());
+        }
+        this.entityManager.flush();
+
+        return new ArrayList<>(free);
+    }
+
+    /**
+     * Releases all reservations of the node
+     *
+     * @param node the id of the node
+     * @return the number of released reservations
+     */
+    @Transactional
+    public int releaseNode(String node) {
+        return this.codeReservationRepository.deleteByNode(node);
+    }
+
+    /**
+     * Releases reservations older than the date
+     * Used codes are in short_url already, unused ones belong to nodes that did not release them
+     *
+     * @param before the date
+     * @return the number of released reservations
+     */
+    @Transactional
+    public int releaseExpired(OffsetDateTime before) {
+        return this.codeReservationRepository.deleteReservedBefore(before);
+    }
+
+}
@@ -0,0 +1,184 @@
+package me.bruno.shorturl.generator;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of random codes, reserved in the database by a background task
+ * Codes are taken in O(1) without any query on the request thread
+ */
+@Log4j2
+@Component
+public class RandomCodePool {
+
+    private static final int INITIAL_LENGTH = 6;
+
+    // Id of this node, reservations of previous runs are released by the TTL
+    private final String node = UUID.randomUUID().toString();
+
+    private final Queue<PooledCode> codes = new ConcurrentLinkedQueue<>();
+
+    // ConcurrentLinkedQueue.size() is O(n)
+    private final AtomicInteger size = new AtomicInteger();
+
+    @Autowired
+    private CodeReservationService codeReservationService;
+
+    // Configuration
+    @Value("${short-url.code.generator:random}")
+    private CodeGeneratorType codeGenerator;
+
+    @Value("${short-url.code.pool.low-watermark:1000}")
+    private int lowWatermark;
+
+    @Value("${short-url.code.pool.high-watermark:10000}")
+    private int highWatermark;
+
+    @Value("${short-url.code.pool.batch-size:500}")
+    private int batchSize;
+
+    @Value("${short-url.code.pool.reservation-ttl:PT24H}")
+    private Duration reservationTtl;
+
+    // Length of the generated candidates, increases when most of a batch is taken
+    private int length = INITIAL_LENGTH;
+
+    /**
+     * Takes a reserved code from the pool
+     *
+     * @return a reserved code or null if the pool is empty
+     */
+    public String poll() {
+        OffsetDateTime stale = OffsetDateTime.now().minus(this.reservationTtl.dividedBy(2));
+
+        PooledCode pooled;
+        while ((pooled = this.codes.poll()) != null) {
+            this.size.decrementAndGet();
+
+            // Skip codes whose reservation may be released soon
+            if (pooled.reservedAt().isAfter(stale)) {
+                return pooled.code();
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Gets the number of codes in the pool
+     *
+     * @return the number of codes
+     */
+    public int size() {
+        return this.size.get();
+    }
+
+    /**
+     * Fills the pool up to the high watermark when it is below the low watermark
+     */
+    @Scheduled(fixedDelayString = "${short-url.code.pool.fill-interval:PT1S}")
+    public void fill() {
+        if (this.codeGenerator != CodeGeneratorType.POOL || this.size.get() >= this.lowWatermark) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        int reserved = 0;
+        int emptyBatches = 0;
+
+        try {
+            while (this.size.get() < this.highWatermark && emptyBatches < 10) {
+                int batch = fillBatch();
+                reserved += batch;
+                emptyBatches = batch == 0 ? emptyBatches + 1 : 0;
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to fill the code pool", e);
+        }
+
+        log.debug("Reserved " + reserved + " codes in " + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    private int fillBatch() {
+        Set<String> candidates = new HashSet<>();
+        while (candidates.size() < this.batchSize) {
+            candidates.add(RandomStringUtils.randomAlphanumeric(this.length));
+        }
+
+        List<String> reserved;
+        try {
+            reserved = this.codeReservationService.reserve(this.node, candidates);
+        } catch (DataIntegrityViolationException e) {
+            // Another node reserved one of the candidates, try another batch
+            return 0;
+        }
+
+        // Most of the candidates are taken, use longer codes
+        if (reserved.size() < candidates.size() / 2) {
+            this.length++;
+            log.info("Code pool length increased to " + this.length);
+        }
+
+        OffsetDateTime now = OffsetDateTime.now();
+        reserved.forEach(code -> this.codes.add(new PooledCode(code, now)));
+        this.size.addAndGet(reserved.size());
+
+        return reserved.size();
+    }
+
+    /**
+     * Releases expired reservations of all nodes
+     */
+    @Scheduled(
+            initialDelayString = "${short-url.code.pool.release-interval:PT1H}",
+            fixedDelayString = "${short-url.code.pool.release-interval:PT1H}"
+    )
+    public void releaseExpired() {
+        if (this.codeGenerator != CodeGeneratorType.POOL) {
+            return;
+        }
+
+        int released = this.codeReservationService.releaseExpired(OffsetDateTime.now().minus(this.reservationTtl));
+        log.debug("Released " + released + " expired code reservations");
+    }
+
+    /**
+     * Releases the reservations of this node on shutdown, so unused codes can be reserved again
+     */
+    @PreDestroy
+    public void release() {
+        if (this.codeGenerator != CodeGeneratorType.POOL) {
+            return;
+        }
+
+        this.codes.clear();
+        this.size.set(0);
+
+        try {
+            int released = this.codeReservationService.releaseNode(this.node);
+            log.info("Released " + released + " code reservations");
+        } catch (RuntimeException e) {
+            log.error("Failed to release code reservations", e);
+        }
+    }
+
+    private record PooledCode(String code, OffsetDateTime reservedAt) {
+    }
+
+}
@@ -0,0 +1,92 @@
+package me.bruno.shorturl.generator;
+
+/**
+ * Encodes sequence values as base62 codes
+ * <p>
+ * Values are split in tiers by code length: the first 2^35 values are encoded with 6 chars,
+ * the next 2^41 with 7 chars and so on. Inside a tier the value can be scrambled with a
+ * bijective permutation, so codes do not look sequential and never collide.
+ */
+public class SequenceCodeEncoder {
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
+
+    private static final int MIN_LENGTH = 6;
+
+    // Odd multipliers, invertible modulo 2^bits
+    private static final long MULTIPLIER_1 = 0x9E3779B97F4A7C15L;
+    private static final long MULTIPLIER_2 = 0xC2B2AE3D27D4EB4FL;
+
+    private final boolean scramble;
+
+    private final long key;
+
+    public SequenceCodeEncoder(boolean scramble, long key) {
+        this.scramble = scramble;
+        this.key = key;
+    }
+
+    /**
+     * Encodes the value as a code
+     *
+     * @param value the sequence value, must not be negative
+     * @return the code, unique for each value
+     */
+    public String encode(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("value is negative");
+        }
+
+        long offset = value;
+        int length = MIN_LENGTH;
+
+        while (true) {
+            int bits = bitsFor(length);
+            long capacity = 1L << bits;
+
+            if (offset < capacity) {
+                long encoded = this.scramble ? permute(offset, bits) : offset;
+                return toBase62(encoded, length);
+            }
+
+            offset -= capacity;
+            length++;
+        }
+    }
+
+    /**
+     * Gets the number of bits that always fit in a code with the length
+     *
+     * @param length the code length
+     * @return the number of bits, at most 62
+     */
+    static int bitsFor(int length) {
+        return (int) Math.min(62, Math.floor(length * Math.log(ALPHABET.length) / Math.log(2)));
+    }
+
+    /**
+     * Bijective permutation of [0, 2^bits)
+     * Every step (odd multiplication, xorshift, xor) is invertible modulo 2^bits
+     */
+    private long permute(long value, int bits) {
+        long mask = (1L << bits) - 1;
+        long x = (value * MULTIPLIER_1) & mask;
+        x ^= x >>> (bits / 2 + 1);
+        x = (x ^ this.key) & mask;
+        x = (x * MULTIPLIER_2) & mask;
+        x ^= x >>> (bits / 2);
+        return x;
+    }
+
+    private static String toBase62(long value, int length) {
+        char[] chars = new char[length];
+
+        for (int i = length - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (value % ALPHABET.length)];
+            value /= ALPHABET.length;
+        }
+
+        return new String(chars);
+    }
+
+}
@@ -0,0 +1,87 @@
+package me.bruno.shorturl.generator;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Generates codes from blocks of a database sequence (hi/lo)
+ * Each node leases its own blocks, so generated codes never collide with each other
+ */
+@Log4j2
+@Component
+public class SequenceCodeGenerator {
+
+    private static final String SEQUENCE_NAME = "short_url_code";
+
+    @Autowired
+    private CodeBlockAllocator codeBlockAllocator;
+
+    // Configuration
+    @Value("${short-url.code.generator:random}")
+    private CodeGeneratorType codeGenerator;
+
+    @Value("${short-url.code.sequence.block-size:1000}")
+    private int blockSize;
+
+    @Value("${short-url.code.sequence.scramble:true}")
+    private boolean scramble;
+
+    @Value("${short-url.code.sequence.scramble-key:0}")
+    private long scrambleKey;
+
+    private SequenceCodeEncoder encoder;
+
+    // Current block, guarded by this
+    private long next;
+    private long blockEnd;
+
+    /**
+     * Creates the encoder
+     *
+     * @throws IllegalStateException if sequence codes are scrambled with the default key, they would be enumerable
+     */
+    @PostConstruct
+    public void init() {
+        if (this.codeGenerator == CodeGeneratorType.SEQUENCE && this.scramble && this.scrambleKey == 0) {
+            throw new IllegalStateException("short-url.code.sequence.scramble-key must be set to a private non-zero key "
+                    + "when short-url.code.generator=sequence, with key 0 the codes can be enumerated");
+        }
+
+        this.encoder = new SequenceCodeEncoder(this.scramble, this.scrambleKey);
+    }
+
+    /**
+     * Generates the next code
+     * Leases a new block when the current one is exhausted
+     *
+     * @return the next code
+     */
+    public String nextCode() {
+        return this.encoder.encode(nextValue());
+    }
+
+    private synchronized long nextValue() {
+        if (this.next >= this.blockEnd) {
+            long first = leaseBlock();
+            this.next = first;
+            this.blockEnd = first + this.blockSize;
+            log.debug("Leased code block [" + first + ", " + this.blockEnd + ")");
+        }
+
+        return this.next++;
+    }
+
+    private long leaseBlock() {
+        try {
+            return this.codeBlockAllocator.leaseBlock(SEQUENCE_NAME, this.blockSize);
+        } catch (DataIntegrityViolationException e) {
+            // Another node created the sequence at the same time, it exists now
+            return this.codeBlockAllocator.leaseBlock(SEQUENCE_NAME, this.blockSize);
+        }
+    }
+
+}
@@ -0,0 +1,73 @@
+package me.bruno.shorturl.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of redirects by outcome and path, published as the shorturl.redirects timer
+ * Timers are registered once, recording a redirect does not look up the registry.
+ */
+@Component
+public class RedirectMetrics {
+
+    private final Map<Outcome, Timer> fastPathTimers = new EnumMap<>(Outcome.class);
+    private final Map<Outcome, Timer> mvcTimers = new EnumMap<>(Outcome.class);
+
+    public RedirectMetrics(MeterRegistry meterRegistry) {
+        for (Outcome outcome : Outcome.values()) {
+            this.fastPathTimers.put(outcome, timer(meterRegistry, outcome, "fast"));
+            this.mvcTimers.put(outcome, timer(meterRegistry, outcome, "mvc"));
+        }
+    }
+
+    /**
+     * Records a redirect answered by the fast path filter
+     *
+     * @param outcome    the outcome
+     * @param startNanos the {@link System#nanoTime()} when the request was received
+     */
+    public void recordFastPath(Outcome outcome, long startNanos) {
+        this.fastPathTimers.get(outcome).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records a redirect answered by the controller
+     *
+     * @param outcome    the outcome
+     * @param startNanos the {@link System#nanoTime()} when the controller was called
+     */
+    public void recordMvc(Outcome outcome, long startNanos) {
+        this.mvcTimers.get(outcome).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, Outcome outcome, String path) {
+        return Timer.builder("shorturl.redirects")
+                .description("Redirect latency")
+                .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                .tag("path", path)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Outcome of a redirect
+     */
+    public enum Outcome {
+        /**
+         * Valid code, redirected
+         */
+        HIT,
+        /**
+         * Unknown, deleted, not active yet or expired code, not found
+         * Deleted codes are not told apart, lookups never load them
+         */
+        MISS
+    }
+
+}
@@ -2,14 +2,21 @@ package me.bruno.shorturl.repository;
 
 import me.bruno.shorturl.entity.APIAuthKeyEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface ApiKeyRepository extends JpaRepository<APIAuthKeyEntity, String> {
+public interface ApiKeyRepository extends JpaRepository<APIAuthKeyEntity, String>, ApiKeyRepositoryCustom {
 
     // Check if the table is empty
     @Query("SELECT CASE WHEN COUNT(a) = 0 THEN true ELSE false END FROM APIAuthKeyEntity a")
     boolean isEmpty();
 
+    // Replace a key stored in plain text with its digest
+    @Modifying
+    @Query(value = "UPDATE api_key SET access_key = :digest WHERE access_key = :key", nativeQuery = true)
+    int replaceKey(@Param("key") String key, @Param("digest") String digest);
+
 }
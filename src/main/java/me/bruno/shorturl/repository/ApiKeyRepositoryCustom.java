@@ -0,0 +1,19 @@
+package me.bruno.shorturl.repository;
+
+import me.bruno.shorturl.entity.APIAuthKeyEntity;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Keyset queries of ApiKeyRepository, ordered by (created_at, access_key)
+ */
+public interface ApiKeyRepositoryCustom {
+
+    // Find a page after the cursor (null for the first page)
+    List<APIAuthKeyEntity> findPage(KeysetCursor after, int limit);
+
+    // Stream all keys, must be consumed inside a transaction and closed
+    Stream<APIAuthKeyEntity> streamAll();
+
+}
@@ -0,0 +1,46 @@
+package me.bruno.shorturl.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import me.bruno.shorturl.entity.APIAuthKeyEntity;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public class ApiKeyRepositoryCustomImpl implements ApiKeyRepositoryCustom {
+
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<APIAuthKeyEntity> findPage(KeysetCursor after, int limit) {
+        if (after == null) {
+            return this.entityManager.createQuery(
+                            "SELECT a FROM APIAuthKeyEntity a ORDER BY a.createdAt, a.key", APIAuthKeyEntity.class)
+                    .setMaxResults(limit)
+                    .getResultList();
+        }
+
+        return this.entityManager.createQuery(
+                        "SELECT a FROM APIAuthKeyEntity a"
+                                + " WHERE a.createdAt > :afterCreatedAt OR (a.createdAt = :afterCreatedAt AND a.key > :afterKey)"
+                                + " ORDER BY a.createdAt, a.key", APIAuthKeyEntity.class)
+                .setParameter("afterCreatedAt", after.getCreatedAt())
+                .setParameter("afterKey", after.getId())
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public Stream<APIAuthKeyEntity> streamAll() {
+        return this.entityManager.createQuery(
+                        "SELECT a FROM APIAuthKeyEntity a ORDER BY a.createdAt, a.key", APIAuthKeyEntity.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+}
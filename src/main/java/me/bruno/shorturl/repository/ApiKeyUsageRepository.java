@@ -0,0 +1,29 @@
+package me.bruno.shorturl.repository;
+
+import me.bruno.shorturl.entity.APIKeyUsageEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ApiKeyUsageRepository extends JpaRepository<APIKeyUsageEntity, String> {
+
+    // Add creates to the usage of a key and day, 0 if there is no usage row yet
+    @Modifying
+    @Query("UPDATE APIKeyUsageEntity u SET u.creates = u.creates + :creates WHERE u.id = :id")
+    int addCreates(@Param("id") String id, @Param("creates") long creates);
+
+    // Find the usage of every key on a day
+    List<APIKeyUsageEntity> findByDay(LocalDate day);
+
+    // Delete the usage of past days
+    @Modifying
+    @Query("DELETE FROM APIKeyUsageEntity u WHERE u.day < :before")
+    int deleteDaysBefore(@Param("before") LocalDate before);
+
+}
@@ -0,0 +1,30 @@
+package me.bruno.shorturl.repository;
+
+import me.bruno.shorturl.entity.CacheChangeEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+@Repository
+public interface CacheChangeRepository extends JpaRepository<CacheChangeEntity, Long> {
+
+    // Find the changes after an id, ordered by id
+    @Query("SELECT c FROM CacheChangeEntity c WHERE c.id > :after ORDER BY c.id")
+    List<CacheChangeEntity> findChangesAfter(@Param("after") long after, Pageable pageable);
+
+    // Find the last id, 0 if the log is empty
+    @Query("SELECT COALESCE(MAX(c.id), 0) FROM CacheChangeEntity c")
+    long findLastId();
+
+    // Delete changes every node has already read
+    @Modifying
+    @Query("DELETE FROM CacheChangeEntity c WHERE c.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") OffsetDateTime before);
+
+}
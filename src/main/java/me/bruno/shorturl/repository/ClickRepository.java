@@ -0,0 +1,35 @@
+package me.bruno.shorturl.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes click counts with batched JDBC updates
+ * Not a JPA repository, JPQL bulk updates are not batched by Hibernate
+ */
+@Repository
+public class ClickRepository {
+
+    private static final String ADD_CLICKS_SQL = "UPDATE short_url SET clicks = clicks + ? WHERE code = ? AND deleted_at IS NULL";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Adds clicks to the valid ShortURLs, in JDBC batches
+     *
+     * @param clicks    the clicks to add by code
+     * @param batchSize the max number of updates per JDBC batch
+     */
+    public void addClicks(List<Map.Entry<String, Long>> clicks, int batchSize) {
+        this.jdbcTemplate.batchUpdate(ADD_CLICKS_SQL, clicks, batchSize, (statement, entry) -> {
+            statement.setLong(1, entry.getValue());
+            statement.setString(2, entry.getKey());
+        });
+    }
+
+}
@@ -0,0 +1,31 @@
+package me.bruno.shorturl.repository;
+
+import me.bruno.shorturl.entity.CodeReservationEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CodeReservationRepository extends JpaRepository<CodeReservationEntity, String> {
+
+    // Find which of the codes are already reserved, in a single query
+    @Query("SELECT r.code FROM CodeReservationEntity r WHERE r.code IN :codes")
+    List<String> findReservedCodes(@Param("codes") Collection<String> codes);
+
+    // Release the reservations of a node
+    @Modifying
+    @Query("DELETE FROM CodeReservationEntity r WHERE r.node = :node")
+    int deleteByNode(@Param("node") String node);
+
+    // Release expired reservations, used or not
+    @Modifying
+    @Query("DELETE FROM CodeReservationEntity r WHERE r.reservedAt < :before")
+    int deleteReservedBefore(@Param("before") OffsetDateTime before);
+
+}
@@ -0,0 +1,21 @@
+package me.bruno.shorturl.repository;
+
+import jakarta.persistence.LockModeType;
+import me.bruno.shorturl.entity.CodeSequenceEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface CodeSequenceRepository extends JpaRepository<CodeSequenceEntity, String> {
+
+    // Find the sequence locking the row until the end of the transaction
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM CodeSequenceEntity s WHERE s.name = :name")
+    Optional<CodeSequenceEntity> findForUpdate(@Param("name") String name);
+
+}
@@ -0,0 +1,92 @@
+package me.bruno.shorturl.repository;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position of the last item of a page, ordered by (created_at, id)
+ * Encoded as an opaque string for the API clients
+ */
+@Getter
+@ToString
+public class KeysetCursor {
+
+    private static final char SEPARATOR = '|';
+
+    private final OffsetDateTime createdAt;
+
+    private final String id;
+
+    private KeysetCursor(OffsetDateTime createdAt, String id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    public static KeysetCursor of(OffsetDateTime createdAt, String id) {
+        return new KeysetCursor(createdAt, id);
+    }
+
+    /**
+     * Encodes the cursor as an URL safe string
+     *
+     * @return the encoded cursor
+     */
+    public String encode() {
+        String raw = createdAt.toInstant().toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor encoded by {@link #encode()}
+     *
+     * @param encoded the encoded cursor
+     * @return the cursor
+     * @throws IllegalArgumentException if the cursor is invalid
+     */
+    public static KeysetCursor decode(String encoded) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+
+            Instant createdAt = Instant.parse(raw.substring(0, separator));
+            String id = raw.substring(separator + 1);
+
+            if (id.isEmpty()) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+
+            return new KeysetCursor(createdAt.atOffset(ZoneOffset.UTC), id);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    /**
+     * Decodes a cursor encoded by {@link #encode()} whose id is an UUID
+     *
+     * @param encoded the encoded cursor
+     * @return the cursor
+     * @throws IllegalArgumentException if the cursor or its id is invalid
+     */
+    public static KeysetCursor decodeUUID(String encoded) {
+        KeysetCursor cursor = decode(encoded);
+
+        try {
+            return new KeysetCursor(cursor.createdAt, UUID.fromString(cursor.id).toString());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+}
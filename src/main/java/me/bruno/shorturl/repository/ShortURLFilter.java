@@ -0,0 +1,35 @@
+package me.bruno.shorturl.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Filters to list ShortURLs
+ * Null fields are not filtered
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShortURLFilter {
+
+    /**
+     * Valid, deleted or all ShortURLs
+     */
+    private ShortURLStatus status;
+
+    /**
+     * Created at or after this date
+     */
+    private OffsetDateTime createdFrom;
+
+    /**
+     * Created before this date
+     */
+    private OffsetDateTime createdTo;
+
+}
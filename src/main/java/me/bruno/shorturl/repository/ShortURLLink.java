@@ -0,0 +1,14 @@
+package me.bruno.shorturl.repository;
+
+import me.bruno.shorturl.entity.RedirectStatus;
+
+/**
+ * Redirect of a valid ShortURL, without the rest of the entity
+ *
+ * @param code           the code
+ * @param redirectUrl    the redirect URL
+ * @param redirectStatus the redirect status
+ * @param cacheMaxAge    the Cache-Control max age in seconds, null if not cacheable
+ */
+public record ShortURLLink(String code, String redirectUrl, RedirectStatus redirectStatus, Integer cacheMaxAge) {
+}
@@ -1,16 +1,88 @@
 package me.bruno.shorturl.repository;
 
+import me.bruno.shorturl.entity.RedirectStatus;
 import me.bruno.shorturl.entity.ShortURLEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface ShortURLRepository extends JpaRepository<ShortURLEntity, UUID> {
+public interface ShortURLRepository extends JpaRepository<ShortURLEntity, UUID>, ShortURLRepositoryCustom {
 
-    // Find only valid ShortURLs
+    // Find only valid ShortURLs, whatever their activation and expiration dates (they keep their code)
     Optional<ShortURLEntity> findByCodeAndDeletedAtIsNull(String code);
 
+    // Find valid ShortURLs without dates with the hash of a normalized redirect URL and the same redirect settings,
+    // used by idempotent creates (a page only, the URLs must still be compared)
+    @Query("SELECT s FROM ShortURLEntity s WHERE s.urlHash = :urlHash AND s.deletedAt IS NULL "
+            + "AND s.activeFrom IS NULL AND s.expiresAt IS NULL AND s.redirectStatus = :redirectStatus "
+            + "AND COALESCE(s.cacheMaxAge, -1) = :cacheMaxAge")
+    List<ShortURLEntity> findReusable(@Param("urlHash") long urlHash, @Param("redirectStatus") RedirectStatus redirectStatus,
+                                      @Param("cacheMaxAge") int cacheMaxAge, Pageable pageable);
+
+    // Find the code of a ShortURL, used to evict the previous code when an update changes it
+    @Query("SELECT s.code FROM ShortURLEntity s WHERE s.id = :id")
+    Optional<String> findCodeById(@Param("id") UUID id);
+
+    // Count only valid ShortURLs
+    long countByDeletedAtIsNull();
+
+    // Page through valid codes ordered by code (keyset), used to build the code filter
+    @Query("SELECT s.code FROM ShortURLEntity s WHERE s.deletedAt IS NULL AND s.code > :after ORDER BY s.code")
+    List<String> findActiveCodesAfter(@Param("after") String after, Pageable pageable);
+
+    // Find the redirects of valid codes without activation and expiration dates after a code, ordered by code,
+    // used to build the code index
+    @Query("SELECT new me.bruno.shorturl.repository.ShortURLLink(s.code, s.redirectUrl, s.redirectStatus, s.cacheMaxAge) "
+            + "FROM ShortURLEntity s WHERE s.deletedAt IS NULL AND s.activeFrom IS NULL AND s.expiresAt IS NULL "
+            + "AND s.code > :after ORDER BY s.code")
+    List<ShortURLLink> findActiveLinksAfter(@Param("after") String after, Pageable pageable);
+
+    // Find valid codes, most clicked first, used to warm up the cache
+    @Query("SELECT s.code FROM ShortURLEntity s WHERE s.deletedAt IS NULL ORDER BY s.clicks DESC, s.createdAt DESC")
+    List<String> findActiveCodesByClicks(Pageable pageable);
+
+    // Find valid codes, most recently created first, used to warm up the cache
+    @Query("SELECT s.code FROM ShortURLEntity s WHERE s.deletedAt IS NULL ORDER BY s.createdAt DESC")
+    List<String> findActiveCodesByCreation(Pageable pageable);
+
+    // Find valid ShortURLs of the codes, in a single query
+    List<ShortURLEntity> findByCodeInAndDeletedAtIsNull(Collection<String> codes);
+
+    // Find which of the codes are valid, in a single query
+    @Query("SELECT s.code FROM ShortURLEntity s WHERE s.deletedAt IS NULL AND s.code IN :codes")
+    List<String> findActiveCodesIn(@Param("codes") Collection<String> codes);
+
+    // Find valid codes expired at a date, used to delete them in chunks
+    @Query("SELECT s.code FROM ShortURLEntity s WHERE s.deletedAt IS NULL AND s.expiresAt <= :now")
+    List<String> findExpiredCodes(@Param("now") OffsetDateTime now, Pageable pageable);
+
+    // Delete the valid ShortURLs of the codes expired at a date
+    @Modifying
+    @Query("UPDATE ShortURLEntity s SET s.deletedAt = :now, s.activeCode = NULL "
+            + "WHERE s.deletedAt IS NULL AND s.expiresAt <= :now AND s.code IN :codes")
+    int deleteExpired(@Param("codes") Collection<String> codes, @Param("now") OffsetDateTime now);
+
+    // Find ids of ShortURLs deleted before a date, oldest first, used to purge them in batches
+    @Query("SELECT s.id FROM ShortURLEntity s WHERE s.deletedAt < :before ORDER BY s.deletedAt")
+    List<UUID> findDeletedIdsBefore(@Param("before") OffsetDateTime before, Pageable pageable);
+
+    // Hard delete the ShortURLs of the ids deleted before a date
+    @Modifying
+    @Query("DELETE FROM ShortURLEntity s WHERE s.id IN :ids AND s.deletedAt < :before")
+    int purgeDeleted(@Param("ids") Collection<UUID> ids, @Param("before") OffsetDateTime before);
+
+    // Find which of the codes are already used (valid or deleted), in a single query
+    @Query("SELECT s.code FROM ShortURLEntity s WHERE s.code IN :codes")
+    List<String> findExistingCodes(@Param("codes") Collection<String> codes);
+
 }
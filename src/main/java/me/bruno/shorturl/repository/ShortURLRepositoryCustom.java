@@ -0,0 +1,19 @@
+package me.bruno.shorturl.repository;
+
+import me.bruno.shorturl.entity.ShortURLEntity;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Keyset queries of ShortURLRepository, ordered by (created_at, id)
+ */
+public interface ShortURLRepositoryCustom {
+
+    // Find a page after the cursor (null for the first page)
+    List<ShortURLEntity> findPage(ShortURLFilter filter, KeysetCursor after, int limit);
+
+    // Stream all ShortURLs, must be consumed inside a transaction and closed
+    Stream<ShortURLEntity> streamAll(ShortURLFilter filter);
+
+}
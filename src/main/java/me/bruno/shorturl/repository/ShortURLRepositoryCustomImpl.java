@@ -0,0 +1,70 @@
+package me.bruno.shorturl.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import me.bruno.shorturl.entity.ShortURLEntity;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+public class ShortURLRepositoryCustomImpl implements ShortURLRepositoryCustom {
+
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ShortURLEntity> findPage(ShortURLFilter filter, KeysetCursor after, int limit) {
+        return createQuery(filter, after)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public Stream<ShortURLEntity> streamAll(ShortURLFilter filter) {
+        return createQuery(filter, null)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    private TypedQuery<ShortURLEntity> createQuery(ShortURLFilter filter, KeysetCursor after) {
+        StringBuilder jpql = new StringBuilder("SELECT s FROM ShortURLEntity s WHERE 1 = 1");
+        Map<String, Object> parameters = new HashMap<>();
+
+        if (filter.getStatus() == ShortURLStatus.ACTIVE) {
+            jpql.append(" AND s.deletedAt IS NULL");
+        } else if (filter.getStatus() == ShortURLStatus.DELETED) {
+            jpql.append(" AND s.deletedAt IS NOT NULL");
+        }
+
+        if (filter.getCreatedFrom() != null) {
+            jpql.append(" AND s.createdAt >= :createdFrom");
+            parameters.put("createdFrom", filter.getCreatedFrom());
+        }
+
+        if (filter.getCreatedTo() != null) {
+            jpql.append(" AND s.createdAt < :createdTo");
+            parameters.put("createdTo", filter.getCreatedTo());
+        }
+
+        if (after != null) {
+            jpql.append(" AND (s.createdAt > :afterCreatedAt OR (s.createdAt = :afterCreatedAt AND s.id > :afterId))");
+            parameters.put("afterCreatedAt", after.getCreatedAt());
+            parameters.put("afterId", UUID.fromString(after.getId()));
+        }
+
+        jpql.append(" ORDER BY s.createdAt, s.id");
+
+        TypedQuery<ShortURLEntity> query = this.entityManager.createQuery(jpql.toString(), ShortURLEntity.class);
+        parameters.forEach(query::setParameter);
+        return query;
+    }
+
+}
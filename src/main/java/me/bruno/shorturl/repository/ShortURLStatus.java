@@ -0,0 +1,23 @@
+package me.bruno.shorturl.repository;
+
+/**
+ * Status filter of ShortURLs
+ */
+public enum ShortURLStatus {
+
+    /**
+     * Valid and deleted ShortURLs
+     */
+    ALL,
+
+    /**
+     * Valid ShortURLs only
+     */
+    ACTIVE,
+
+    /**
+     * Deleted ShortURLs only
+     */
+    DELETED
+
+}
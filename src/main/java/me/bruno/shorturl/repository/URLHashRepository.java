@@ -0,0 +1,60 @@
+package me.bruno.shorturl.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Reads and writes the redirect URL hashes of ShortURLs created before the hash was stored, with batched JDBC updates
+ * Not a JPA repository, the updates must not change the update date of the ShortURLs
+ */
+@Repository
+public class URLHashRepository {
+
+    private static final String FIRST_WITHOUT_HASH_SQL = "SELECT id, redirect_url FROM short_url "
+            + "WHERE url_hash IS NULL AND deleted_at IS NULL ORDER BY id LIMIT ?";
+    private static final String NEXT_WITHOUT_HASH_SQL = "SELECT id, redirect_url FROM short_url "
+            + "WHERE url_hash IS NULL AND deleted_at IS NULL AND id > ? ORDER BY id LIMIT ?";
+    private static final String SET_HASH_SQL = "UPDATE short_url SET url_hash = ? WHERE id = ? AND url_hash IS NULL";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Finds the redirect URLs of valid ShortURLs without hash, ordered by id
+     *
+     * @param after the id to start after, null to start from the first one
+     * @param limit the max number of ShortURLs
+     * @return the redirect URLs by id
+     */
+    public List<Map.Entry<UUID, String>> findWithoutHash(UUID after, int limit) {
+        if (after == null) {
+            return this.jdbcTemplate.query(FIRST_WITHOUT_HASH_SQL,
+                    (resultSet, row) -> Map.entry(resultSet.getObject("id", UUID.class), resultSet.getString("redirect_url")),
+                    limit);
+        }
+
+        return this.jdbcTemplate.query(NEXT_WITHOUT_HASH_SQL,
+                (resultSet, row) -> Map.entry(resultSet.getObject("id", UUID.class), resultSet.getString("redirect_url")),
+                after, limit);
+    }
+
+    /**
+     * Sets the hashes of ShortURLs without hash, in JDBC batches
+     * ShortURLs given a hash since they were read (by an update) are left as is
+     *
+     * @param hashes    the hashes to set by id
+     * @param batchSize the max number of updates per JDBC batch
+     */
+    public void setHashes(List<Map.Entry<UUID, Long>> hashes, int batchSize) {
+        this.jdbcTemplate.batchUpdate(SET_HASH_SQL, hashes, batchSize, (statement, entry) -> {
+            statement.setLong(1, entry.getValue());
+            statement.setObject(2, entry.getKey());
+        });
+    }
+
+}
@@ -0,0 +1,88 @@
+package me.bruno.shorturl.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 digests of API keys, keys are stored and indexed by their digest only
+ * Keys are random 256-bit values, so an unsalted digest is enough to keep them out of the database.
+ */
+public final class APIKeyDigest {
+
+    private static final HexFormat HEX = HexFormat.of();
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private APIKeyDigest() {
+    }
+
+    /**
+     * Generates a new random key
+     *
+     * @return the key, URL-safe Base64 of 32 random bytes
+     */
+    public static String generateKey() {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Gets the SHA-256 digest of a key
+     *
+     * @param key the key
+     * @return the digest
+     */
+    public static byte[] digest(String key) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Gets the hex SHA-256 digest of a key, as stored in the database
+     *
+     * @param key the key
+     * @return the hex digest
+     */
+    public static String hex(String key) {
+        return HEX.formatHex(digest(key));
+    }
+
+    /**
+     * Checks if a stored value is a hex digest, values that are not were stored in plain text
+     *
+     * @param value the stored value
+     * @return true if the value is a hex digest
+     */
+    public static boolean isHex(String value) {
+        if (value.length() != 64) {
+            return false;
+        }
+
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.digit(value.charAt(i), 16) < 0 || Character.isUpperCase(value.charAt(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Compares a digest with a stored hex digest in constant time
+     *
+     * @param digest    the digest of the presented key
+     * @param hexDigest the stored hex digest
+     * @return true if both are the same digest
+     */
+    public static boolean matches(byte[] digest, String hexDigest) {
+        return isHex(hexDigest) && MessageDigest.isEqual(digest, HEX.parseHex(hexDigest));
+    }
+
+}
@@ -0,0 +1,86 @@
+package me.bruno.shorturl.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import me.bruno.shorturl.entity.APIAuthKeyEntity;
+import me.bruno.shorturl.service.APIAuthKeyService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Enforces the rate limit and daily create quota of the authenticated API key, after {@link APIKeyAuthFilter}
+ * Requests over a limit get 429 with Retry-After. The key is kept as a request attribute, so the
+ * controllers can count the ShortURLs created with it.
+ */
+public class APIKeyLimitFilter extends OncePerRequestFilter {
+
+    /**
+     * Request attribute of the authenticated {@link APIAuthKeyEntity}
+     */
+    public static final String KEY_ATTRIBUTE = APIKeyLimitFilter.class.getName() + ".key";
+
+    private static final String CREATE_PATH = "/api/v1/shorturl";
+
+    private final APIAuthKeyService apiAuthKeyService;
+    private final APIKeyLimiter apiKeyLimiter;
+
+    public APIKeyLimitFilter(APIAuthKeyService apiAuthKeyService, APIKeyLimiter apiKeyLimiter) {
+        this.apiAuthKeyService = apiAuthKeyService;
+        this.apiKeyLimiter = apiKeyLimiter;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        if (authentication == null || !authentication.isAuthenticated() || !(authentication.getPrincipal() instanceof String key)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        APIAuthKeyEntity apiAuthKeyEntity = this.apiAuthKeyService.getByKey(key);
+
+        if (apiAuthKeyEntity == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        Duration wait = this.apiKeyLimiter.tryAcquire(apiAuthKeyEntity);
+        if (!wait.isZero()) {
+            reject(response, wait, "rate limit exceeded");
+            return;
+        }
+
+        if (isCreate(request) && this.apiKeyLimiter.remainingCreates(apiAuthKeyEntity) <= 0) {
+            reject(response, this.apiKeyLimiter.untilNextDay(), "daily create quota exceeded");
+            return;
+        }
+
+        request.setAttribute(KEY_ATTRIBUTE, apiAuthKeyEntity);
+        filterChain.doFilter(request, response);
+    }
+
+    private boolean isCreate(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return "POST".equals(request.getMethod())
+                && (path.equals(CREATE_PATH) || path.equals(CREATE_PATH + "/") || path.equals(CREATE_PATH + "/batch"));
+    }
+
+    private static void reject(HttpServletResponse response, Duration wait, String message) throws IOException {
+        // Rounded up, a client retrying after Retry-After must not be rejected again
+        long seconds = Math.max(1, (wait.toMillis() + 999) / 1000);
+
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(seconds));
+        response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), message);
+    }
+
+}
@@ -0,0 +1,194 @@
+package me.bruno.shorturl.security;
+
+import lombok.extern.log4j.Log4j2;
+import me.bruno.shorturl.entity.APIAuthKeyEntity;
+import me.bruno.shorturl.entity.APIKeyUsageEntity;
+import me.bruno.shorturl.repository.ApiKeyUsageRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rate limits and daily create quotas of API keys
+ * Rate limits are token buckets of this node. Quota usage is counted in memory, added to the database
+ * periodically and read back as the total of every node, so a key may go over its quota by what the
+ * other nodes created since the last sync.
+ */
+@Log4j2
+@Component
+public class APIKeyLimiter {
+
+    @Autowired
+    private ApiKeyUsageRepository apiKeyUsageRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Configuration
+    @Value("${short-url.api.limits.enabled:true}")
+    private boolean enabled;
+
+    @Value("${short-url.api.limits.usage-retention-days:7}")
+    private int usageRetentionDays;
+
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    // Creates of this node not added to the database yet, by key
+    private final ConcurrentHashMap<String, LongAdder> pendingCreates = new ConcurrentHashMap<>();
+
+    // Creates of every node read at the last sync, by key
+    private volatile Map<String, Long> syncedCreates = Map.of();
+
+    private volatile LocalDate day = today();
+
+    /**
+     * Takes a request from the rate limit of the key
+     *
+     * @param apiAuthKeyEntity the key
+     * @return 0 if the request is allowed, otherwise the time until the next one is
+     */
+    public Duration tryAcquire(APIAuthKeyEntity apiAuthKeyEntity) {
+        Double rate = apiAuthKeyEntity.getRateLimit();
+
+        if (!this.enabled || rate == null) {
+            return Duration.ZERO;
+        }
+
+        int burst = apiAuthKeyEntity.getRateBurst() == null ? 1 : apiAuthKeyEntity.getRateBurst();
+        TokenBucket bucket = this.buckets.get(apiAuthKeyEntity.getKey());
+
+        // New keys and keys whose limits were updated
+        if (bucket == null || !bucket.hasLimits(rate, burst)) {
+            bucket = new TokenBucket(rate, burst);
+            this.buckets.put(apiAuthKeyEntity.getKey(), bucket);
+        }
+
+        return Duration.ofNanos(bucket.tryAcquire(System.nanoTime()));
+    }
+
+    /**
+     * Gets the ShortURLs the key can still create today
+     *
+     * @param apiAuthKeyEntity the key
+     * @return the remaining creates, Long.MAX_VALUE if there is no quota
+     */
+    public long remainingCreates(APIAuthKeyEntity apiAuthKeyEntity) {
+        Long quota = apiAuthKeyEntity.getDailyCreateQuota();
+
+        if (!this.enabled || quota == null) {
+            return Long.MAX_VALUE;
+        }
+
+        LongAdder pending = this.pendingCreates.get(apiAuthKeyEntity.getKey());
+        long used = this.syncedCreates.getOrDefault(apiAuthKeyEntity.getKey(), 0L) + (pending == null ? 0 : pending.sum());
+        return Math.max(0, quota - used);
+    }
+
+    /**
+     * Counts ShortURLs created with the key
+     *
+     * @param apiAuthKeyEntity the key
+     * @param creates          the ShortURLs created
+     */
+    public void recordCreates(APIAuthKeyEntity apiAuthKeyEntity, long creates) {
+        if (!this.enabled || creates <= 0 || apiAuthKeyEntity.getDailyCreateQuota() == null) {
+            return;
+        }
+
+        this.pendingCreates.computeIfAbsent(apiAuthKeyEntity.getKey(), key -> new LongAdder()).add(creates);
+    }
+
+    /**
+     * Gets the time until the quotas are reset, at midnight UTC
+     *
+     * @return the time until the next day
+     */
+    public Duration untilNextDay() {
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        return Duration.between(now, now.toLocalDate().plusDays(1).atStartOfDay().atOffset(ZoneOffset.UTC));
+    }
+
+    /**
+     * Adds the creates of this node to the database and reads back the total of every node
+     * On a new day, the creates since the last sync are added to the previous day and the counts start over.
+     */
+    @Scheduled(
+            initialDelayString = "${short-url.api.limits.sync-interval:PT5S}",
+            fixedDelayString = "${short-url.api.limits.sync-interval:PT5S}"
+    )
+    public synchronized void sync() {
+        if (!this.enabled) {
+            return;
+        }
+
+        LocalDate pendingDay = this.day;
+        LocalDate today = today();
+
+        this.pendingCreates.forEach((key, adder) -> {
+            long creates = adder.sumThenReset();
+            if (creates <= 0) {
+                return;
+            }
+
+            try {
+                addCreates(key, pendingDay, creates);
+            } catch (DataAccessException e) {
+                adder.add(creates); // Added at the next sync
+                log.error("Failed to add api key usage", e);
+            }
+        });
+
+        try {
+            if (!today.equals(pendingDay)) {
+                this.day = today;
+                this.transactionTemplate.executeWithoutResult(status ->
+                        this.apiKeyUsageRepository.deleteDaysBefore(today.minusDays(this.usageRetentionDays)));
+            }
+
+            Map<String, Long> synced = new HashMap<>();
+            for (APIKeyUsageEntity usage : this.apiKeyUsageRepository.findByDay(today)) {
+                synced.put(usage.getKey(), usage.getCreates());
+            }
+            this.syncedCreates = synced;
+
+            // Full buckets are the same as new ones, drop them so idle keys do not keep one
+            long now = System.nanoTime();
+            this.buckets.values().removeIf(bucket -> bucket.isFull(now));
+        } catch (DataAccessException e) {
+            log.error("Failed to sync api key usage", e);
+        }
+    }
+
+    private void addCreates(String key, LocalDate day, long creates) {
+        String id = APIKeyUsageEntity.id(key, day);
+
+        try {
+            this.transactionTemplate.executeWithoutResult(status -> {
+                if (this.apiKeyUsageRepository.addCreates(id, creates) == 0) {
+                    this.apiKeyUsageRepository.save(APIKeyUsageEntity.builder().id(id).key(key).day(day).creates(creates).build());
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Another node inserted the row first
+            this.transactionTemplate.executeWithoutResult(status -> this.apiKeyUsageRepository.addCreates(id, creates));
+        }
+    }
+
+    private static LocalDate today() {
+        return LocalDate.now(ZoneOffset.UTC);
+    }
+
+}
@@ -1,5 +1,7 @@
 package me.bruno.shorturl.security;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.log4j.Log4j2;
 import me.bruno.shorturl.service.APIAuthKeyService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,22 +24,35 @@ public class APISecurityConfig {
     @Autowired
     private APIAuthKeyService apiAuthKeyService;
 
+    @Autowired
+    private APIKeyLimiter apiKeyLimiter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity httpSecurity) throws Exception {
+        Counter success = authCounter("success", "none");
+        Counter emptyKey = authCounter("failure", "empty");
+        Counter invalidKey = authCounter("failure", "invalid");
+
         APIKeyAuthFilter filter = new APIKeyAuthFilter(PRINCIPAL_REQUEST_HEADER);
         filter.setAuthenticationManager(authentication -> {
             String key = (String) authentication.getPrincipal();
 
             if (key == null || key.isEmpty()) {
+                emptyKey.increment();
                 throw new BadCredentialsException("The API key was not found or not the expected value. (Empty)");
             }
 
             boolean validateKey = apiAuthKeyService.validateKey(key);
 
             if (!validateKey) {
+                invalidKey.increment();
                 throw new BadCredentialsException("The API key was not found or not the expected value.");
             }
 
+            success.increment();
             authentication.setAuthenticated(true);
             return authentication;
         });
@@ -45,16 +60,26 @@ public class APISecurityConfig {
         httpSecurity
                 .authorizeHttpRequests(authorize -> authorize
                         .requestMatchers("/api/**").authenticated() // Require authentication for API
+                        .requestMatchers("/actuator/health", "/actuator/health/*", "/actuator/prometheus").permitAll() // Health checks and metrics scraping
                         .anyRequest().permitAll() // Allow all other requests
                 )
                 .csrf(AbstractHttpConfigurer::disable) // Disable CSRF
                 .sessionManagement(configurer -> configurer.sessionCreationPolicy(SessionCreationPolicy.STATELESS)) // Disable session creation
                 .addFilter(filter) // Add API key auth filter
+                .addFilterAfter(new APIKeyLimitFilter(apiAuthKeyService, apiKeyLimiter), APIKeyAuthFilter.class) // Rate limits and quotas
         ;
 
         return httpSecurity.build();
     }
 
+    private Counter authCounter(String result, String reason) {
+        return Counter.builder("shorturl.api.auth")
+                .description("API key authentications")
+                .tag("result", result)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
     @Bean
     public AuthenticationManager noopAuthenticationManager() {
         return authentication -> {
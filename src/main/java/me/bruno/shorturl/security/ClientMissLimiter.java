@@ -0,0 +1,191 @@
+package me.bruno.shorturl.security;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Counts the misses (unknown codes) of each client and blocks the clients over the limit
+ * Misses are counted in sliding windows (the previous window weighted by its overlap plus the current one).
+ * Clients are kept in sharded maps of bounded size, full shards evict the least recently seen of a few
+ * randomly sampled clients, so memory stays bounded whatever the number of clients.
+ * Checking a client is a map lookup and a volatile read, counting a miss locks its window only.
+ */
+public class ClientMissLimiter {
+
+    private static final int SHARDS = 64;
+    private static final int EVICTION_SAMPLES = 8;
+
+    private final int maxMisses;
+    private final long window;
+    private final long blockDuration;
+    private final int maxClientsPerShard;
+
+    @SuppressWarnings("unchecked")
+    private final ConcurrentHashMap<String, Client>[] shards = new ConcurrentHashMap[SHARDS];
+
+    /**
+     * Creates the limiter
+     *
+     * @param maxMisses     the misses allowed in a window
+     * @param window        the window in nanos
+     * @param blockDuration the time a client over the limit is blocked in nanos
+     * @param maxClients    the max clients kept, approximately
+     */
+    public ClientMissLimiter(int maxMisses, long window, long blockDuration, int maxClients) {
+        if (maxMisses <= 0 || window <= 0 || blockDuration <= 0 || maxClients <= 0) {
+            throw new IllegalArgumentException("limits must be positive");
+        }
+
+        this.maxMisses = maxMisses;
+        this.window = window;
+        this.blockDuration = blockDuration;
+        this.maxClientsPerShard = Math.max(1, maxClients / SHARDS);
+
+        for (int i = 0; i < SHARDS; i++) {
+            this.shards[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * Gets the time a client is still blocked
+     *
+     * @param client the client address
+     * @param now    the current time (System.nanoTime)
+     * @return the nanos until the client is unblocked, 0 or less if it is not blocked
+     */
+    public long blockedFor(String client, long now) {
+        Client state = shard(client).get(client);
+        return state == null ? 0 : state.blockedUntil - now;
+    }
+
+    /**
+     * Counts a miss of a client, blocking it if it goes over the limit
+     *
+     * @param client the client address
+     * @param now    the current time (System.nanoTime)
+     * @return true if the client is blocked
+     */
+    public boolean recordMiss(String client, long now) {
+        ConcurrentHashMap<String, Client> shard = shard(client);
+        Client state = shard.get(client);
+
+        if (state == null) {
+            if (shard.size() >= this.maxClientsPerShard) {
+                evict(shard);
+            }
+            state = shard.computeIfAbsent(client, key -> new Client(now));
+        }
+
+        return state.recordMiss(now);
+    }
+
+    /**
+     * Gets the number of clients kept
+     *
+     * @return the number of clients
+     */
+    public int size() {
+        int size = 0;
+        for (ConcurrentHashMap<String, Client> shard : this.shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    private ConcurrentHashMap<String, Client> shard(String client) {
+        int hash = client.hashCode();
+        return this.shards[(hash ^ (hash >>> 16)) & (SHARDS - 1)];
+    }
+
+    /**
+     * Removes the least recently seen of a few clients, sampled from a random part of the map
+     * The iteration order of the map follows its hash bins, sampling from the start would always evict the same clients.
+     * The part is picked by halving the bins of the map at random, a few splits only.
+     */
+    private static void evict(ConcurrentHashMap<String, Client> shard) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Spliterator<Map.Entry<String, Client>> part = shard.entrySet().spliterator();
+
+        for (long size = shard.mappingCount(); size > EVICTION_SAMPLES; size >>= 1) {
+            Spliterator<Map.Entry<String, Client>> half = part.trySplit();
+            if (half == null) {
+                break;
+            }
+            if (random.nextBoolean()) {
+                part = half;
+            }
+        }
+
+        Map.Entry<String, Client> oldest = oldest(part);
+        if (oldest == null) {
+            // The part had no clients
+            oldest = oldest(shard.entrySet().spliterator());
+        }
+
+        if (oldest != null) {
+            shard.remove(oldest.getKey(), oldest.getValue());
+        }
+    }
+
+    private static Map.Entry<String, Client> oldest(Spliterator<Map.Entry<String, Client>> part) {
+        List<Map.Entry<String, Client>> samples = new ArrayList<>(EVICTION_SAMPLES);
+        while (samples.size() < EVICTION_SAMPLES && part.tryAdvance(samples::add)) {
+            // Sampled
+        }
+
+        Map.Entry<String, Client> oldest = null;
+        for (Map.Entry<String, Client> entry : samples) {
+            if (oldest == null || entry.getValue().lastSeen - oldest.getValue().lastSeen < 0) {
+                oldest = entry;
+            }
+        }
+        return oldest;
+    }
+
+    private final class Client {
+
+        private long windowStart;
+        private int previousMisses;
+        private int currentMisses;
+        private volatile long lastSeen;
+        private volatile long blockedUntil;
+
+        private Client(long now) {
+            this.windowStart = now;
+            this.lastSeen = now;
+            this.blockedUntil = now;
+        }
+
+        private synchronized boolean recordMiss(long now) {
+            long elapsed = now - this.windowStart;
+
+            if (elapsed >= 2 * window) {
+                this.previousMisses = 0;
+                this.currentMisses = 0;
+                this.windowStart = now;
+                elapsed = 0;
+            } else if (elapsed >= window) {
+                this.previousMisses = this.currentMisses;
+                this.currentMisses = 0;
+                this.windowStart += window;
+                elapsed -= window;
+            }
+
+            this.currentMisses++;
+            this.lastSeen = now;
+
+            double estimate = this.previousMisses * (1 - (double) elapsed / window) + this.currentMisses;
+            if (estimate > maxMisses) {
+                this.blockedUntil = now + blockDuration;
+            }
+
+            return this.blockedUntil - now > 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,76 @@
+package me.bruno.shorturl.security;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket
+ * Kept as the time the bucket is full again (generic cell rate algorithm), a request takes a single CAS.
+ */
+public class TokenBucket {
+
+    private final long interval;
+    private final long tolerance;
+
+    // Time (System.nanoTime) the bucket is full again, no tokens taken if in the past
+    private final AtomicLong fullAt;
+
+    /**
+     * Creates a full bucket
+     *
+     * @param rate  the tokens added per second
+     * @param burst the max tokens, taken at once
+     */
+    public TokenBucket(double rate, int burst) {
+        if (rate <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("rate and burst must be positive");
+        }
+
+        this.interval = Math.max(1, (long) (1_000_000_000L / rate));
+        this.tolerance = this.interval * (burst - 1);
+        this.fullAt = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Takes a token
+     *
+     * @param now the current time (System.nanoTime)
+     * @return 0 if a token was taken, otherwise the nanos until one is available
+     */
+    public long tryAcquire(long now) {
+        while (true) {
+            long current = this.fullAt.get();
+            long start = current - now < 0 ? now : current;
+            long wait = start - now - this.tolerance;
+
+            if (wait > 0) {
+                return wait;
+            }
+
+            if (this.fullAt.compareAndSet(current, start + this.interval)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Checks if no tokens are taken
+     *
+     * @param now the current time (System.nanoTime)
+     * @return true if the bucket is full
+     */
+    public boolean isFull(long now) {
+        return this.fullAt.get() - now <= 0;
+    }
+
+    /**
+     * Checks if the bucket was created with the rate and burst
+     *
+     * @param rate  the tokens added per second
+     * @param burst the max tokens
+     * @return true if the bucket has the same rate and burst
+     */
+    public boolean hasLimits(double rate, int burst) {
+        return this.interval == Math.max(1, (long) (1_000_000_000L / rate)) && this.tolerance == this.interval * (burst - 1);
+    }
+
+}
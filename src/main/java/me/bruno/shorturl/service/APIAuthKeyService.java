@@ -1,26 +1,50 @@
 package me.bruno.shorturl.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
-import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import jakarta.validation.constraints.NotNull;
 import lombok.extern.log4j.Log4j2;
+import me.bruno.shorturl.cache.CacheChangeLog;
 import me.bruno.shorturl.dto.APIAuthKeyDTO;
+import me.bruno.shorturl.dto.CursorPageDTO;
 import me.bruno.shorturl.entity.APIAuthKeyEntity;
+import me.bruno.shorturl.entity.CacheChangeEntity;
 import me.bruno.shorturl.mapper.APIAuthTokenMapper;
 import me.bruno.shorturl.repository.ApiKeyRepository;
+import me.bruno.shorturl.repository.KeysetCursor;
+import me.bruno.shorturl.security.APIKeyDigest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 
 import java.time.Duration;
+import java.util.Collection;
+import java.util.HexFormat;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Log4j2
 @Service
-public class APIAuthKeyService {
+public class APIAuthKeyService implements MeterBinder {
+
+    // Longer keys are rejected without hashing, generated keys are 43 characters
+    private static final int MAX_KEY_LENGTH = 256;
 
     @Autowired
     private ApiKeyRepository apiKeyRepository;
@@ -28,25 +52,55 @@ public class APIAuthKeyService {
     @Autowired
     private APIAuthTokenMapper authApiMapper;
 
+    @Autowired
+    private CacheChangeLog cacheChangeLog;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     // Configuration
     @Value("${short-url.api.default.key}")
     private String apiDefaultKey;
 
-    // Cache
-    private final LoadingCache<String, APIAuthKeyEntity> keyCache = Caffeine.newBuilder()
-            .expireAfterWrite(Duration.ofMinutes(20))
-            .refreshAfterWrite(Duration.ofMinutes(10))
-            .build(key -> this.apiKeyRepository.findById(key).orElse(null));
+    // All keys by digest, null until loaded, then kept current by the mutations of this and other nodes
+    private volatile Map<String, APIAuthKeyEntity> keyIndex;
+
+    // Recently rejected keys, answered without hashing, cleared when keys change
+    private final Cache<String, Boolean> rejectedKeyCache = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(Duration.ofMinutes(1))
+            .recordStats()
+            .build();
 
     /**
-     * Gets the APIAuthKeyEntity with the specified id
-     * Uses cache
+     * Gets the APIAuthKeyEntity of a key
+     * Uses the key index
      *
-     * @param id the id to get
-     * @return the APIAuthKeyEntity with the specified id or null if it does not exist
+     * @param key the key
+     * @return the APIAuthKeyEntity of the key or null if the key is not valid
      */
-    public APIAuthKeyEntity getByKey(@NotNull String id) {
-        return this.keyCache.get(id);
+    public APIAuthKeyEntity getByKey(@NotNull String key) {
+        if (key.length() > MAX_KEY_LENGTH || this.rejectedKeyCache.getIfPresent(key) != null) {
+            return null;
+        }
+
+        byte[] digest = APIKeyDigest.digest(key);
+        String hexDigest = HexFormat.of().formatHex(digest);
+        Map<String, APIAuthKeyEntity> index = this.keyIndex;
+
+        APIAuthKeyEntity apiAuthKeyEntity = index != null
+                ? index.get(hexDigest)
+                : this.apiKeyRepository.findById(hexDigest).orElse(null);
+
+        if (apiAuthKeyEntity == null || !APIKeyDigest.matches(digest, apiAuthKeyEntity.getKey())) {
+            this.rejectedKeyCache.put(key, Boolean.TRUE);
+            return null;
+        }
+
+        return apiAuthKeyEntity;
     }
 
     /**
@@ -60,13 +114,40 @@ public class APIAuthKeyService {
     }
 
     /**
-     * Gets all APIAuthKeyEntity
+     * Gets a page of APIAuthKeyEntity, ordered by creation date
+     * Uses keyset pagination
      *
-     * @return all APIAuthKeyEntity
+     * @param after the cursor of the previous page, null for the first page
+     * @param limit the max number of items of the page
+     * @return the page with the cursor of the next one
      */
     @NotNull
-    public List<APIAuthKeyEntity> getAll() {
-        return this.apiKeyRepository.findAll();
+    public CursorPageDTO<APIAuthKeyEntity> getPage(KeysetCursor after, int limit) {
+        List<APIAuthKeyEntity> items = this.apiKeyRepository.findPage(after, limit + 1);
+
+        if (items.size() <= limit) {
+            return new CursorPageDTO<>(items, null);
+        }
+
+        items = items.subList(0, limit);
+        APIAuthKeyEntity last = items.get(limit - 1);
+        return new CursorPageDTO<>(items, KeysetCursor.of(last.getCreatedAt(), last.getKey()).encode());
+    }
+
+    /**
+     * Passes all APIAuthKeyEntity to the consumer, ordered by creation date
+     * Rows are detached once consumed, so memory stays bounded
+     *
+     * @param consumer the consumer of each APIAuthKeyEntity
+     */
+    @Transactional(readOnly = true)
+    public void streamAll(@NotNull Consumer<APIAuthKeyEntity> consumer) {
+        try (Stream<APIAuthKeyEntity> stream = this.apiKeyRepository.streamAll()) {
+            stream.forEach(apiAuthKeyEntity -> {
+                consumer.accept(apiAuthKeyEntity);
+                this.entityManager.detach(apiAuthKeyEntity);
+            });
+        }
     }
 
     /**
@@ -74,39 +155,110 @@ public class APIAuthKeyService {
      *
      * @param id the id to remove
      */
+    @Transactional
     public void removeById(@NotNull String id) {
         this.apiKeyRepository.deleteById(id);
-        this.keyCache.invalidate(id);
+        this.cacheChangeLog.record(CacheChangeEntity.CacheName.API_KEY, id);
+        // After the commit, a concurrent loadKeyIndex could read the key again
+        AfterCommit.run(() -> removeFromIndex(id));
+    }
+
+    /**
+     * Reloads the keys changed by other nodes in the key index
+     *
+     * @param keys the digests of the changed keys
+     */
+    public void invalidateKeys(@NotNull Collection<String> keys) {
+        List<APIAuthKeyEntity> found = this.apiKeyRepository.findAllById(keys);
+        Set<String> foundKeys = found.stream().map(APIAuthKeyEntity::getKey).collect(Collectors.toSet());
+
+        synchronized (this) {
+            keys.stream().filter(key -> !foundKeys.contains(key)).forEach(this::removeFromIndex);
+            found.forEach(this::putInIndex);
+        }
+    }
+
+    /**
+     * Loads all keys in the key index, replacing the current one
+     * Keys still stored in plain text are replaced with their digest first.
+     * Called on startup and periodically, as a fallback of the cross-node invalidation.
+     */
+    @Scheduled(
+            initialDelayString = "${short-url.api.key-index.reload-interval:PT5M}",
+            fixedDelayString = "${short-url.api.key-index.reload-interval:PT5M}"
+    )
+    public synchronized void loadKeyIndex() {
+        Map<String, APIAuthKeyEntity> index = new ConcurrentHashMap<>();
+
+        for (APIAuthKeyEntity apiAuthKeyEntity : this.apiKeyRepository.findAll()) {
+            if (!APIKeyDigest.isHex(apiAuthKeyEntity.getKey())) {
+                String digest = APIKeyDigest.hex(apiAuthKeyEntity.getKey());
+                this.transactionTemplate.executeWithoutResult(status ->
+                        this.apiKeyRepository.replaceKey(apiAuthKeyEntity.getKey(), digest));
+                apiAuthKeyEntity.setKey(digest);
+                log.info("Replaced plain text api key " + apiAuthKeyEntity.getName() + " with its digest");
+            }
+
+            index.put(apiAuthKeyEntity.getKey(), indexEntry(apiAuthKeyEntity));
+        }
+
+        this.keyIndex = index;
+        this.rejectedKeyCache.invalidateAll();
+        log.debug("Loaded " + index.size() + " api keys");
+    }
+
+    /**
+     * Registers the metrics of the key cache
+     *
+     * @param meterRegistry the registry
+     */
+    @Override
+    public void bindTo(@NotNull MeterRegistry meterRegistry) {
+        CaffeineCacheMetrics.monitor(meterRegistry, this.rejectedKeyCache, "rejectedKeyCache");
+
+        Gauge.builder("shorturl.api.key.index.size", this, service -> service.keyIndex == null ? 0 : service.keyIndex.size())
+                .description("Keys in the api key index")
+                .register(meterRegistry);
     }
 
     /**
      * Checks if the key is valid (can be used)
-     * Uses cache
+     * Uses the key index, no database query once it is loaded
      *
      * @param key the key to validate
      * @return true if the key is valid, false otherwise
      */
     public boolean validateKey(@NotNull String key) {
-        return this.keyCache.get(key) != null;
+        return getByKey(key) != null;
     }
 
     /**
      * Saves the APIAuthKeyDTO
-     * If the key is null, generates a new one
+     * If the key is null, generates a new one, returned once as the secret of the saved APIAuthKeyEntity.
+     * Otherwise the key is the digest of an existing key.
      *
      * @param APIAuthKeyDTO the APIAuthKeyDTO to save
      * @return the saved APIAuthKeyEntity
      */
     @NotNull
+    @Transactional
     public APIAuthKeyEntity save(@NotNull APIAuthKeyDTO APIAuthKeyDTO) {
         APIAuthKeyEntity apiAuthKeyEntityKey = authApiMapper.toModel(APIAuthKeyDTO);
+        String secret = null;
 
-        // Generate a key if it's null
+        // Generate a key if it's null, only its digest is stored
         if (apiAuthKeyEntityKey.getKey() == null) {
-            apiAuthKeyEntityKey.setKey(UUID.randomUUID().toString());
+            secret = APIKeyDigest.generateKey();
+            apiAuthKeyEntityKey.setKey(APIKeyDigest.hex(secret));
         }
 
-        return apiKeyRepository.save(apiAuthKeyEntityKey);
+        APIAuthKeyEntity saved = apiKeyRepository.save(apiAuthKeyEntityKey);
+        this.cacheChangeLog.record(CacheChangeEntity.CacheName.API_KEY, saved.getKey());
+        // After the commit, a key rolled back must not be accepted
+        AfterCommit.run(() -> putInIndex(saved));
+
+        saved.setSecret(secret);
+        return saved;
     }
 
 
@@ -121,6 +273,8 @@ public class APIAuthKeyService {
         } catch (IllegalArgumentException | IllegalStateException ignored) {
             log.info("Default key already exists, skipping");
         }
+
+        loadKeyIndex();
     }
 
     /**
@@ -137,8 +291,10 @@ public class APIAuthKeyService {
             throw new IllegalArgumentException("Invalid key");
         }
 
+        String digest = APIKeyDigest.hex(key);
+
         // Check if key already exists
-        if (apiKeyRepository.existsById(key)) {
+        if (apiKeyRepository.existsById(digest)) {
             throw new IllegalStateException("Key already exists");
         }
 
@@ -148,10 +304,44 @@ public class APIAuthKeyService {
         }
 
         APIAuthKeyEntity APIAuthKeyEntity = new APIAuthKeyEntity();
-        APIAuthKeyEntity.setKey(key);
+        APIAuthKeyEntity.setKey(digest);
         APIAuthKeyEntity.setName("Default Key");
         apiKeyRepository.save(APIAuthKeyEntity);
-        log.info("Created default api key: " + key);
+        putInIndex(APIAuthKeyEntity);
+        log.info("Created default api key from short-url.api.default.key");
+    }
+
+    private synchronized void putInIndex(APIAuthKeyEntity apiAuthKeyEntity) {
+        Map<String, APIAuthKeyEntity> index = this.keyIndex;
+
+        if (index != null) {
+            index.put(apiAuthKeyEntity.getKey(), indexEntry(apiAuthKeyEntity));
+        }
+
+        this.rejectedKeyCache.invalidateAll();
+    }
+
+    private synchronized void removeFromIndex(String key) {
+        Map<String, APIAuthKeyEntity> index = this.keyIndex;
+
+        if (index != null) {
+            index.remove(key);
+        }
+    }
+
+    /**
+     * Copies the fields of a key kept in the index, never the secret
+     */
+    private static APIAuthKeyEntity indexEntry(APIAuthKeyEntity apiAuthKeyEntity) {
+        return APIAuthKeyEntity.builder()
+                .key(apiAuthKeyEntity.getKey())
+                .name(apiAuthKeyEntity.getName())
+                .rateLimit(apiAuthKeyEntity.getRateLimit())
+                .rateBurst(apiAuthKeyEntity.getRateBurst())
+                .dailyCreateQuota(apiAuthKeyEntity.getDailyCreateQuota())
+                .createdAt(apiAuthKeyEntity.getCreatedAt())
+                .updatedAt(apiAuthKeyEntity.getUpdatedAt())
+                .build();
     }
 
 }
@@ -0,0 +1,35 @@
+package me.bruno.shorturl.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Runs cache evictions once the current transaction is committed
+ * Evicting before the commit lets a concurrent reader load the old row and put it back in the cache.
+ */
+final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    /**
+     * Runs the action after the commit of the current transaction, or now when there is no transaction
+     * The action is not run if the transaction is rolled back.
+     *
+     * @param action the action to run
+     */
+    static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+}
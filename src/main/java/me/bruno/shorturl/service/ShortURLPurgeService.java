@@ -0,0 +1,195 @@
+package me.bruno.shorturl.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.validation.constraints.NotNull;
+import lombok.extern.log4j.Log4j2;
+import me.bruno.shorturl.dto.PurgeResultDTO;
+import me.bruno.shorturl.repository.ShortURLRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Purges ShortURLs deleted longer ago than the retention, so the table and its indexes do not keep growing
+ * Rows are hard deleted in small batches of one transaction each, with a pause between batches,
+ * so locks are held briefly and the database is not saturated. Only one purge runs at a time on a node.
+ */
+@Log4j2
+@Service
+public class ShortURLPurgeService implements MeterBinder {
+
+    @Autowired
+    private ShortURLRepository shortURLRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Configuration
+    @Value("${short-url.purge.enabled:true}")
+    private boolean enabled;
+
+    @Value("${short-url.purge.retention:P30D}")
+    private Duration retention;
+
+    @Value("${short-url.purge.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${short-url.purge.pause:PT0.1S}")
+    private Duration pause;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // Progress of the running purge, or result of the last one
+    private volatile PurgeResultDTO progress;
+
+    // Purge metrics, purged rows and batches
+    private final LongAdder purgedRows = new LongAdder();
+    private final LongAdder purgedBatches = new LongAdder();
+
+    /**
+     * Purges deleted ShortURLs periodically, if enabled
+     * The purge runs on its own thread, it pauses between batches and would hold the scheduler thread
+     * shared by the other scheduled jobs (cache sync, click flush, expiration) for its whole duration.
+     */
+    @Scheduled(
+            initialDelayString = "${short-url.purge.interval:PT1H}",
+            fixedDelayString = "${short-url.purge.interval:PT1H}"
+    )
+    public void scheduledPurge() {
+        if (this.enabled) {
+            startPurge();
+        }
+    }
+
+    /**
+     * Purges the ShortURLs deleted before the retention, in batches
+     *
+     * @return the result of the purge, null if a purge is already running
+     */
+    public PurgeResultDTO purge() {
+        if (!this.running.compareAndSet(false, true)) {
+            return null;
+        }
+
+        try {
+            return purgeBatches(OffsetDateTime.now().minus(this.retention));
+        } finally {
+            this.running.set(false);
+        }
+    }
+
+    /**
+     * Starts a purge in the background, used to run it on demand
+     *
+     * @return the progress of the started purge, null if a purge is already running
+     */
+    public PurgeResultDTO startPurge() {
+        if (!this.running.compareAndSet(false, true)) {
+            return null;
+        }
+
+        OffsetDateTime before = OffsetDateTime.now().minus(this.retention);
+        this.progress = new PurgeResultDTO(before, OffsetDateTime.now(), 0, 0, 0, true, false);
+        PurgeResultDTO started = this.progress;
+
+        Thread thread = new Thread(() -> {
+            try {
+                purgeBatches(before);
+            } finally {
+                this.running.set(false);
+            }
+        }, "short-url-purge");
+        thread.setDaemon(true);
+        thread.start();
+
+        return started;
+    }
+
+    /**
+     * Gets the progress of the running purge, or the result of the last one
+     *
+     * @return the progress, null if no purge ran since startup
+     */
+    public PurgeResultDTO getProgress() {
+        return this.progress;
+    }
+
+    private PurgeResultDTO purgeBatches(OffsetDateTime before) {
+        OffsetDateTime startedAt = OffsetDateTime.now();
+        long start = System.currentTimeMillis();
+        long purged = 0;
+        int batches = 0;
+        boolean completed = false;
+
+        this.progress = new PurgeResultDTO(before, startedAt, 0, 0, 0, true, false);
+
+        try {
+            while (true) {
+                List<UUID> ids = this.shortURLRepository.findDeletedIdsBefore(before, PageRequest.of(0, this.batchSize));
+
+                if (!ids.isEmpty()) {
+                    Integer deleted = this.transactionTemplate.execute(status -> this.shortURLRepository.purgeDeleted(ids, before));
+                    purged += deleted == null ? 0 : deleted;
+                    batches++;
+
+                    this.purgedRows.add(deleted == null ? 0 : deleted);
+                    this.purgedBatches.increment();
+                    this.progress = new PurgeResultDTO(before, startedAt, purged, batches, System.currentTimeMillis() - start, true, false);
+                    log.debug("Purged " + purged + " deleted short urls in " + batches + " batches");
+                }
+
+                if (ids.size() < this.batchSize) {
+                    completed = true;
+                    break;
+                }
+
+                Thread.sleep(this.pause.toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Purge of deleted short urls interrupted");
+        } catch (DataAccessException e) {
+            log.error("Failed to purge deleted short urls", e);
+        }
+
+        PurgeResultDTO result = new PurgeResultDTO(before, startedAt, purged, batches, System.currentTimeMillis() - start, false, completed);
+        this.progress = result;
+
+        if (purged > 0 || !completed) {
+            log.info("Purged " + purged + " short urls deleted before " + before + " in " + batches + " batches and "
+                    + result.getDurationMillis() + "ms (" + Math.round(result.getPurgedPerSecond()) + "/s)");
+        }
+
+        return result;
+    }
+
+    /**
+     * Registers the purge metrics
+     *
+     * @param meterRegistry the registry
+     */
+    @Override
+    public void bindTo(@NotNull MeterRegistry meterRegistry) {
+        FunctionCounter.builder("shorturl.purge.rows", this.purgedRows, LongAdder::sum)
+                .description("Deleted short urls purged from the database")
+                .register(meterRegistry);
+
+        FunctionCounter.builder("shorturl.purge.batches", this.purgedBatches, LongAdder::sum)
+                .description("Batches of the purge of deleted short urls")
+                .register(meterRegistry);
+    }
+
+}
@@ -1,25 +1,88 @@
 package me.bruno.shorturl.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
-import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.google.common.hash.BloomFilter;
+import com.google.common.util.concurrent.Striped;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import jakarta.validation.constraints.NotNull;
+import lombok.extern.log4j.Log4j2;
+import me.bruno.shorturl.cache.ActiveCodeFilter;
+import me.bruno.shorturl.cache.CacheChangeLog;
+import me.bruno.shorturl.cache.CodeCacheStats;
+import me.bruno.shorturl.cache.CodeCacheTier;
+import me.bruno.shorturl.cache.OffHeapCodeIndex;
+import me.bruno.shorturl.cache.TieredCodeCache;
+import me.bruno.shorturl.dto.CursorPageDTO;
+import me.bruno.shorturl.dto.ShortURLBatchResultDTO;
 import me.bruno.shorturl.dto.ShortURLDTO;
+import me.bruno.shorturl.entity.CacheChangeEntity;
+import me.bruno.shorturl.entity.RedirectStatus;
 import me.bruno.shorturl.entity.ShortURLEntity;
+import me.bruno.shorturl.entity.URLNormalizer;
+import me.bruno.shorturl.generator.CodeGeneratorType;
+import me.bruno.shorturl.generator.RandomCodePool;
+import me.bruno.shorturl.generator.SequenceCodeGenerator;
 import me.bruno.shorturl.mapper.ShortURLMapper;
+import me.bruno.shorturl.repository.KeysetCursor;
+import me.bruno.shorturl.repository.ShortURLFilter;
+import me.bruno.shorturl.repository.ShortURLLink;
 import me.bruno.shorturl.repository.ShortURLRepository;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.commons.lang3.Validate;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 
 import java.time.OffsetDateTime;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+@Log4j2
 @Service
-public class ShortURLService {
+public class ShortURLService implements MeterBinder {
+
+    // Name of the unique constraint of valid codes, see ShortURLEntity.activeCode
+    private static final String ACTIVE_CODE_CONSTRAINT = "unique_active_code";
+
+    // Stripes of the code versions, see codeVersions (power of two)
+    private static final int CODE_VERSION_STRIPES = 1024;
+
+    // Initial length of random codes
+    private static final int RANDOM_CODE_LENGTH = 6;
+
+    // Max ShortURLs with the hash of a destination loaded by an idempotent create, other URLs rarely have the same hash
+    private static final int REUSE_CANDIDATES = 10;
+
+    // Max inserts of a ShortURL with a generated code, a new code is generated after each conflict
+    private static final int MAX_SAVE_ATTEMPTS = 5;
 
     @Autowired
     private ShortURLRepository shortURLRepository;
@@ -27,11 +90,105 @@ public class ShortURLService {
     @Autowired
     private ShortURLMapper shortURLMapper;
 
-    // Cache, valid codes only
-    private final LoadingCache<String, ShortURLEntity> validCodeCache = Caffeine.newBuilder()
-            .expireAfterWrite(20, TimeUnit.MINUTES)
-            .refreshAfterWrite(10, TimeUnit.MINUTES)
-            .build(key -> shortURLRepository.findByCodeAndDeletedAtIsNull(key).orElse(null));
+    @Autowired
+    private SequenceCodeGenerator sequenceCodeGenerator;
+
+    @Autowired
+    private RandomCodePool randomCodePool;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private CacheChangeLog cacheChangeLog;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Shared tier of the code cache, none by default
+    @Autowired(required = false)
+    private CodeCacheTier codeCacheTier;
+
+    // Runs cache refreshes, the common fork join pool unless virtual threads are enabled
+    @Autowired(required = false)
+    @Qualifier("cacheExecutor")
+    private Executor cacheExecutor;
+
+    // Cache, valid codes only, local tier in front of the shared tier
+    private final TieredCodeCache validCodeCache = new TieredCodeCache(
+            key -> shortURLRepository.findByCodeAndDeletedAtIsNull(key).orElse(null),
+            () -> codeCacheTier,
+            command -> (cacheExecutor == null ? ForkJoinPool.commonPool() : cacheExecutor).execute(command)
+    );
+
+    // Cache, unknown codes only (Caffeine does not store the null values of validCodeCache)
+    private final Cache<String, Boolean> missingCodeCache = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterWrite(1, TimeUnit.MINUTES)
+            .recordStats()
+            .build();
+
+    // Versions of the codes (striped), changed before a code is saved or removed from the code index,
+    // so a miss or an index entry loaded at the same time is not kept
+    private final AtomicLongArray codeVersions = new AtomicLongArray(CODE_VERSION_STRIPES);
+
+    // Cache, codes of recently created ShortURLs by destination (see reuseKey), used to answer repeated idempotent creates
+    private final Cache<String, String> recentUrlCache = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterWrite(10, TimeUnit.MINUTES)
+            .recordStats()
+            .build();
+
+    // Locks of the idempotent creates by destination (striped), so the same destination is not created twice by a node
+    private final Striped<Lock> reuseLocks = Striped.lock(256);
+
+    // Membership filter of valid codes, pass-through until built
+    private final ActiveCodeFilter activeCodeFilter = new ActiveCodeFilter();
+
+    // Off-heap index of valid codes, null until built, writes go to both while rebuilding
+    private volatile OffHeapCodeIndex codeIndex;
+    private volatile OffHeapCodeIndex buildingCodeIndex;
+
+    // Code generation metrics, generated codes that already existed and code length increases
+    private final LongAdder codeCollisions = new LongAdder();
+    private final LongAdder codeLengthEscalations = new LongAdder();
+
+    // Configuration
+    @Value("${short-url.code.generator:random}")
+    private CodeGeneratorType codeGenerator;
+
+    @Value("${short-url.batch.chunk-size:500}")
+    private int batchChunkSize;
+
+    @Value("${short-url.code-filter.enabled:true}")
+    private boolean codeFilterEnabled;
+
+    @Value("${short-url.code-filter.expected-insertions:1000000}")
+    private long codeFilterExpectedInsertions;
+
+    @Value("${short-url.code-filter.fpp:0.01}")
+    private double codeFilterFpp;
+
+    @Value("${short-url.code-filter.page-size:10000}")
+    private int codeFilterPageSize;
+
+    @Value("${short-url.code-index.enabled:false}")
+    private boolean codeIndexEnabled;
+
+    @Value("${short-url.code-index.initial-capacity:1048576}")
+    private int codeIndexInitialCapacity;
+
+    @Value("${short-url.code-index.chunk-size:67108864}")
+    private int codeIndexChunkSize;
+
+    @Value("${short-url.code-index.page-size:10000}")
+    private int codeIndexPageSize;
+
+    @Value("${short-url.expiration.chunk-size:500}")
+    private int expirationChunkSize;
 
     /**
      * Gets the ShortURLEntity with the specified id
@@ -47,106 +204,920 @@ public class ShortURLService {
     }
 
     /**
-     * Gets all ShortURLs.
-     * Valid and deleted ShortURLs are included
+     * Gets a page of ShortURLs, ordered by creation date
+     * Uses keyset pagination, so every page costs the same regardless of its position
      *
-     * @return all ShortURLs
+     * @param filter the filters to apply
+     * @param after  the cursor of the previous page, null for the first page
+     * @param limit  the max number of items of the page
+     * @return the page with the cursor of the next one
      */
     @NotNull
-    public List<ShortURLEntity> getAll() {
-        return this.shortURLRepository.findAll();
+    public CursorPageDTO<ShortURLEntity> getPage(@NotNull ShortURLFilter filter, KeysetCursor after, int limit) {
+        List<ShortURLEntity> items = this.shortURLRepository.findPage(filter, after, limit + 1);
+
+        if (items.size() <= limit) {
+            return new CursorPageDTO<>(items, null);
+        }
+
+        items = items.subList(0, limit);
+        ShortURLEntity last = items.get(limit - 1);
+        return new CursorPageDTO<>(items, KeysetCursor.of(last.getCreatedAt(), last.getId().toString()).encode());
+    }
+
+    /**
+     * Passes all ShortURLs to the consumer, ordered by creation date
+     * Rows are read from a database cursor and detached once consumed, so memory stays bounded
+     *
+     * @param filter   the filters to apply
+     * @param consumer the consumer of each ShortURL
+     */
+    @Transactional(readOnly = true)
+    public void streamAll(@NotNull ShortURLFilter filter, @NotNull Consumer<ShortURLEntity> consumer) {
+        try (Stream<ShortURLEntity> stream = this.shortURLRepository.streamAll(filter)) {
+            stream.forEach(shortURLEntity -> {
+                consumer.accept(shortURLEntity);
+                this.entityManager.detach(shortURLEntity);
+            });
+        }
     }
 
     /**
      * Removes and deletes the ShortURLEntity with the specified id
-     * Sets the deletedAt field to the current time
+     * Sets the deletedAt field to the current time, the caches are evicted after the commit
      *
      * @param id the id to remove
      */
+    @Transactional
     public void removeById(@NotNull UUID id) {
         this.shortURLRepository.findById(id).ifPresent(shortURLEntity -> {
             shortURLEntity.setDeletedAt(OffsetDateTime.now());
             this.shortURLRepository.save(shortURLEntity);
-            this.validCodeCache.invalidate(shortURLEntity.getCode());
+            this.cacheChangeLog.record(CacheChangeEntity.CacheName.SHORT_URL_CODE, shortURLEntity.getCode());
+
+            String code = shortURLEntity.getCode();
+            AfterCommit.run(() -> {
+                // The version is changed first, so a cache load running at the same time does not put the link back
+                removeFromCodeIndex(code);
+                this.validCodeCache.remove(code);
+                this.missingCodeCache.put(code, Boolean.TRUE);
+            });
         });
     }
 
+    /**
+     * Deletes the valid ShortURLs past their expiration date, in chunks of one transaction each
+     * Expired ShortURLs no longer redirect, deleting them frees their code and drops them from the caches of every node
+     *
+     * @return the number of deleted ShortURLs
+     */
+    @Scheduled(
+            initialDelayString = "${short-url.expiration.delete-interval:PT1M}",
+            fixedDelayString = "${short-url.expiration.delete-interval:PT1M}"
+    )
+    public int deleteExpired() {
+        OffsetDateTime now = OffsetDateTime.now();
+        int deleted = 0;
+
+        try {
+            while (true) {
+                List<String> codes = this.shortURLRepository.findExpiredCodes(now, PageRequest.of(0, this.expirationChunkSize));
+
+                if (codes.isEmpty()) {
+                    break;
+                }
+
+                this.transactionTemplate.executeWithoutResult(status -> {
+                    this.shortURLRepository.deleteExpired(codes, now);
+                    this.cacheChangeLog.record(CacheChangeEntity.CacheName.SHORT_URL_CODE, codes);
+                });
+
+                for (String code : codes) {
+                    removeFromCodeIndex(code);
+                    this.validCodeCache.remove(code);
+                    this.missingCodeCache.put(code, Boolean.TRUE);
+                }
+
+                deleted += codes.size();
+
+                if (codes.size() < this.expirationChunkSize) {
+                    break;
+                }
+            }
+        } catch (DataAccessException e) {
+            log.error("Failed to delete expired short urls", e);
+        }
+
+        if (deleted > 0) {
+            log.info("Deleted " + deleted + " expired short urls");
+        }
+
+        return deleted;
+    }
+
     /**
      * Saves the ShortURL
      * If the code is null or empty, generates a random code
+     * The code is not checked before the insert, the unique constraint of valid codes rejects codes already taken.
+     * Generated codes are generated again on conflict.
      *
      * @param dto the ShortURLDTO to save
      * @return the saved ShortURLEntity
+     * @throws IllegalArgumentException if the code is too long or already exists
      */
     @NotNull
     public ShortURLEntity save(@NotNull ShortURLDTO dto) {
+        boolean generated = !StringUtils.hasText(dto.getCode());
+
+        if (!generated) {
+            Validate.isTrue(dto.getCode().length() < 144, "code is too long");
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            // Generate a code if it's null or empty
+            if (generated) {
+                dto.setCode(generateCode(attempt));
+            }
+
+            try {
+                return insertOrUpdate(dto);
+            } catch (DataIntegrityViolationException e) {
+                if (!isCodeConflict(e)) {
+                    throw e;
+                }
+
+                // A stale miss could give the same answer again
+                invalidateMiss(dto.getCode());
+
+                if (!generated) {
+                    throw new IllegalArgumentException("code already exists", e);
+                }
+
+                this.codeCollisions.increment();
+
+                if (attempt >= MAX_SAVE_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private ShortURLEntity insertOrUpdate(ShortURLDTO dto) {
+        String[] previousCode = new String[1];
+
+        ShortURLEntity saved = this.transactionTemplate.execute(status -> {
+            // An update may change the code, the previous code must stop redirecting on every node
+            if (dto.getId() != null) {
+                previousCode[0] = this.shortURLRepository.findCodeById(dto.getId()).orElse(null);
+            }
+
+            // Flushed, so a code conflict is raised here and not on commit
+            ShortURLEntity entity = this.shortURLRepository.saveAndFlush(this.shortURLMapper.toModel(dto));
+
+            if (previousCode[0] != null && !previousCode[0].equals(entity.getCode())) {
+                this.cacheChangeLog.record(CacheChangeEntity.CacheName.SHORT_URL_CODE, List.of(previousCode[0], entity.getCode()));
+            } else {
+                this.cacheChangeLog.record(CacheChangeEntity.CacheName.SHORT_URL_CODE, entity.getCode());
+            }
+            return entity;
+        });
+
+        if (previousCode[0] != null && !previousCode[0].equals(saved.getCode())) {
+            removeFromCodeIndex(previousCode[0]);
+            this.validCodeCache.remove(previousCode[0]);
+            invalidateMiss(previousCode[0]);
+        }
+
+        if (saved.getDeletedAt() == null) {
+            // The version is changed first, so a cache load running at the same time does not overwrite the link
+            invalidateMiss(saved.getCode());
+            this.validCodeCache.put(saved);
+            this.activeCodeFilter.put(saved.getCode());
+            putInCodeIndex(saved);
+
+            if (isReusable(saved)) {
+                this.recentUrlCache.put(reuseKey(saved.getRedirectUrl(), saved.getRedirectStatus(), saved.getCacheMaxAge()), saved.getCode());
+            }
+        } else {
+            removeFromCodeIndex(saved.getCode());
+            this.validCodeCache.remove(saved.getCode());
+        }
+
+        return saved;
+    }
+
+    /**
+     * Finds a valid ShortURL to return instead of creating a new one, used by idempotent creates
+     * Only ShortURLs without custom code, activation and expiration dates are reused, the ShortURL must have the
+     * same normalized redirect URL, redirect status and cache max age. The note is not compared.
+     * Recently created ShortURLs are found without going to the database.
+     *
+     * @param dto the ShortURL to create
+     * @return the valid ShortURL to reuse or null if the ShortURL must be created
+     */
+    public ShortURLEntity findReusable(@NotNull ShortURLDTO dto) {
+        if (!isReusableRequest(dto)) {
+            return null;
+        }
+
+        String key = reuseKey(dto.getRedirectUrl(), dto.getRedirectStatus(), dto.getCacheMaxAge());
+        String code = this.recentUrlCache.getIfPresent(key);
+
+        if (code != null) {
+            // The ShortURL may have been deleted or updated since
+            ShortURLEntity recent = getDetailsByCode(code);
+            if (recent != null && isReusable(recent) && key.equals(reuseKey(recent.getRedirectUrl(), recent.getRedirectStatus(), recent.getCacheMaxAge()))) {
+                return recent;
+            }
+
+            this.recentUrlCache.invalidate(key);
+        }
+
+        // Filtered in the query, a destination may have many duplicates and one is enough
+        List<ShortURLEntity> candidates = this.shortURLRepository.findReusable(URLNormalizer.hash(dto.getRedirectUrl()),
+                dto.getRedirectStatus() == null ? RedirectStatus.FOUND : dto.getRedirectStatus(), maxAge(dto.getCacheMaxAge()),
+                PageRequest.of(0, REUSE_CANDIDATES));
+
+        for (ShortURLEntity candidate : candidates) {
+            if (isReusable(candidate) && key.equals(reuseKey(candidate.getRedirectUrl(), candidate.getRedirectStatus(), candidate.getCacheMaxAge()))) {
+                this.recentUrlCache.put(key, candidate.getCode());
+                return candidate;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Saves the ShortURL, or returns the valid ShortURL with the same destination (see findReusable)
+     * The lookup and the insert of a destination are done under a lock, so concurrent idempotent creates
+     * of the same destination on this node create one ShortURL. Other nodes are not locked out,
+     * concurrent creates on different nodes can still create a ShortURL each.
+     *
+     * @param dto the ShortURLDTO to save
+     * @return the saved or reused ShortURL
+     * @throws IllegalArgumentException if the code is too long or already exists
+     */
+    @NotNull
+    public ReuseResult saveOrReuse(@NotNull ShortURLDTO dto) {
+        if (!isReusableRequest(dto)) {
+            return new ReuseResult(save(dto), false);
+        }
+
+        Lock lock = this.reuseLocks.get(reuseKey(dto.getRedirectUrl(), dto.getRedirectStatus(), dto.getCacheMaxAge()));
+        lock.lock();
+        try {
+            ShortURLEntity existing = findReusable(dto);
+            if (existing != null) {
+                return new ReuseResult(existing, true);
+            }
+
+            return new ReuseResult(save(dto), false);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static boolean isReusableRequest(ShortURLDTO dto) {
+        return !StringUtils.hasText(dto.getCode()) && dto.getActiveFrom() == null && dto.getExpiresAt() == null
+                && StringUtils.hasText(dto.getRedirectUrl());
+    }
+
+    private static boolean isReusable(ShortURLEntity shortURLEntity) {
+        return shortURLEntity.getActiveFrom() == null && shortURLEntity.getExpiresAt() == null;
+    }
+
+    private static String reuseKey(String redirectUrl, RedirectStatus redirectStatus, Integer cacheMaxAge) {
+        return statusCode(redirectStatus) + " " + maxAge(cacheMaxAge) + " " + URLNormalizer.normalize(redirectUrl);
+    }
+
+    /**
+     * Saves new ShortURLs in chunks, one transaction and one JDBC batch per chunk
+     * Items are validated one by one, an invalid item does not stop the others
+     *
+     * @param dtos       the ShortURLDTOs to save
+     * @param firstIndex the index of the first item, used in the results
+     * @return the result of each item, in the same order
+     */
+    @NotNull
+    public List<ShortURLBatchResultDTO> saveAll(@NotNull List<ShortURLDTO> dtos, int firstIndex) {
+        List<ShortURLBatchResultDTO> results = new ArrayList<>(dtos.size());
+
+        for (int from = 0; from < dtos.size(); from += this.batchChunkSize) {
+            int to = Math.min(dtos.size(), from + this.batchChunkSize);
+            results.addAll(saveChunk(dtos.subList(from, to), firstIndex + from));
+        }
+
+        return results;
+    }
+
+    private List<ShortURLBatchResultDTO> saveChunk(List<ShortURLDTO> dtos, int firstIndex) {
+        ShortURLBatchResultDTO[] results = new ShortURLBatchResultDTO[dtos.size()];
+        Set<String> customCodes = new HashSet<>();
+
+        // Validate each item
+        for (int i = 0; i < dtos.size(); i++) {
+            String error = validateBatchItem(dtos.get(i), customCodes);
+            if (error != null) {
+                results[i] = ShortURLBatchResultDTO.failed(firstIndex + i, error);
+            }
+        }
+
+        // Check the custom codes with a single query
+        Set<String> takenCodes = customCodes.isEmpty()
+                ? Set.of()
+                : new HashSet<>(this.shortURLRepository.findActiveCodesIn(customCodes));
+
+        int missingCodes = 0;
+        for (int i = 0; i < dtos.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+
+            String code = dtos.get(i).getCode();
+            if (!StringUtils.hasText(code)) {
+                missingCodes++;
+            } else if (takenCodes.contains(code)) {
+                results[i] = ShortURLBatchResultDTO.failed(firstIndex + i, "code already exists");
+            }
+        }
+
+        // Generate the missing codes in bulk
+        Iterator<String> generatedCodes = generateCodes(missingCodes, customCodes).iterator();
+
+        List<ShortURLEntity> entities = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+
+            ShortURLEntity entity = this.shortURLMapper.toModel(dtos.get(i));
+            if (!StringUtils.hasText(entity.getCode())) {
+                entity.setCode(generatedCodes.next());
+            }
+
+            entities.add(entity);
+            positions.add(i);
+        }
+
+        if (entities.isEmpty()) {
+            return Arrays.asList(results);
+        }
+
+        try {
+            List<ShortURLEntity> saved = this.transactionTemplate.execute(status -> {
+                List<ShortURLEntity> chunk = this.shortURLRepository.saveAll(entities);
+                this.cacheChangeLog.record(CacheChangeEntity.CacheName.SHORT_URL_CODE, chunk.stream().map(ShortURLEntity::getCode).toList());
+                return chunk;
+            });
+
+            for (int i = 0; i < saved.size(); i++) {
+                ShortURLEntity entity = saved.get(i);
+                int position = positions.get(i);
+                results[position] = ShortURLBatchResultDTO.created(firstIndex + position, entity.getId(), entity.getCode());
+
+                this.validCodeCache.put(entity);
+                this.activeCodeFilter.put(entity.getCode());
+                invalidateMiss(entity.getCode());
+                putInCodeIndex(entity);
+            }
+        } catch (DataAccessException e) {
+            if (isCodeConflict(e)) {
+                // A code was taken since it was checked, save the items one by one
+                positions.forEach(position -> results[position] = saveItem(dtos.get(position), firstIndex + position));
+            } else {
+                log.error("Failed to save batch chunk starting at " + firstIndex, e);
+                positions.forEach(position -> results[position] = ShortURLBatchResultDTO.failed(firstIndex + position, "failed to save"));
+            }
+        }
+
+        return Arrays.asList(results);
+    }
+
+    private ShortURLBatchResultDTO saveItem(ShortURLDTO dto, int index) {
+        try {
+            ShortURLEntity entity = save(dto);
+            return ShortURLBatchResultDTO.created(index, entity.getId(), entity.getCode());
+        } catch (IllegalArgumentException e) {
+            return ShortURLBatchResultDTO.failed(index, e.getMessage());
+        } catch (DataAccessException e) {
+            log.error("Failed to save batch item " + index, e);
+            return ShortURLBatchResultDTO.failed(index, "failed to save");
+        }
+    }
+
+    /**
+     * Checks if a database error is a violation of the unique constraint of valid codes
+     *
+     * @param e the error
+     * @return true if the code is already taken by a valid ShortURL
+     */
+    private static boolean isCodeConflict(DataAccessException e) {
+        if (!(e instanceof DataIntegrityViolationException)) {
+            return false;
+        }
+
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+                // Extracted by the dialect, H2 gives the index backing the constraint (PUBLIC.UNIQUE_ACTIVE_CODE_INDEX_8 ON ...)
+                return violation.getConstraintName().toLowerCase(Locale.ROOT).contains(ACTIVE_CODE_CONSTRAINT);
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Validates an item of a batch
+     *
+     * @param dto         the item to validate
+     * @param customCodes the custom codes of the batch, the code of the item is added to it
+     * @return the error message or null if the item is valid
+     */
+    private String validateBatchItem(ShortURLDTO dto, Set<String> customCodes) {
+        if (dto == null) {
+            return "item is null";
+        }
 
-        // Generate a code if it's null or empty
-        if (!StringUtils.hasText(dto.getCode())) {
-            dto.setCode(generateCode());
+        Set<ConstraintViolation<ShortURLDTO>> violations = this.validator.validate(dto);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
         }
 
-        validateCode(dto.getCode());
-        return this.shortURLRepository.save(this.shortURLMapper.toModel(dto));
+        if (dto.getId() != null) {
+            return "id must be null";
+        }
+
+        String code = dto.getCode();
+        if (StringUtils.hasText(code)) {
+            if (code.length() >= 144) {
+                return "code is too long";
+            }
+
+            if (!customCodes.add(code)) {
+                return "code is duplicated in the batch";
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Generates codes that do not exist in the database
+     * Random codes are checked with a single query per round instead of one per code
+     *
+     * @param count   the number of codes
+     * @param exclude codes that must not be generated
+     * @return the generated codes
+     */
+    @NotNull
+    public List<String> generateCodes(int count, @NotNull Set<String> exclude) {
+        Set<String> codes = new LinkedHashSet<>();
+
+        // Sequence and pool codes do not need uniqueness probes
+        if (this.codeGenerator == CodeGeneratorType.SEQUENCE || this.codeGenerator == CodeGeneratorType.POOL) {
+            while (codes.size() < count) {
+                String code = generateCode();
+                if (!exclude.contains(code)) {
+                    codes.add(code);
+                }
+            }
+
+            return new ArrayList<>(codes);
+        }
+
+        int length = RANDOM_CODE_LENGTH;
+        while (codes.size() < count) {
+            Set<String> candidates = new HashSet<>();
+            while (candidates.size() < count - codes.size()) {
+                String candidate = generateRandomCode(length);
+                if (!exclude.contains(candidate) && !codes.contains(candidate)) {
+                    candidates.add(candidate);
+                }
+            }
+
+            List<String> existing = this.shortURLRepository.findActiveCodesIn(candidates);
+            existing.forEach(candidates::remove);
+            codes.addAll(candidates);
+            this.codeCollisions.add(existing.size());
+
+            // Most of the candidates are taken, increase the length
+            if (existing.size() > candidates.size()) {
+                length++;
+                this.codeLengthEscalations.increment();
+            }
+        }
+
+        return new ArrayList<>(codes);
     }
 
     /**
      * Gets the ShortURLEntity with the specified code
+     * When the off-heap code index is enabled, indexed codes get a ShortURLEntity with the redirect fields only
      *
      * @param code the code to get
      * @return the ShortURLEntity with the specified code or null if it does not exist
      */
     public ShortURLEntity getByCode(String code) {
-        return this.validCodeCache.get(code);
+        OffHeapCodeIndex index = this.codeIndex;
+
+        if (index != null) {
+            OffHeapCodeIndex.Entry entry = index.get(code);
+            if (entry != null) {
+                return toEntity(entry);
+            }
+        }
+
+        int stripe = codeVersionStripe(code);
+        long version = this.codeVersions.get(stripe);
+        ShortURLEntity shortURLEntity = findOwnedByCode(code);
+
+        // Codes created by other nodes since the last rebuild
+        if (shortURLEntity != null && index != null) {
+            putInCodeIndex(shortURLEntity);
+
+            // Removed while loading, the loaded link may be the removed one
+            if (this.codeVersions.get(stripe) != version) {
+                removeFromCodeIndex(code);
+            }
+        }
+
+        return isActive(shortURLEntity) ? shortURLEntity : null;
+    }
+
+    /**
+     * Gets the valid ShortURLEntity with the specified code, with all its fields
+     * Unlike {@link #getByCode(String)} the off-heap code index is not used
+     *
+     * @param code the code to get
+     * @return the valid ShortURLEntity with the specified code or null if it does not exist, is not active yet or expired
+     */
+    public ShortURLEntity getDetailsByCode(String code) {
+        ShortURLEntity shortURLEntity = findOwnedByCode(code);
+        return isActive(shortURLEntity) ? shortURLEntity : null;
+    }
+
+    /**
+     * Gets the not deleted ShortURLEntity with the specified code, whatever its activation and expiration dates
+     *
+     * @param code the code to get
+     * @return the not deleted ShortURLEntity with the specified code or null if it does not exist
+     */
+    private ShortURLEntity findOwnedByCode(String code) {
+        // Answer unknown codes without going to the database
+        if (!this.activeCodeFilter.mightContain(code) || this.missingCodeCache.getIfPresent(code) != null) {
+            return null;
+        }
+
+        int stripe = codeVersionStripe(code);
+        long version = this.codeVersions.get(stripe);
+        ShortURLEntity shortURLEntity = this.validCodeCache.get(code);
+
+        if (shortURLEntity == null) {
+            this.missingCodeCache.put(code, Boolean.TRUE);
+
+            // Saved while loading, the miss is stale (the saving thread may have invalidated it before the put)
+            if (this.codeVersions.get(stripe) != version) {
+                this.missingCodeCache.invalidate(code);
+            }
+        }
+
+        return shortURLEntity;
+    }
+
+    /**
+     * Removes a code from the missing code cache, when the code is saved or changed
+     * The version is changed first, so a miss loaded at the same time is not kept
+     *
+     * @param code the code
+     */
+    private void invalidateMiss(String code) {
+        this.codeVersions.incrementAndGet(codeVersionStripe(code));
+        this.missingCodeCache.invalidate(code);
+    }
+
+    private static int codeVersionStripe(String code) {
+        int h = code.hashCode();
+        return (h ^ (h >>> 16)) & (CODE_VERSION_STRIPES - 1);
+    }
+
+    /**
+     * Rebuilds the off-heap code index from the database, then swaps it with the current one
+     * Called on startup and periodically, so codes changed by other nodes are picked up and replaced records are reclaimed
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(
+            initialDelayString = "${short-url.code-index.rebuild-interval:PT1H}",
+            fixedDelayString = "${short-url.code-index.rebuild-interval:PT1H}"
+    )
+    public void rebuildCodeIndex() {
+        if (!this.codeIndexEnabled) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        OffHeapCodeIndex index = new OffHeapCodeIndex(this.codeIndexInitialCapacity, this.codeIndexChunkSize);
+        this.buildingCodeIndex = index;
+
+        try {
+            String after = "";
+
+            while (true) {
+                List<ShortURLLink> links = this.shortURLRepository.findActiveLinksAfter(after, PageRequest.of(0, this.codeIndexPageSize));
+
+                // Changes made while rebuilding are already in the index and win over the page
+                for (ShortURLLink link : links) {
+                    index.putIfAbsent(link.code(), link.redirectUrl(), statusCode(link.redirectStatus()), maxAge(link.cacheMaxAge()));
+                }
+
+                if (links.size() < this.codeIndexPageSize) {
+                    break;
+                }
+
+                after = links.get(links.size() - 1).code();
+            }
+
+            this.codeIndex = index;
+            log.info("Built code index with " + index.size() + " codes (" + (index.memoryBytes() >> 20) + "MB off-heap) in "
+                    + (System.currentTimeMillis() - start) + "ms");
+        } catch (RuntimeException e) {
+            log.error("Failed to build code index", e);
+        } finally {
+            this.buildingCodeIndex = null;
+        }
+    }
+
+    private static boolean isActive(ShortURLEntity shortURLEntity) {
+        if (shortURLEntity == null) {
+            return false;
+        }
+
+        return (shortURLEntity.getActiveFrom() == null && shortURLEntity.getExpiresAt() == null)
+                || shortURLEntity.isActiveAt(OffsetDateTime.now());
+    }
+
+    private void putInCodeIndex(ShortURLEntity shortURLEntity) {
+        // The index has no dates, links with an activation or expiration date go through the cache
+        if (shortURLEntity.getActiveFrom() != null || shortURLEntity.getExpiresAt() != null) {
+            removeFromCodeIndex(shortURLEntity.getCode());
+            return;
+        }
+
+        int status = statusCode(shortURLEntity.getRedirectStatus());
+        int maxAge = maxAge(shortURLEntity.getCacheMaxAge());
+
+        for (OffHeapCodeIndex index : writableCodeIndexes()) {
+            if (index != null) {
+                try {
+                    index.put(shortURLEntity.getCode(), shortURLEntity.getRedirectUrl(), status, maxAge);
+                } catch (IllegalStateException | IllegalArgumentException e) {
+                    // Index full or link too large, the code is answered by the cache, the old entry must not be
+                    log.warn("Failed to put code " + shortURLEntity.getCode() + " in code index: " + e.getMessage());
+                    index.remove(shortURLEntity.getCode());
+                }
+            }
+        }
+    }
+
+    private void removeFromCodeIndex(String code) {
+        this.codeVersions.incrementAndGet(codeVersionStripe(code));
+
+        for (OffHeapCodeIndex index : writableCodeIndexes()) {
+            if (index != null) {
+                index.remove(code);
+            }
+        }
+    }
+
+    private OffHeapCodeIndex[] writableCodeIndexes() {
+        // The building index is read first: the rebuild publishes it as the live index before clearing it,
+        // so a writer that sees no building index also sees the new live index
+        OffHeapCodeIndex building = this.buildingCodeIndex;
+        return new OffHeapCodeIndex[]{this.codeIndex, building};
+    }
+
+    private static ShortURLEntity toEntity(OffHeapCodeIndex.Entry entry) {
+        ShortURLEntity shortURLEntity = new ShortURLEntity();
+        shortURLEntity.setCode(entry.code());
+        shortURLEntity.setRedirectUrl(entry.redirectUrl());
+        shortURLEntity.setRedirectStatus(RedirectStatus.fromCode(entry.status()));
+        shortURLEntity.setCacheMaxAge(entry.cacheMaxAge() < 0 ? null : entry.cacheMaxAge());
+        return shortURLEntity;
+    }
+
+    private static int statusCode(RedirectStatus redirectStatus) {
+        return (redirectStatus == null ? RedirectStatus.FOUND : redirectStatus).getCode();
+    }
+
+    private static int maxAge(Integer cacheMaxAge) {
+        return cacheMaxAge == null ? -1 : cacheMaxAge;
+    }
+
+    /**
+     * Gets the hits and misses of each tier of the code cache
+     *
+     * @return the stats
+     */
+    public CodeCacheStats getCacheStats() {
+        return this.validCodeCache.stats();
+    }
+
+    /**
+     * Registers the metrics of the code caches and code generation
+     *
+     * @param meterRegistry the registry
+     */
+    @Override
+    public void bindTo(@NotNull MeterRegistry meterRegistry) {
+        this.validCodeCache.bindTo(meterRegistry, "validCodeCache");
+        CaffeineCacheMetrics.monitor(meterRegistry, this.missingCodeCache, "missingCodeCache");
+        CaffeineCacheMetrics.monitor(meterRegistry, this.recentUrlCache, "recentUrlCache");
+
+        Gauge.builder("shorturl.code.index.size", this, service -> service.codeIndex == null ? 0 : service.codeIndex.size())
+                .description("Codes in the off-heap code index")
+                .register(meterRegistry);
+        FunctionCounter.builder("shorturl.code.collisions", this.codeCollisions, LongAdder::sum)
+                .description("Generated codes that already existed and were retried")
+                .tag("generator", this.codeGenerator.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry);
+        FunctionCounter.builder("shorturl.code.length.escalations", this.codeLengthEscalations, LongAdder::sum)
+                .description("Random code length increases after too many collisions")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Invalidates the cached entries of codes changed by other nodes
+     * The next lookup of each code goes to the database
+     *
+     * @param codes the changed codes
+     */
+    public void invalidateCodes(@NotNull Collection<String> codes) {
+        for (String code : codes) {
+            invalidateMiss(code);
+            this.validCodeCache.invalidateChanged(code);
+            this.activeCodeFilter.put(code);
+            removeFromCodeIndex(code);
+        }
+    }
+
+    /**
+     * Loads valid ShortURLs into the local tier of the code cache, used to warm it up
+     * A code changed or removed while its page is loaded is not put, or is dropped again, like {@link #getByCode(String)}
+     *
+     * @param codes the codes to load
+     * @return the number of ShortURLs put in the cache
+     */
+    public int warmCache(@NotNull Collection<String> codes) {
+        Map<String, Long> versions = new HashMap<>();
+        for (String code : codes) {
+            versions.put(code, this.codeVersions.get(codeVersionStripe(code)));
+        }
+
+        int loaded = 0;
+        for (ShortURLEntity shortURLEntity : this.shortURLRepository.findByCodeInAndDeletedAtIsNull(codes)) {
+            Long version = versions.get(shortURLEntity.getCode());
+            int stripe = codeVersionStripe(shortURLEntity.getCode());
+
+            if (version == null || this.codeVersions.get(stripe) != version) {
+                continue;
+            }
+
+            this.validCodeCache.putLocal(shortURLEntity);
+
+            // Changed while putting, the change may have been evicted before the put
+            if (this.codeVersions.get(stripe) != version) {
+                this.validCodeCache.invalidateChanged(shortURLEntity.getCode());
+                continue;
+            }
+
+            loaded++;
+        }
+
+        return loaded;
+    }
+
+    /**
+     * Rebuilds the valid code filter from the database
+     * Called on startup and periodically, so codes created by other nodes are picked up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(
+            initialDelayString = "${short-url.code-filter.rebuild-interval:PT10M}",
+            fixedDelayString = "${short-url.code-filter.rebuild-interval:PT10M}"
+    )
+    public void rebuildCodeFilter() {
+        if (!this.codeFilterEnabled) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        long expected = Math.max(this.codeFilterExpectedInsertions, this.shortURLRepository.countByDeletedAtIsNull() * 2);
+        BloomFilter<CharSequence> filter = this.activeCodeFilter.startRebuild(expected, this.codeFilterFpp);
+
+        try {
+            long loaded = 0;
+            String after = "";
+
+            while (true) {
+                List<String> codes = this.shortURLRepository.findActiveCodesAfter(after, PageRequest.of(0, this.codeFilterPageSize));
+                codes.forEach(filter::put);
+                loaded += codes.size();
+
+                if (codes.size() < this.codeFilterPageSize) {
+                    break;
+                }
+
+                after = codes.get(codes.size() - 1);
+            }
+
+            this.activeCodeFilter.finishRebuild();
+            this.missingCodeCache.invalidateAll();
+            log.info("Built code filter with " + loaded + " codes in " + (System.currentTimeMillis() - start) + "ms");
+        } catch (RuntimeException e) {
+            this.activeCodeFilter.abortRebuild();
+            log.error("Failed to build code filter", e);
+        }
     }
 
     /**
      * Checks if the valid code exists
+     * Links not active yet or expired, but not deleted yet, keep their code
      *
      * @param code the code to check
      * @return true if the code exists and is not deleted
      */
     public boolean existsByCode(String code) {
-        ShortURLEntity byToken = getByCode(code);
+        OffHeapCodeIndex index = this.codeIndex;
+
+        if (index != null && index.get(code) != null) {
+            return true;
+        }
+
+        ShortURLEntity byToken = findOwnedByCode(code);
         return byToken != null && byToken.getDeletedAt() == null;
     }
 
     /**
-     * Validates the code
+     * Generates a code with the configured generator, random by default
+     * The code is not checked, the unique constraint of valid codes rejects it if it is taken (see save)
      *
-     * @param code the code to validate
-     * @throws IllegalArgumentException if the code is empty, already exists or is too long
+     * @return generated code
      */
-    public void validateCode(String code) {
-        Validate.notEmpty(code, "code is empty");
-        Validate.isTrue(!existsByCode(code), "code already exists");
-        Validate.isTrue(code.length() < 144, "code is too long");
+    public String generateCode() {
+        return generateCode(1);
     }
 
     /**
-     * Generates a random code that does not exist in the database
-     *
-     * @return random code
+     * Generates a code for an insert attempt, random codes get one character longer on each retry
      */
-    public String generateCode() {
-        int length = 6; // Initial length
-        int maxTries = 10; // Max tries before increasing the length
-        int tries = 0; // Tries since last length increase
-
-        while (true) {
-            String code = generateRandomCode(length);
+    private String generateCode(int attempt) {
+        if (this.codeGenerator == CodeGeneratorType.SEQUENCE) {
+            return generateSequenceCode();
+        }
 
-            if (!existsByCode(code)) {
-                validateCode(code);
-                return code;
-            }
+        if (this.codeGenerator == CodeGeneratorType.POOL) {
+            return generatePooledCode();
+        }
 
-            tries++;
-            if (tries >= maxTries) {
-                length++;
-                tries = 0;
-            }
+        if (attempt > 1) {
+            this.codeLengthEscalations.increment();
         }
+
+        return generateRandomCode(RANDOM_CODE_LENGTH + attempt - 1);
+    }
+
+    /**
+     * Generates a code from the leased sequence blocks
+     * Generated codes never collide with each other, only custom codes can take them
+     *
+     * @return sequence code
+     */
+    public String generateSequenceCode() {
+        return this.sequenceCodeGenerator.nextCode();
+    }
+
+    /**
+     * Takes a reserved random code from the pool
+     * Falls back to a random code if the pool is empty
+     *
+     * @return pooled code
+     */
+    public String generatePooledCode() {
+        String code = this.randomCodePool.poll();
+        return code != null ? code : generateRandomCode();
+    }
+
+    /**
+     * Generates a random code
+     *
+     * @return random code
+     */
+    public String generateRandomCode() {
+        return generateRandomCode(RANDOM_CODE_LENGTH);
     }
 
     /**
@@ -159,4 +1130,13 @@ public class ShortURLService {
         return RandomStringUtils.randomAlphanumeric(length);
     }
 
+    /**
+     * ShortURL of an idempotent create
+     *
+     * @param shortURL the saved or reused ShortURL
+     * @param reused   true if the ShortURL already existed and nothing was created
+     */
+    public record ReuseResult(ShortURLEntity shortURL, boolean reused) {
+    }
+
 }
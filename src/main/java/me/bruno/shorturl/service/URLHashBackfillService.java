@@ -0,0 +1,106 @@
+package me.bruno.shorturl.service;
+
+import lombok.extern.log4j.Log4j2;
+import me.bruno.shorturl.entity.URLNormalizer;
+import me.bruno.shorturl.repository.URLHashRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Fills the redirect URL hash of the valid ShortURLs created before it was stored, so they are found by idempotent creates
+ * Runs once on startup, on its own thread. ShortURLs are read by id in batches of one transaction each,
+ * with a pause between batches. The update date of the ShortURLs is not changed.
+ */
+@Log4j2
+@Service
+public class URLHashBackfillService {
+
+    @Autowired
+    private URLHashRepository urlHashRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Configuration
+    @Value("${short-url.url-hash.backfill.enabled:true}")
+    private boolean enabled;
+
+    @Value("${short-url.url-hash.backfill.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${short-url.url-hash.backfill.pause:PT0.1S}")
+    private Duration pause;
+
+    /**
+     * Starts the backfill on its own thread once the application is ready, if enabled
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startBackfill() {
+        if (!this.enabled) {
+            return;
+        }
+
+        Thread thread = new Thread(this::backfill, "short-url-url-hash-backfill");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Fills the missing redirect URL hashes, in batches
+     *
+     * @return the number of ShortURLs given a hash
+     */
+    public long backfill() {
+        long start = System.currentTimeMillis();
+        long filled = 0;
+        int batches = 0;
+        UUID after = null;
+
+        try {
+            while (true) {
+                List<Map.Entry<UUID, String>> urls = this.urlHashRepository.findWithoutHash(after, this.batchSize);
+
+                if (!urls.isEmpty()) {
+                    List<Map.Entry<UUID, Long>> hashes = urls.stream()
+                            .map(url -> Map.entry(url.getKey(), URLNormalizer.hash(url.getValue())))
+                            .toList();
+
+                    this.transactionTemplate.executeWithoutResult(status -> this.urlHashRepository.setHashes(hashes, this.batchSize));
+                    filled += hashes.size();
+                    batches++;
+                    after = urls.get(urls.size() - 1).getKey();
+                    log.debug("Filled the url hash of " + filled + " short urls in " + batches + " batches");
+                }
+
+                if (urls.size() < this.batchSize) {
+                    break;
+                }
+
+                Thread.sleep(this.pause.toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Backfill of url hashes interrupted");
+        } catch (DataAccessException e) {
+            log.error("Failed to backfill url hashes", e);
+        }
+
+        if (filled > 0) {
+            log.info("Filled the url hash of " + filled + " short urls in " + batches + " batches and "
+                    + (System.currentTimeMillis() - start) + "ms");
+        }
+
+        return filled;
+    }
+
+}
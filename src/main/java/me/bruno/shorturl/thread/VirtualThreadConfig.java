@@ -0,0 +1,52 @@
+package me.bruno.shorturl.thread;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Runs request handling, cache refreshes and scheduled jobs on virtual threads
+ * Enabled by short-url.threads.virtual.enabled on Java 21. Blocked threads no longer hold a Tomcat worker,
+ * the Hikari pool (spring.datasource.hikari.maximum-pool-size) still bounds the concurrent database work.
+ */
+@Log4j2
+@Configuration
+@ConditionalOnProperty(name = "short-url.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    public VirtualThreadConfig() {
+        if (!VirtualThreads.isSupported()) {
+            throw new IllegalStateException("short-url.threads.virtual.enabled requires Java 21, running on " + Runtime.version());
+        }
+
+        log.info("Using virtual threads for requests, cache refreshes and scheduled jobs");
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        ExecutorService executor = VirtualThreads.newExecutor("tomcat-");
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    // Caffeine refreshes, used instead of the common fork join pool
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService cacheExecutor() {
+        return VirtualThreads.newExecutor("cache-");
+    }
+
+    // Scheduled jobs (click flush, cache change polling, rebuilds)
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(@Value("${short-url.threads.virtual.scheduler-pool-size:4}") int poolSize) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setThreadFactory(VirtualThreads.threadFactory("scheduling-"));
+        scheduler.setPoolSize(poolSize);
+        return scheduler;
+    }
+
+}
@@ -0,0 +1,71 @@
+package me.bruno.shorturl.thread;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates virtual threads when running on Java 21 or later
+ * The sources target Java 17, so the Java 21 API is called by reflection.
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Checks if virtual threads are available in this runtime
+     *
+     * @return true if running on Java 21 or later
+     */
+    public static boolean isSupported() {
+        return Runtime.version().feature() >= 21;
+    }
+
+    /**
+     * Creates a factory of named virtual threads
+     *
+     * @param prefix the prefix of the thread names, followed by a counter
+     * @return the thread factory
+     * @throws IllegalStateException if virtual threads are not supported
+     */
+    public static ThreadFactory threadFactory(String prefix) {
+        requireSupported();
+
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Failed to create virtual thread factory", e);
+        }
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread per task
+     *
+     * @param prefix the prefix of the thread names, followed by a counter
+     * @return the executor
+     * @throws IllegalStateException if virtual threads are not supported
+     */
+    public static ExecutorService newExecutor(String prefix) {
+        ThreadFactory threadFactory = threadFactory(prefix);
+
+        try {
+            Method method = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) method.invoke(null, threadFactory);
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Failed to create virtual thread executor", e);
+        }
+    }
+
+    private static void requireSupported() {
+        if (!isSupported()) {
+            throw new IllegalStateException("Virtual threads require Java 21, running on " + Runtime.version());
+        }
+    }
+
+}
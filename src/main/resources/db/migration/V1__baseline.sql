@@ -0,0 +1,21 @@
+-- Original schema, created by spring.jpa.hibernate.ddl-auto=update
+-- Databases created that way are baselined at this version (spring.flyway.baseline-on-migrate)
+
+CREATE TABLE short_url (
+    id UUID NOT NULL PRIMARY KEY,
+    code VARCHAR(144) NOT NULL,
+    redirect_url VARCHAR(255) NOT NULL,
+    note VARCHAR(255),
+    created_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    updated_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    deleted_at TIMESTAMP(6) WITH TIME ZONE
+);
+
+CREATE INDEX index_code ON short_url (code);
+
+CREATE TABLE api_key (
+    access_key VARCHAR(255) NOT NULL PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    updated_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
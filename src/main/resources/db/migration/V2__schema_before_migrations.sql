@@ -0,0 +1,55 @@
+-- Tables and columns added while the schema was still updated by Hibernate (ddl-auto=update)
+-- Baselined databases may already have some of them, so every statement is IF NOT EXISTS.
+-- api_key_usage could not be created by Hibernate, its day column was a keyword of H2 2 (now usage_day)
+
+-- Redirect options, link windows and click counts
+ALTER TABLE short_url ADD COLUMN IF NOT EXISTS redirect_status INTEGER DEFAULT 302 NOT NULL;
+ALTER TABLE short_url ADD COLUMN IF NOT EXISTS cache_max_age INTEGER;
+ALTER TABLE short_url ADD COLUMN IF NOT EXISTS active_from TIMESTAMP(6) WITH TIME ZONE;
+ALTER TABLE short_url ADD COLUMN IF NOT EXISTS expires_at TIMESTAMP(6) WITH TIME ZONE;
+ALTER TABLE short_url ADD COLUMN IF NOT EXISTS clicks BIGINT DEFAULT 0 NOT NULL;
+
+-- Keyset pagination and expiration
+CREATE INDEX IF NOT EXISTS index_created_at_id ON short_url (created_at, id);
+CREATE INDEX IF NOT EXISTS index_deleted_at_expires_at ON short_url (deleted_at, expires_at);
+
+-- Rate limits and quotas of API keys
+ALTER TABLE api_key ADD COLUMN IF NOT EXISTS rate_limit FLOAT(53);
+ALTER TABLE api_key ADD COLUMN IF NOT EXISTS rate_burst INTEGER;
+ALTER TABLE api_key ADD COLUMN IF NOT EXISTS daily_create_quota BIGINT;
+
+CREATE INDEX IF NOT EXISTS index_created_at_key ON api_key (created_at, access_key);
+
+CREATE TABLE IF NOT EXISTS api_key_usage (
+    id VARCHAR(80) NOT NULL PRIMARY KEY,
+    access_key VARCHAR(255) NOT NULL,
+    usage_day DATE NOT NULL,
+    creates BIGINT NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS index_api_key_usage_day ON api_key_usage (usage_day);
+
+-- Cross-node cache invalidation
+CREATE TABLE IF NOT EXISTS cache_change (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    cache_name VARCHAR(32) NOT NULL,
+    entry_key VARCHAR(255) NOT NULL,
+    node VARCHAR(36) NOT NULL,
+    created_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS index_cache_change_created_at ON cache_change (created_at);
+
+-- Code generators
+CREATE TABLE IF NOT EXISTS code_reservation (
+    code VARCHAR(144) NOT NULL PRIMARY KEY,
+    node VARCHAR(36) NOT NULL,
+    reserved_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS index_reservation_node ON code_reservation (node);
+
+CREATE TABLE IF NOT EXISTS code_sequence (
+    name VARCHAR(64) NOT NULL PRIMARY KEY,
+    next_value BIGINT NOT NULL
+);
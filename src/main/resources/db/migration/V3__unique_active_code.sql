@@ -0,0 +1,15 @@
+-- Code of each valid (not deleted) ShortURL, null once deleted
+-- Unique, so the database rejects a second valid ShortURL with the same code while deleted ones keep their code
+ALTER TABLE short_url ADD COLUMN active_code VARCHAR(144);
+
+-- Codes taken twice by concurrent creates, keep the most recent ShortURL and delete the others
+UPDATE short_url SET deleted_at = CURRENT_TIMESTAMP
+WHERE deleted_at IS NULL AND EXISTS (
+    SELECT 1 FROM short_url newer
+    WHERE newer.code = short_url.code AND newer.deleted_at IS NULL
+      AND (newer.created_at > short_url.created_at OR (newer.created_at = short_url.created_at AND newer.id > short_url.id))
+);
+
+UPDATE short_url SET active_code = code WHERE deleted_at IS NULL;
+
+ALTER TABLE short_url ADD CONSTRAINT unique_active_code UNIQUE (active_code);
@@ -0,0 +1,5 @@
+-- Hash of the normalized redirect URL, indexed to find links with the same destination (see URLNormalizer)
+-- Existing links have no hash until they are updated, they are not found as duplicates
+ALTER TABLE short_url ADD COLUMN url_hash BIGINT;
+
+CREATE INDEX index_url_hash ON short_url (url_hash);
@@ -0,0 +1,95 @@
+package me.bruno.shorturl.cache;
+
+import com.google.common.hash.BloomFilter;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActiveCodeFilterTest {
+
+    @Test
+    void testMightContain_NotBuilt_ReturnTrue() {
+        ActiveCodeFilter filter = new ActiveCodeFilter();
+
+        assertFalse(filter.isReady());
+        assertTrue(filter.mightContain("123"));
+    }
+
+    @Test
+    void testMightContain_Built_ReturnFalseForUnknown() {
+        ActiveCodeFilter filter = new ActiveCodeFilter();
+
+        BloomFilter<CharSequence> building = filter.startRebuild(1000, 0.001);
+        building.put("123");
+        filter.finishRebuild();
+
+        assertTrue(filter.isReady());
+        assertTrue(filter.mightContain("123"));
+        assertFalse(filter.mightContain("unknown"));
+    }
+
+    @Test
+    void testPut_WhileRebuilding_KeptInNewFilter() {
+        ActiveCodeFilter filter = new ActiveCodeFilter();
+
+        filter.startRebuild(1000, 0.001);
+        filter.put("123");
+        filter.finishRebuild();
+
+        assertTrue(filter.mightContain("123"));
+    }
+
+    @Test
+    void testAbortRebuild_KeepCurrentFilter() {
+        ActiveCodeFilter filter = new ActiveCodeFilter();
+
+        filter.startRebuild(1000, 0.001).put("123");
+        filter.finishRebuild();
+
+        filter.startRebuild(1000, 0.001);
+        filter.abortRebuild();
+
+        assertTrue(filter.mightContain("123"));
+        assertFalse(filter.mightContain("unknown"));
+    }
+
+    @Test
+    void testPut_DuringFinishRebuild_KeptInNewFilter() throws Exception {
+        ActiveCodeFilter filter = new ActiveCodeFilter();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            for (int i = 0; i < 1000; i++) {
+                String code = "code" + i;
+                filter.startRebuild(1000, 0.001);
+                CountDownLatch start = new CountDownLatch(1);
+
+                Future<?> finish = executor.submit(() -> {
+                    start.await();
+                    filter.finishRebuild();
+                    return null;
+                });
+                Future<?> put = executor.submit(() -> {
+                    start.await();
+                    filter.put(code);
+                    return null;
+                });
+
+                start.countDown();
+                finish.get(10, TimeUnit.SECONDS);
+                put.get(10, TimeUnit.SECONDS);
+
+                assertTrue(filter.mightContain(code), "code missing from the rebuilt filter, iteration " + i);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,44 @@
+package me.bruno.shorturl.cache;
+
+import me.bruno.shorturl.entity.CacheChangeEntity;
+import me.bruno.shorturl.repository.CacheChangeRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+public class CacheChangeLogTest {
+
+    @Autowired
+    CacheChangeLog cacheChangeLog;
+
+    @Autowired
+    CacheChangeRepository cacheChangeRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Test
+    void testRecord_Keys_WrittenInOrder() {
+        long last = cacheChangeRepository.findLastId();
+
+        transactionTemplate.executeWithoutResult(status ->
+                cacheChangeLog.record(CacheChangeEntity.CacheName.SHORT_URL_CODE, List.of("first", "second", "third")));
+
+        List<CacheChangeEntity> changes = cacheChangeRepository.findChangesAfter(last, PageRequest.of(0, 10)).stream()
+                .filter(change -> cacheChangeLog.getNode().equals(change.getNode()))
+                .toList();
+
+        assertEquals(List.of("first", "second", "third"), changes.stream().map(CacheChangeEntity::getEntryKey).toList());
+        assertTrue(changes.stream().allMatch(change -> change.getCacheName() == CacheChangeEntity.CacheName.SHORT_URL_CODE));
+        assertTrue(changes.get(0).getId() < changes.get(1).getId() && changes.get(1).getId() < changes.get(2).getId());
+    }
+
+}
@@ -0,0 +1,122 @@
+package me.bruno.shorturl.cache;
+
+import me.bruno.shorturl.entity.CacheChangeEntity;
+import me.bruno.shorturl.repository.CacheChangeRepository;
+import me.bruno.shorturl.service.APIAuthKeyService;
+import me.bruno.shorturl.service.ShortURLService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheChangePollerTest {
+
+    @InjectMocks
+    CacheChangePoller cacheChangePoller;
+
+    @Mock
+    CacheChangeRepository cacheChangeRepository;
+
+    @Mock
+    CacheChangeLog cacheChangeLog;
+
+    @Mock
+    ShortURLService shortURLService;
+
+    @Mock
+    APIAuthKeyService apiAuthKeyService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cacheChangePoller, "batchSize", 100);
+        ReflectionTestUtils.setField(cacheChangePoller, "gapTimeout", Duration.ofHours(1));
+
+        when(cacheChangeLog.isEnabled()).thenReturn(true);
+        when(cacheChangeRepository.findLastId()).thenReturn(10L);
+
+        // First poll starts at the end of the log
+        cacheChangePoller.poll();
+    }
+
+    @Test
+    void testPoll_InvalidateChangesOfOtherNodes() {
+        when(cacheChangeLog.getNode()).thenReturn("this");
+        when(cacheChangeRepository.findChangesAfter(eq(10L), any(Pageable.class))).thenReturn(List.of(
+                change(11, CacheChangeEntity.CacheName.SHORT_URL_CODE, "abc", "other"),
+                change(12, CacheChangeEntity.CacheName.SHORT_URL_CODE, "own", "this"),
+                change(13, CacheChangeEntity.CacheName.API_KEY, "key", "other")
+        ));
+
+        cacheChangePoller.poll();
+
+        verify(shortURLService).invalidateCodes(Set.of("abc"));
+        verify(apiAuthKeyService).invalidateKeys(Set.of("key"));
+        assertCursor(13);
+    }
+
+    @Test
+    void testPoll_Gap_WaitForMissingId() {
+        when(cacheChangeLog.getNode()).thenReturn("this");
+        when(cacheChangeRepository.findChangesAfter(eq(10L), any(Pageable.class)))
+                .thenReturn(List.of(change(12, CacheChangeEntity.CacheName.SHORT_URL_CODE, "late", "other")))
+                .thenReturn(List.of(
+                        change(11, CacheChangeEntity.CacheName.SHORT_URL_CODE, "early", "other"),
+                        change(12, CacheChangeEntity.CacheName.SHORT_URL_CODE, "late", "other")
+                ));
+
+        cacheChangePoller.poll();
+        assertCursor(10);
+
+        cacheChangePoller.poll();
+        assertCursor(12);
+
+        // Already applied changes are not invalidated twice
+        verify(shortURLService).invalidateCodes(Set.of("late"));
+        verify(shortURLService).invalidateCodes(Set.of("early"));
+        verify(cacheChangeRepository, never()).findChangesAfter(eq(12L), any(Pageable.class));
+        verify(cacheChangeRepository, times(1)).findLastId();
+        verify(cacheChangeRepository, times(2)).findChangesAfter(anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    void testPoll_GapTimeout_SkipMissingId() {
+        ReflectionTestUtils.setField(cacheChangePoller, "gapTimeout", Duration.ZERO);
+        when(cacheChangeLog.getNode()).thenReturn("this");
+        when(cacheChangeRepository.findChangesAfter(anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(change(12, CacheChangeEntity.CacheName.SHORT_URL_CODE, "late", "other")));
+
+        cacheChangePoller.poll();
+        cacheChangePoller.poll();
+
+        assertCursor(12);
+    }
+
+    private void assertCursor(long expected) {
+        assertEquals(expected, ReflectionTestUtils.getField(cacheChangePoller, "cursor"));
+    }
+
+    private static CacheChangeEntity change(long id, CacheChangeEntity.CacheName cacheName, String key, String node) {
+        return CacheChangeEntity.builder()
+                .id(id)
+                .cacheName(cacheName)
+                .entryKey(key)
+                .node(node)
+                .build();
+    }
+
+}
@@ -0,0 +1,75 @@
+package me.bruno.shorturl.cache;
+
+import me.bruno.shorturl.repository.ShortURLRepository;
+import me.bruno.shorturl.service.ShortURLService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheWarmerTest {
+
+    @InjectMocks
+    CacheWarmer cacheWarmer;
+
+    @Mock
+    ShortURLRepository shortURLRepository;
+
+    @Mock
+    ShortURLService shortURLService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cacheWarmer, "enabled", true);
+        ReflectionTestUtils.setField(cacheWarmer, "budget", 100);
+        ReflectionTestUtils.setField(cacheWarmer, "pageSize", 10);
+        ReflectionTestUtils.setField(cacheWarmer, "parallelism", 4);
+        ReflectionTestUtils.setField(cacheWarmer, "order", CacheWarmupOrder.CLICKS);
+        ReflectionTestUtils.setField(cacheWarmer, "readyFraction", 1.0);
+    }
+
+    @Test
+    void testRun_LoadAllPagesBeforeReady() {
+        List<String> codes = IntStream.range(0, 35).mapToObj(i -> "code" + i).toList();
+        when(shortURLRepository.findActiveCodesByClicks(any(Pageable.class))).thenReturn(codes);
+        when(shortURLService.warmCache(anyCollection())).thenAnswer(invocation -> invocation.<Collection<String>>getArgument(0).size());
+
+        cacheWarmer.run(null);
+
+        assertEquals(35, cacheWarmer.getLoaded());
+        verify(shortURLService, times(4)).warmCache(anyCollection());
+
+        Health health = cacheWarmer.health();
+        assertEquals(Status.UP, health.getStatus());
+        assertEquals(35L, health.getDetails().get("loaded"));
+        assertEquals(35, health.getDetails().get("total"));
+    }
+
+    @Test
+    void testRun_Disabled_DoNotLoad() {
+        ReflectionTestUtils.setField(cacheWarmer, "enabled", false);
+
+        cacheWarmer.run(null);
+
+        assertTrue(cacheWarmer.isDone());
+        verifyNoInteractions(shortURLRepository, shortURLService);
+    }
+
+}
@@ -0,0 +1,33 @@
+package me.bruno.shorturl.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local stand-in of a network shared tier, for tests
+ */
+class InMemoryCodeCacheTier implements CodeCacheTier {
+
+    final Map<String, byte[]> values = new ConcurrentHashMap<>();
+
+    @Override
+    public String getName() {
+        return "memory";
+    }
+
+    @Override
+    public byte[] get(String code) {
+        return values.get(code);
+    }
+
+    @Override
+    public void put(String code, byte[] value) {
+        values.put(code, value);
+    }
+
+    @Override
+    public void remove(String code) {
+        values.remove(code);
+    }
+
+}
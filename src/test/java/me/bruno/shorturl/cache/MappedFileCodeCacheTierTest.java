@@ -0,0 +1,57 @@
+package me.bruno.shorturl.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedFileCodeCacheTierTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testGet_SharedBetweenMappings() throws IOException {
+        Path file = directory.resolve("codes.bin");
+
+        try (MappedFileCodeCacheTier first = new MappedFileCodeCacheTier(file, 64, 256, Duration.ofMinutes(1));
+             MappedFileCodeCacheTier second = new MappedFileCodeCacheTier(file, 64, 256, Duration.ofMinutes(1))) {
+            first.put("abc", bytes("value"));
+
+            assertArrayEquals(bytes("value"), second.get("abc"));
+            assertNull(second.get("abd"));
+
+            second.remove("abc");
+
+            assertNull(first.get("abc"));
+        }
+    }
+
+    @Test
+    void testPut_LargerThanSlot_NotCached() throws IOException {
+        try (MappedFileCodeCacheTier tier = new MappedFileCodeCacheTier(directory.resolve("codes.bin"), 64, 64, Duration.ofMinutes(1))) {
+            tier.put("abc", new byte[64]);
+
+            assertNull(tier.get("abc"));
+        }
+    }
+
+    @Test
+    void testGet_Expired_ReturnNull() throws IOException {
+        try (MappedFileCodeCacheTier tier = new MappedFileCodeCacheTier(directory.resolve("codes.bin"), 64, 256, Duration.ofMillis(-1))) {
+            tier.put("abc", bytes("value"));
+
+            assertNull(tier.get("abc"));
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+}
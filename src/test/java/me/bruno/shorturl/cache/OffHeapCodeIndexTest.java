@@ -0,0 +1,72 @@
+package me.bruno.shorturl.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapCodeIndexTest {
+
+    @Test
+    void testGet_PutCode_ReturnEntry() {
+        OffHeapCodeIndex index = new OffHeapCodeIndex(16, 1024);
+
+        index.put("abc", "https://example.com", 301, 3600);
+
+        assertEquals(new OffHeapCodeIndex.Entry("abc", "https://example.com", 301, 3600), index.get("abc"));
+        assertNull(index.get("abd"));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void testPut_ExistingCode_Replace() {
+        OffHeapCodeIndex index = new OffHeapCodeIndex(16, 1024);
+
+        index.put("abc", "https://example.com", 302, -1);
+        index.put("abc", "https://example.org", 307, -1);
+
+        assertEquals("https://example.org", index.get("abc").redirectUrl());
+        assertEquals(307, index.get("abc").status());
+        assertEquals(1, index.size());
+        assertTrue(index.garbageBytes() > 0);
+    }
+
+    @Test
+    void testPutIfAbsent_RemovedCode_KeepTombstone() {
+        OffHeapCodeIndex index = new OffHeapCodeIndex(16, 1024);
+
+        index.remove("abc");
+        index.putIfAbsent("abc", "https://example.com", 302, -1);
+
+        assertNull(index.get("abc"));
+        assertEquals(0, index.size());
+
+        index.put("abc", "https://example.com", 302, -1);
+
+        assertNotNull(index.get("abc"));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void testPut_ManyCodes_GrowSlotsAndChunks() {
+        OffHeapCodeIndex index = new OffHeapCodeIndex(4, 256);
+
+        for (int i = 0; i < 10_000; i++) {
+            index.put("code" + i, "https://example.com/" + i, 302, i % 2 == 0 ? -1 : i);
+        }
+
+        assertEquals(10_000, index.size());
+        for (int i = 0; i < 10_000; i++) {
+            OffHeapCodeIndex.Entry entry = index.get("code" + i);
+            assertEquals("https://example.com/" + i, entry.redirectUrl());
+            assertEquals(i % 2 == 0 ? -1 : i, entry.cacheMaxAge());
+        }
+    }
+
+    @Test
+    void testPut_LargerThanChunk_ThrowException() {
+        OffHeapCodeIndex index = new OffHeapCodeIndex(16, 32);
+
+        assertThrows(IllegalArgumentException.class, () -> index.put("abc", "https://example.com/very/long/path", 302, -1));
+    }
+
+}
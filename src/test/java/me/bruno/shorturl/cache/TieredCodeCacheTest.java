@@ -0,0 +1,133 @@
+package me.bruno.shorturl.cache;
+
+import me.bruno.shorturl.entity.RedirectStatus;
+import me.bruno.shorturl.entity.ShortURLEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TieredCodeCacheTest {
+
+    InMemoryCodeCacheTier sharedTier;
+
+    Map<String, ShortURLEntity> database;
+
+    AtomicInteger loads;
+
+    TieredCodeCache cache;
+
+    @BeforeEach
+    void setUp() {
+        sharedTier = new InMemoryCodeCacheTier();
+        database = new HashMap<>();
+        loads = new AtomicInteger();
+        cache = new TieredCodeCache(code -> {
+            loads.incrementAndGet();
+            return database.get(code);
+        }, () -> sharedTier);
+
+        database.put("abc", ShortURLEntity.builder()
+                .id(UUID.randomUUID())
+                .code("abc")
+                .redirectUrl("http://localhost")
+                .redirectStatus(RedirectStatus.MOVED_PERMANENTLY)
+                .cacheMaxAge(60)
+                .createdAt(OffsetDateTime.now())
+                .build());
+    }
+
+    @Test
+    void testGet_LocalMiss_ReadThroughSharedTier() {
+        assertEquals("http://localhost", cache.get("abc").getRedirectUrl());
+        assertTrue(sharedTier.values.containsKey("abc"));
+
+        // Another node, with an empty local tier, reads from the shared tier
+        TieredCodeCache otherNode = new TieredCodeCache(code -> {
+            loads.incrementAndGet();
+            return database.get(code);
+        }, () -> sharedTier);
+
+        ShortURLEntity shortURLEntity = otherNode.get("abc");
+
+        assertEquals(database.get("abc").getId(), shortURLEntity.getId());
+        assertEquals(RedirectStatus.MOVED_PERMANENTLY, shortURLEntity.getRedirectStatus());
+        assertEquals(60, shortURLEntity.getCacheMaxAge());
+        assertEquals(1, loads.get());
+        assertEquals(1, otherNode.stats().sharedHits());
+        assertEquals(1, cache.stats().sharedMisses());
+    }
+
+    @Test
+    void testRemove_RemoveFromBothTiers() {
+        cache.get("abc");
+        database.remove("abc");
+
+        cache.remove("abc");
+
+        assertFalse(sharedTier.values.containsKey("abc"));
+        assertNull(cache.get("abc"));
+    }
+
+    @Test
+    void testInvalidateChanged_HostLocalTiers_RemoveFromOtherHostTier(@TempDir Path directory) throws IOException {
+        try (MappedFileCodeCacheTier firstHostTier = new MappedFileCodeCacheTier(directory.resolve("first.bin"), 64, 1024, Duration.ofMinutes(1));
+             MappedFileCodeCacheTier secondHostTier = new MappedFileCodeCacheTier(directory.resolve("second.bin"), 64, 1024, Duration.ofMinutes(1))) {
+            TieredCodeCache firstNode = new TieredCodeCache(database::get, () -> firstHostTier);
+            TieredCodeCache secondNode = new TieredCodeCache(database::get, () -> secondHostTier);
+
+            firstNode.get("abc");
+            secondNode.get("abc");
+
+            // The first node changes the link, only its host tier is updated
+            ShortURLEntity changed = ShortURLEntity.builder()
+                    .id(database.get("abc").getId())
+                    .code("abc")
+                    .redirectUrl("http://localhost/changed")
+                    .createdAt(OffsetDateTime.now())
+                    .build();
+            database.put("abc", changed);
+            firstNode.put(changed);
+
+            // The second node receives the change from the change log
+            secondNode.invalidateChanged("abc");
+
+            assertNull(secondHostTier.get("abc"));
+            assertEquals("http://localhost/changed", secondNode.get("abc").getRedirectUrl());
+        }
+    }
+
+    @Test
+    void testInvalidateChanged_SharedTier_KeepSharedEntry() {
+        cache.get("abc");
+
+        cache.invalidateChanged("abc");
+
+        assertTrue(sharedTier.values.containsKey("abc"));
+    }
+
+    @Test
+    void testGet_SharedTierFails_LoadFromDatabase() {
+        CodeCacheTier failingTier = new InMemoryCodeCacheTier() {
+            @Override
+            public byte[] get(String code) {
+                throw new IllegalStateException("connection refused");
+            }
+        };
+        cache = new TieredCodeCache(code -> database.get(code), () -> failingTier);
+
+        assertNotNull(cache.get("abc"));
+        assertEquals(1, cache.stats().sharedErrors());
+    }
+
+}
@@ -0,0 +1,124 @@
+package me.bruno.shorturl.click;
+
+import me.bruno.shorturl.repository.ClickRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ClickCounterTest {
+
+    @InjectMocks
+    ClickCounter clickCounter;
+
+    @Mock
+    ClickRepository clickRepository;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(clickCounter, "enabled", true);
+        ReflectionTestUtils.setField(clickCounter, "batchSize", 100);
+    }
+
+    @Test
+    void testFlush_WritePendingClicks() {
+        clickCounter.increment("123");
+        clickCounter.increment("123");
+        clickCounter.increment("456");
+
+        clickCounter.flush();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Map.Entry<String, Long>>> captor = ArgumentCaptor.forClass(List.class);
+        verify(clickRepository).addClicks(captor.capture(), eq(100));
+
+        Map<String, Long> flushed = captor.getValue().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        assertEquals(Map.of("123", 2L, "456", 1L), flushed);
+        assertEquals(0, clickCounter.getPending("123"));
+    }
+
+    @Test
+    void testFlush_NoClicks_DoNotWrite() {
+        clickCounter.flush();
+
+        verifyNoInteractions(clickRepository);
+    }
+
+    @Test
+    void testFlush_Failure_KeepClicks() {
+        doThrow(new RuntimeException("database is down"))
+                .when(clickRepository).addClicks(anyList(), anyInt());
+
+        clickCounter.increment("123");
+        clickCounter.flush();
+
+        assertEquals(1, clickCounter.getPending("123"));
+    }
+
+    @Test
+    void testIncrement_Disabled_DoNotCount() {
+        ReflectionTestUtils.setField(clickCounter, "enabled", false);
+
+        clickCounter.increment("123");
+
+        assertEquals(0, clickCounter.getPending("123"));
+    }
+
+    @Test
+    void testFlush_ConcurrentIncrements_DoNotLoseClicks() throws Exception {
+        AtomicLong flushed = new AtomicLong();
+        doAnswer(invocation -> {
+            List<Map.Entry<String, Long>> pending = invocation.getArgument(0);
+            pending.forEach(entry -> flushed.addAndGet(entry.getValue()));
+            return null;
+        }).when(clickRepository).addClicks(anyList(), anyInt());
+
+        int threads = 4;
+        int clicks = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < clicks; j++) {
+                    // Few clicks per code, so the counters are often idle and removed
+                    clickCounter.increment(String.valueOf(j % 64));
+                }
+            }));
+        }
+
+        while (futures.stream().anyMatch(future -> !future.isDone())) {
+            clickCounter.flush();
+        }
+
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        executor.shutdown();
+        clickCounter.flush();
+
+        assertEquals((long) threads * clicks, flushed.get());
+    }
+
+}
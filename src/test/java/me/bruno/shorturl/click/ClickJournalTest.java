@@ -0,0 +1,102 @@
+package me.bruno.shorturl.click;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClickJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRingBuffer_Full_DropEvents() {
+        ClickEventRingBuffer buffer = new ClickEventRingBuffer(2);
+
+        assertTrue(buffer.offer(1, "a", null, null, null));
+        assertTrue(buffer.offer(2, "b", null, null, null));
+        assertFalse(buffer.offer(3, "c", null, null, null));
+
+        List<String> codes = new ArrayList<>();
+        assertEquals(2, buffer.drain((timestamp, code, referrer, userAgent, clientIp) -> codes.add(code), 10));
+        assertEquals(List.of("a", "b"), codes);
+
+        assertTrue(buffer.offer(4, "d", null, null, null));
+    }
+
+    @Test
+    void testRingBuffer_HandlerThrows_ConsumeEvent() {
+        ClickEventRingBuffer buffer = new ClickEventRingBuffer(2);
+
+        assertTrue(buffer.offer(1, "a", null, null, null));
+        assertTrue(buffer.offer(2, "b", null, null, null));
+
+        assertThrows(IllegalStateException.class, () -> buffer.drain((timestamp, code, referrer, userAgent, clientIp) -> {
+            throw new IllegalStateException("disk is full");
+        }, 10));
+
+        List<String> codes = new ArrayList<>();
+        assertEquals(1, buffer.drain((timestamp, code, referrer, userAgent, clientIp) -> codes.add(code), 10));
+        assertEquals(List.of("b"), codes);
+        assertTrue(buffer.offer(3, "c", null, null, null));
+    }
+
+    @Test
+    void testRingBuffer_ThrowException_WhenCapacityIsNotPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new ClickEventRingBuffer(3));
+    }
+
+    @Test
+    void testSegmentWriter_WriteAndRead() throws IOException {
+        try (ClickJournalSegmentWriter writer = new ClickJournalSegmentWriter(directory, 4096, Duration.ofHours(1))) {
+            assertTrue(writer.append(1000, "123", "http://localhost/page", 11, 22));
+            assertTrue(writer.append(2000, "456", null, 0, 0));
+        }
+
+        List<ClickJournalReader.ClickRecord> records = new ArrayList<>();
+        assertEquals(2, ClickJournalReader.read(singleSegment(), records::add));
+
+        assertEquals(new ClickJournalReader.ClickRecord(1000, "123", "http://localhost/page", 11, 22), records.get(0));
+        assertEquals(new ClickJournalReader.ClickRecord(2000, "456", null, 0, 0), records.get(1));
+    }
+
+    @Test
+    void testSegmentWriter_SegmentFull_Roll() throws IOException {
+        try (ClickJournalSegmentWriter writer = new ClickJournalSegmentWriter(directory, 128, Duration.ofHours(1))) {
+            for (int i = 0; i < 10; i++) {
+                assertTrue(writer.append(i, "code" + i, null, 0, 0));
+            }
+        }
+
+        long records = 0;
+        try (Stream<Path> segments = Files.list(directory)) {
+            List<Path> files = segments.toList();
+            assertTrue(files.size() > 1);
+
+            for (Path file : files) {
+                records += ClickJournalReader.read(file, record -> {
+                });
+            }
+        }
+
+        assertEquals(10, records);
+    }
+
+    private Path singleSegment() throws IOException {
+        try (Stream<Path> segments = Files.list(directory)) {
+            List<Path> files = segments.toList();
+            assertEquals(1, files.size());
+            return files.get(0);
+        }
+    }
+
+}
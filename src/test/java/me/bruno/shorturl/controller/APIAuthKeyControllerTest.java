@@ -2,6 +2,7 @@ package me.bruno.shorturl.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import me.bruno.shorturl.dto.APIAuthKeyDTO;
+import me.bruno.shorturl.dto.CursorPageDTO;
 import me.bruno.shorturl.entity.APIAuthKeyEntity;
 import me.bruno.shorturl.service.APIAuthKeyService;
 import org.hamcrest.Matchers;
@@ -22,6 +23,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -167,8 +169,8 @@ public class APIAuthKeyControllerTest {
 
     @Test
     void testListAPIAuthKey_Successfull_ReturnListAPIAuthKey() throws Exception {
-        when(apiAuthKeyService.getAll())
-                .thenReturn(List.of(apiAuthKeyEntity));
+        when(apiAuthKeyService.getPage(isNull(), eq(100)))
+                .thenReturn(new CursorPageDTO<>(List.of(apiAuthKeyEntity), null));
 
         when(apiAuthKeyService.validateKey(eq("password")))
                 .thenReturn(true);
@@ -179,8 +181,22 @@ public class APIAuthKeyControllerTest {
                                 .header("API-Key", "password")
                 )
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].key", Matchers.is(apiAuthKeyEntity.getKey())))
-                .andExpect(jsonPath("$[0].name", Matchers.is(apiAuthKeyEntity.getName())));
+                .andExpect(jsonPath("$.items[0].key", Matchers.is(apiAuthKeyEntity.getKey())))
+                .andExpect(jsonPath("$.items[0].name", Matchers.is(apiAuthKeyEntity.getName())))
+                .andExpect(jsonPath("$.nextCursor", Matchers.nullValue()));
+    }
+
+    @Test
+    void testListAPIAuthKey_InvalidLimit_ReturnBadRequest() throws Exception {
+        when(apiAuthKeyService.validateKey(eq("password")))
+                .thenReturn(true);
+
+        mvc.perform(
+                        get("/api/v1/auth")
+                                .param("limit", "0")
+                                .header("API-Key", "password")
+                )
+                .andExpect(status().isBadRequest());
     }
 
 }
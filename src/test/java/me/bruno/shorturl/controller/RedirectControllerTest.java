@@ -1,5 +1,6 @@
 package me.bruno.shorturl.controller;
 
+import me.bruno.shorturl.click.ClickCounter;
 import me.bruno.shorturl.entity.ShortURLEntity;
 import me.bruno.shorturl.service.ShortURLService;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,6 +15,8 @@ import java.time.OffsetDateTime;
 import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
@@ -29,6 +32,9 @@ public class RedirectControllerTest {
     @MockBean
     ShortURLService shortURLService;
 
+    @MockBean
+    ClickCounter clickCounter;
+
     ShortURLEntity shortURLEntity;
 
     @BeforeEach
@@ -54,6 +60,8 @@ public class RedirectControllerTest {
         mvc.perform(get("/" + code))
                 .andExpect(status().isFound())
                 .andExpect(redirectedUrl(shortURLEntity.getRedirectUrl()));
+
+        verify(clickCounter).increment(eq(code));
     }
 
     @Test
@@ -89,6 +97,8 @@ public class RedirectControllerTest {
 
         mvc.perform(get("/" + code))
                 .andExpect(status().isNotFound());
+
+        verify(clickCounter, never()).increment(eq(code));
     }
 
 }
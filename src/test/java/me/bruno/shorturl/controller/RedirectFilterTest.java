@@ -0,0 +1,142 @@
+package me.bruno.shorturl.controller;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import me.bruno.shorturl.click.ClickCounter;
+import me.bruno.shorturl.click.ClickJournal;
+import me.bruno.shorturl.entity.RedirectStatus;
+import me.bruno.shorturl.entity.ShortURLEntity;
+import me.bruno.shorturl.metrics.RedirectMetrics;
+import me.bruno.shorturl.service.ShortURLService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RedirectFilterTest {
+
+    @InjectMocks
+    RedirectFilter redirectFilter;
+
+    @Mock
+    ShortURLService shortURLService;
+
+    @Mock
+    ClickCounter clickCounter;
+
+    @Mock
+    ClickJournal clickJournal;
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    RedirectMetrics redirectMetrics = new RedirectMetrics(meterRegistry);
+
+    ShortURLEntity shortURLEntity;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(redirectFilter, "enabled", true);
+
+        shortURLEntity = ShortURLEntity.builder()
+                .id(UUID.randomUUID())
+                .code("123")
+                .redirectUrl("http://localhost")
+                .note("note")
+                .createdAt(OffsetDateTime.now())
+                .updatedAt(OffsetDateTime.now())
+                .deletedAt(null)
+                .build();
+    }
+
+    @Test
+    void testFilter_ValidCode_RedirectWithoutChain() throws Exception {
+        when(shortURLService.getByCode("123"))
+                .thenReturn(shortURLEntity);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        redirectFilter.doFilter(new MockHttpServletRequest("GET", "/123"), response, chain);
+
+        assertEquals(302, response.getStatus());
+        assertEquals("http://localhost", response.getHeader("Location"));
+        assertEquals(RedirectHeaders.NO_CACHE, response.getHeader("Cache-Control"));
+        assertNull(chain.getRequest());
+        verify(clickCounter).increment("123");
+        assertEquals(1, meterRegistry.get("shorturl.redirects").tags("outcome", "hit", "path", "fast").timer().count());
+    }
+
+    @Test
+    void testFilter_PermanentCacheable_WriteStatusAndCacheControl() throws Exception {
+        shortURLEntity.setRedirectStatus(RedirectStatus.PERMANENT_REDIRECT);
+        shortURLEntity.setCacheMaxAge(3600);
+
+        when(shortURLService.getByCode("123"))
+                .thenReturn(shortURLEntity);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        redirectFilter.doFilter(new MockHttpServletRequest("GET", "/123"), response, new MockFilterChain());
+
+        assertEquals(308, response.getStatus());
+        assertEquals("public, max-age=3600", response.getHeader("Cache-Control"));
+    }
+
+    @Test
+    void testFilter_UnknownCode_ContinueChain() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+
+        redirectFilter.doFilter(new MockHttpServletRequest("GET", "/unknown"), new MockHttpServletResponse(), chain);
+
+        assertNotNull(chain.getRequest());
+        verify(clickCounter, never()).increment(any());
+    }
+
+    @Test
+    void testFilter_DeletedCode_ContinueChain() throws Exception {
+        shortURLEntity.setDeletedAt(OffsetDateTime.now());
+
+        when(shortURLService.getByCode("123"))
+                .thenReturn(shortURLEntity);
+
+        MockFilterChain chain = new MockFilterChain();
+
+        redirectFilter.doFilter(new MockHttpServletRequest("GET", "/123"), new MockHttpServletResponse(), chain);
+
+        assertNotNull(chain.getRequest());
+    }
+
+    @Test
+    void testFilter_OtherRequests_ContinueChainWithoutLookup() throws Exception {
+        for (MockHttpServletRequest request : new MockHttpServletRequest[]{
+                new MockHttpServletRequest("POST", "/123"),
+                new MockHttpServletRequest("GET", "/api/v1/shorturl"),
+                new MockHttpServletRequest("GET", "/12%203"),
+                new MockHttpServletRequest("GET", "/")
+        }) {
+            MockFilterChain chain = new MockFilterChain();
+
+            redirectFilter.doFilter(request, new MockHttpServletResponse(), chain);
+
+            assertNotNull(chain.getRequest());
+        }
+
+        verifyNoInteractions(shortURLService);
+    }
+
+}
@@ -1,8 +1,14 @@
 package me.bruno.shorturl.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import me.bruno.shorturl.dto.CursorPageDTO;
+import me.bruno.shorturl.dto.ShortURLBatchResultDTO;
 import me.bruno.shorturl.dto.ShortURLDTO;
+import me.bruno.shorturl.entity.RedirectStatus;
 import me.bruno.shorturl.entity.ShortURLEntity;
+import me.bruno.shorturl.repository.KeysetCursor;
+import me.bruno.shorturl.repository.ShortURLFilter;
+import me.bruno.shorturl.repository.ShortURLStatus;
 import me.bruno.shorturl.service.APIAuthKeyService;
 import me.bruno.shorturl.service.ShortURLService;
 import org.hamcrest.Matchers;
@@ -22,8 +28,10 @@ import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -96,6 +104,67 @@ public class ShortURLControllerTest {
                 .andExpect(status().isForbidden());
     }
 
+    @Test
+    void testCreateBatch_Successfull_ReturnResults() throws Exception {
+        when(shortURLService.saveAll(any(), eq(0)))
+                .thenReturn(List.of(
+                        ShortURLBatchResultDTO.created(0, shortURLEntity.getId(), shortURLEntity.getCode()),
+                        ShortURLBatchResultDTO.failed(1, "code already exists")
+                ));
+
+        when(apiAuthKeyService.validateKey(eq("password")))
+                .thenReturn(true);
+
+        mvc.perform(
+                        post("/api/v1/shorturl/batch")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(mapper.writeValueAsString(List.of(shortURLDTO, shortURLDTO)))
+                                .header("API-Key", "password")
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", Matchers.hasSize(2)))
+                .andExpect(jsonPath("$[0].created").value(true))
+                .andExpect(jsonPath("$[0].code").value(shortURLEntity.getCode()))
+                .andExpect(jsonPath("$[1].created").value(false))
+                .andExpect(jsonPath("$[1].error").value("code already exists"));
+    }
+
+    @Test
+    void testCreateBatchStream_Successfull_ReturnNDJSONResults() throws Exception {
+        when(shortURLService.saveAll(any(), eq(0)))
+                .thenReturn(List.of(
+                        ShortURLBatchResultDTO.created(0, shortURLEntity.getId(), shortURLEntity.getCode()),
+                        ShortURLBatchResultDTO.failed(1, "item is null")
+                ));
+
+        when(apiAuthKeyService.validateKey(eq("password")))
+                .thenReturn(true);
+
+        String body = mapper.writeValueAsString(shortURLDTO) + "\n" + "not json" + "\n";
+
+        String response = mvc.perform(
+                        post("/api/v1/shorturl/batch")
+                                .contentType(MediaType.APPLICATION_NDJSON)
+                                .content(body)
+                                .header("API-Key", "password")
+                )
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(2, response.lines().count());
+        assertTrue(response.lines().skip(1).findFirst().orElseThrow().contains("invalid JSON"));
+
+        ArgumentCaptor<List<ShortURLDTO>> captor = ArgumentCaptor.forClass(List.class);
+        verify(shortURLService).saveAll(captor.capture(), eq(0));
+
+        assertEquals(2, captor.getValue().size());
+        assertEquals(shortURLDTO.getCode(), captor.getValue().get(0).getCode());
+        assertNull(captor.getValue().get(1));
+    }
+
     @Test
     void testCreateAndSaveShortURL_Successfull_ReturnCreated() throws Exception {
         UUID uuid = shortURLEntity.getId();
@@ -126,6 +195,48 @@ public class ShortURLControllerTest {
         assertEquals(shortURLDTO.getNote(), capturedShortURLDTO.getNote());
     }
 
+    @Test
+    void testCreateShortURL_Dedupe_ReturnExisting() throws Exception {
+        when(shortURLService.saveOrReuse(any()))
+                .thenReturn(new ShortURLService.ReuseResult(shortURLEntity, true));
+
+        when(apiAuthKeyService.validateKey(eq("password")))
+                .thenReturn(true);
+
+        mvc.perform(
+                        post("/api/v1/shorturl")
+                                .param("dedupe", "true")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(mapper.writeValueAsString(shortURLDTO))
+                                .header("API-Key", "password")
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.code").value(shortURLEntity.getCode()));
+
+        verify(shortURLService, never()).save(any());
+    }
+
+    @Test
+    void testCreateShortURL_DedupeNotFound_Created() throws Exception {
+        when(shortURLService.saveOrReuse(any()))
+                .thenReturn(new ShortURLService.ReuseResult(shortURLEntity, false));
+
+        when(apiAuthKeyService.validateKey(eq("password")))
+                .thenReturn(true);
+
+        mvc.perform(
+                        post("/api/v1/shorturl")
+                                .param("dedupe", "true")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(mapper.writeValueAsString(shortURLDTO))
+                                .header("API-Key", "password")
+                )
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.code").value(shortURLEntity.getCode()));
+
+        verify(shortURLService, never()).save(any());
+    }
+
     @Test
     void testGetById_Successfull_ReturnShortURL() throws Exception {
         UUID uuid = shortURLEntity.getId();
@@ -152,7 +263,7 @@ public class ShortURLControllerTest {
     void testGetByCode_Successfull_ReturnShortURL() throws Exception {
         String code = shortURLEntity.getCode();
 
-        when(shortURLService.getByCode(eq(code)))
+        when(shortURLService.getDetailsByCode(eq(code)))
                 .thenReturn(shortURLEntity);
 
         when(apiAuthKeyService.validateKey(eq("password")))
@@ -219,15 +330,36 @@ public class ShortURLControllerTest {
                 .andExpect(jsonPath("$.code", Matchers.is(shortURLEntity.getCode())))
                 .andExpect(jsonPath("$.redirectUrl", Matchers.is(shortURLEntity.getRedirectUrl())))
                 .andExpect(jsonPath("$.note", Matchers.is(shortURLEntity.getNote())))
+                .andExpect(jsonPath("$.cacheableDownstream", Matchers.is(false)))
         ;
 
         verify(shortURLService, times(1)).removeById(eq(uuid));
     }
 
+    @Test
+    void testDeleteByIdShortURL_Permanent_FlagCacheableDownstream() throws Exception {
+        UUID uuid = shortURLEntity.getId();
+        shortURLEntity.setRedirectStatus(RedirectStatus.MOVED_PERMANENTLY);
+
+        when(shortURLService.getById(eq(uuid)))
+                .thenReturn(shortURLEntity);
+
+        when(apiAuthKeyService.validateKey(eq("password")))
+                .thenReturn(true);
+
+        mvc.perform(
+                        delete("/api/v1/shorturl/" + uuid)
+                                .header("API-Key", "password")
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.redirectStatus", Matchers.is(301)))
+                .andExpect(jsonPath("$.cacheableDownstream", Matchers.is(true)));
+    }
+
     @Test
     void testListShortURL_Successfull_ReturnListShortURL() throws Exception {
-        when(shortURLService.getAll())
-                .thenReturn(List.of(shortURLEntity));
+        when(shortURLService.getPage(any(), isNull(), eq(100)))
+                .thenReturn(new CursorPageDTO<>(List.of(shortURLEntity), "next"));
 
         when(apiAuthKeyService.validateKey(eq("password")))
                 .thenReturn(true);
@@ -238,10 +370,68 @@ public class ShortURLControllerTest {
                                 .header("API-Key", "password")
                 )
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].id", Matchers.is(shortURLEntity.getId().toString())))
-                .andExpect(jsonPath("$[0].code", Matchers.is(shortURLEntity.getCode())))
-                .andExpect(jsonPath("$[0].redirectUrl", Matchers.is(shortURLEntity.getRedirectUrl())))
-                .andExpect(jsonPath("$[0].note", Matchers.is(shortURLEntity.getNote())));
+                .andExpect(jsonPath("$.items[0].id", Matchers.is(shortURLEntity.getId().toString())))
+                .andExpect(jsonPath("$.items[0].code", Matchers.is(shortURLEntity.getCode())))
+                .andExpect(jsonPath("$.items[0].redirectUrl", Matchers.is(shortURLEntity.getRedirectUrl())))
+                .andExpect(jsonPath("$.items[0].note", Matchers.is(shortURLEntity.getNote())))
+                .andExpect(jsonPath("$.nextCursor", Matchers.is("next")));
+    }
+
+    @Test
+    void testListShortURL_Filtered_PassFilterAndCursor() throws Exception {
+        KeysetCursor cursor = KeysetCursor.of(shortURLEntity.getCreatedAt(), shortURLEntity.getId().toString());
+
+        when(shortURLService.getPage(any(), any(), eq(10)))
+                .thenReturn(new CursorPageDTO<>(List.of(), null));
+
+        when(apiAuthKeyService.validateKey(eq("password")))
+                .thenReturn(true);
+
+        mvc.perform(
+                        get("/api/v1/shorturl")
+                                .param("cursor", cursor.encode())
+                                .param("limit", "10")
+                                .param("status", "ACTIVE")
+                                .param("createdFrom", "2023-01-01T00:00:00Z")
+                                .header("API-Key", "password")
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", Matchers.hasSize(0)));
+
+        ArgumentCaptor<ShortURLFilter> filterCaptor = ArgumentCaptor.forClass(ShortURLFilter.class);
+        ArgumentCaptor<KeysetCursor> cursorCaptor = ArgumentCaptor.forClass(KeysetCursor.class);
+        verify(shortURLService).getPage(filterCaptor.capture(), cursorCaptor.capture(), eq(10));
+
+        assertEquals(ShortURLStatus.ACTIVE, filterCaptor.getValue().getStatus());
+        assertEquals(2023, filterCaptor.getValue().getCreatedFrom().getYear());
+        assertNull(filterCaptor.getValue().getCreatedTo());
+        assertEquals(shortURLEntity.getId().toString(), cursorCaptor.getValue().getId());
+    }
+
+    @Test
+    void testListShortURL_InvalidCursor_ReturnBadRequest() throws Exception {
+        when(apiAuthKeyService.validateKey(eq("password")))
+                .thenReturn(true);
+
+        mvc.perform(
+                        get("/api/v1/shorturl")
+                                .param("cursor", "invalid")
+                                .header("API-Key", "password")
+                )
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testListShortURL_TamperedCursorId_ReturnBadRequest() throws Exception {
+        when(apiAuthKeyService.validateKey(eq("password")))
+                .thenReturn(true);
+
+        mvc.perform(
+                        get("/api/v1/shorturl")
+                                .param("cursor", KeysetCursor.of(shortURLEntity.getCreatedAt(), "1 OR 1=1").encode())
+                                .header("API-Key", "password")
+                )
+                .andExpect(status().isBadRequest());
     }
 
 }
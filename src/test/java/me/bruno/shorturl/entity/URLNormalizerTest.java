@@ -0,0 +1,35 @@
+package me.bruno.shorturl.entity;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class URLNormalizerTest {
+
+    @Test
+    void testNormalize_SchemeHostAndDefaultPort_Normalized() {
+        assertEquals("https://example.com/", URLNormalizer.normalize(" HTTPS://Example.COM:443 "));
+        assertEquals("http://example.com/a?b=1#c", URLNormalizer.normalize("http://EXAMPLE.com:80/a?b=1#c"));
+        assertEquals("http://example.com:8080/A", URLNormalizer.normalize("http://example.com:8080/A"));
+    }
+
+    @Test
+    void testNormalize_PathQueryAndFragment_Kept() {
+        assertNotEquals(URLNormalizer.normalize("https://example.com/a"), URLNormalizer.normalize("https://example.com/A"));
+        assertNotEquals(URLNormalizer.normalize("https://example.com/?a=1&b=2"), URLNormalizer.normalize("https://example.com/?b=2&a=1"));
+        assertNotEquals(URLNormalizer.normalize("https://example.com/#a"), URLNormalizer.normalize("https://example.com/#b"));
+    }
+
+    @Test
+    void testNormalize_NotHierarchical_Trimmed() {
+        assertEquals("mailto:someone@example.com", URLNormalizer.normalize(" mailto:someone@example.com"));
+        assertEquals("not a url", URLNormalizer.normalize("not a url "));
+    }
+
+    @Test
+    void testHash_SameDestination_SameHash() {
+        assertEquals(URLNormalizer.hash("https://example.com"), URLNormalizer.hash("https://EXAMPLE.com:443/"));
+        assertNotEquals(URLNormalizer.hash("https://example.com/a"), URLNormalizer.hash("https://example.com/b"));
+    }
+
+}
@@ -0,0 +1,51 @@
+package me.bruno.shorturl.generator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SequenceCodeEncoderTest {
+
+    @Test
+    void testEncode_Scrambled_ReturnUniqueCodes() {
+        SequenceCodeEncoder encoder = new SequenceCodeEncoder(true, 0x5DEECE66DL);
+        Set<String> codes = new HashSet<>();
+
+        for (long value = 0; value < 100_000; value++) {
+            String code = encoder.encode(value);
+
+            assertEquals(6, code.length());
+            assertTrue(code.chars().allMatch(Character::isLetterOrDigit));
+            assertTrue(codes.add(code));
+        }
+    }
+
+    @Test
+    void testEncode_NotScrambled_ReturnSequentialCodes() {
+        SequenceCodeEncoder encoder = new SequenceCodeEncoder(false, 0);
+
+        assertEquals("000000", encoder.encode(0));
+        assertEquals("00000z", encoder.encode(61));
+        assertEquals("000010", encoder.encode(62));
+    }
+
+    @Test
+    void testEncode_TierBoundary_IncreaseLength() {
+        SequenceCodeEncoder encoder = new SequenceCodeEncoder(true, 0);
+        long capacity = 1L << SequenceCodeEncoder.bitsFor(6);
+
+        assertEquals(6, encoder.encode(capacity - 1).length());
+        assertEquals(7, encoder.encode(capacity).length());
+    }
+
+    @Test
+    void testEncode_ThrowException_WhenNegative() {
+        SequenceCodeEncoder encoder = new SequenceCodeEncoder(true, 0);
+
+        assertThrows(IllegalArgumentException.class, () -> encoder.encode(-1));
+    }
+
+}
@@ -0,0 +1,39 @@
+package me.bruno.shorturl.generator;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SequenceCodeGeneratorTest {
+
+    @Test
+    void testInit_SequenceWithDefaultKey_Throws() {
+        SequenceCodeGenerator generator = generator(CodeGeneratorType.SEQUENCE, true, 0);
+
+        assertThrows(IllegalStateException.class, generator::init);
+    }
+
+    @Test
+    void testInit_SequenceWithKey_DoesNotThrow() {
+        SequenceCodeGenerator generator = generator(CodeGeneratorType.SEQUENCE, true, 8191);
+
+        assertDoesNotThrow(generator::init);
+    }
+
+    @Test
+    void testInit_OtherGeneratorOrNotScrambled_DoesNotThrow() {
+        assertDoesNotThrow(generator(CodeGeneratorType.RANDOM, true, 0)::init);
+        assertDoesNotThrow(generator(CodeGeneratorType.SEQUENCE, false, 0)::init);
+    }
+
+    private static SequenceCodeGenerator generator(CodeGeneratorType type, boolean scramble, long key) {
+        SequenceCodeGenerator generator = new SequenceCodeGenerator();
+        ReflectionTestUtils.setField(generator, "codeGenerator", type);
+        ReflectionTestUtils.setField(generator, "scramble", scramble);
+        ReflectionTestUtils.setField(generator, "scrambleKey", key);
+        return generator;
+    }
+
+}
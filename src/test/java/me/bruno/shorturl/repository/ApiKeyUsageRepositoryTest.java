@@ -0,0 +1,79 @@
+package me.bruno.shorturl.repository;
+
+import me.bruno.shorturl.entity.APIKeyUsageEntity;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@ActiveProfiles("test")
+public class ApiKeyUsageRepositoryTest {
+
+    @Autowired
+    ApiKeyUsageRepository apiKeyUsageRepository;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Test
+    void testAddCreates_ExistingUsage_AddToCreates() {
+        LocalDate today = LocalDate.now();
+        save("abc", today, 2);
+
+        int updated = apiKeyUsageRepository.addCreates(APIKeyUsageEntity.id("abc", today), 3);
+        entityManager.clear();
+
+        assertEquals(1, updated);
+        assertEquals(5, apiKeyUsageRepository.findById(APIKeyUsageEntity.id("abc", today)).orElseThrow().getCreates());
+    }
+
+    @Test
+    void testAddCreates_NoUsage_ReturnZero() {
+        int updated = apiKeyUsageRepository.addCreates(APIKeyUsageEntity.id("abc", LocalDate.now()), 3);
+
+        assertEquals(0, updated);
+    }
+
+    @Test
+    void testFindByDay_ReturnUsageOfDay() {
+        LocalDate today = LocalDate.now();
+        save("abc", today, 1);
+        save("def", today, 2);
+        save("abc", today.minusDays(1), 3);
+
+        List<APIKeyUsageEntity> usages = apiKeyUsageRepository.findByDay(today);
+
+        assertEquals(2, usages.size());
+        assertEquals(3, usages.stream().mapToLong(APIKeyUsageEntity::getCreates).sum());
+    }
+
+    @Test
+    void testDeleteDaysBefore_KeepToday() {
+        LocalDate today = LocalDate.now();
+        save("abc", today, 1);
+        save("abc", today.minusDays(1), 3);
+
+        int deleted = apiKeyUsageRepository.deleteDaysBefore(today);
+        entityManager.clear();
+
+        assertEquals(1, deleted);
+        assertEquals(1, apiKeyUsageRepository.count());
+    }
+
+    private void save(String key, LocalDate day, long creates) {
+        apiKeyUsageRepository.saveAndFlush(APIKeyUsageEntity.builder()
+                .id(APIKeyUsageEntity.id(key, day))
+                .key(key)
+                .day(day)
+                .creates(creates)
+                .build());
+    }
+
+}
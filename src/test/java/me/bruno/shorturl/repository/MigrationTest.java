@@ -0,0 +1,86 @@
+package me.bruno.shorturl.repository;
+
+import me.bruno.shorturl.entity.ShortURLEntity;
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Migrations of src/main/resources/db/migration, the other tests create the schema with Hibernate
+ * The context starts only if Hibernate validates the schema created by Flyway against the entities.
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.datasource.url=jdbc:h2:mem:migration;DB_CLOSE_DELAY=-1"
+})
+public class MigrationTest {
+
+    @Autowired
+    Flyway flyway;
+
+    @Autowired
+    ShortURLRepository shortURLRepository;
+
+    @Test
+    void testMigrate_EmptyDatabase_SchemaMatchesEntities() {
+        assertEquals(0, flyway.info().pending().length);
+        assertEquals("4", flyway.info().current().getVersion().getVersion());
+
+        ShortURLEntity shortURL = shortURLRepository.saveAndFlush(ShortURLEntity.builder()
+                .code("migrated")
+                .redirectUrl("http://localhost")
+                .createdAt(OffsetDateTime.now())
+                .updatedAt(OffsetDateTime.now())
+                .build());
+
+        assertEquals(shortURL.getId(), shortURLRepository.findByCodeAndDeletedAtIsNull("migrated").orElseThrow().getId());
+    }
+
+    @Test
+    void testMigrate_BaselinedDatabase_KeepNewestValidCode() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:baseline;DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        // Database created by Hibernate before migrations, with a code taken twice
+        jdbcTemplate.execute("RUNSCRIPT FROM 'classpath:db/migration/V1__baseline.sql'");
+        UUID older = insert(jdbcTemplate, "abc", OffsetDateTime.now().minusDays(1));
+        UUID newer = insert(jdbcTemplate, "abc", OffsetDateTime.now());
+
+        Flyway.configure()
+                .dataSource(dataSource)
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+
+        List<Map<String, Object>> valid = jdbcTemplate.queryForList(
+                "SELECT id, active_code, redirect_status, clicks FROM short_url WHERE deleted_at IS NULL");
+
+        assertEquals(1, valid.size());
+        assertEquals(newer, valid.get(0).get("ID"));
+        assertEquals("abc", valid.get(0).get("ACTIVE_CODE"));
+        assertEquals(302, valid.get(0).get("REDIRECT_STATUS"));
+        assertEquals(0L, valid.get(0).get("CLICKS"));
+        assertNull(jdbcTemplate.queryForObject("SELECT active_code FROM short_url WHERE id = ?", String.class, older));
+    }
+
+    private static UUID insert(JdbcTemplate jdbcTemplate, String code, OffsetDateTime createdAt) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO short_url (id, code, redirect_url, created_at, updated_at) VALUES (?, ?, ?, ?, ?)",
+                id, code, "http://localhost", createdAt, createdAt);
+        return id;
+    }
+
+}
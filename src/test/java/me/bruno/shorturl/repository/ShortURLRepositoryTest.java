@@ -1,12 +1,16 @@
 package me.bruno.shorturl.repository;
 
+import me.bruno.shorturl.entity.RedirectStatus;
 import me.bruno.shorturl.entity.ShortURLEntity;
+import me.bruno.shorturl.entity.URLNormalizer;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -79,4 +83,79 @@ public class ShortURLRepositoryTest {
         assertTrue(shortURLOptional.isEmpty());
     }
 
+    @Test
+    void testFindExistingCodes() {
+        shortURLRepository.save(ShortURLEntity.builder()
+                .code("123")
+                .redirectUrl("http://localhost")
+                .note("note")
+                .deletedAt(null)
+                .build());
+
+        shortURLRepository.save(ShortURLEntity.builder()
+                .code("456")
+                .redirectUrl("http://localhost")
+                .note("note")
+                .deletedAt(OffsetDateTime.now())
+                .build());
+
+        List<String> existingCodes = shortURLRepository.findExistingCodes(List.of("123", "456", "789"));
+
+        assertEquals(2, existingCodes.size());
+        assertTrue(existingCodes.containsAll(List.of("123", "456")));
+    }
+
+    @Test
+    void testFindPage_KeysetPagination() {
+        OffsetDateTime now = OffsetDateTime.now();
+        for (int i = 0; i < 5; i++) {
+            shortURLRepository.save(ShortURLEntity.builder()
+                    .code("code" + i)
+                    .redirectUrl("http://localhost")
+                    .note("note")
+                    .deletedAt(i == 4 ? now : null)
+                    .build());
+        }
+
+        ShortURLFilter active = ShortURLFilter.builder().status(ShortURLStatus.ACTIVE).build();
+
+        List<ShortURLEntity> firstPage = shortURLRepository.findPage(active, null, 2);
+        assertEquals(2, firstPage.size());
+
+        ShortURLEntity last = firstPage.get(1);
+        KeysetCursor cursor = KeysetCursor.decode(KeysetCursor.of(last.getCreatedAt(), last.getId().toString()).encode());
+
+        List<ShortURLEntity> secondPage = shortURLRepository.findPage(active, cursor, 2);
+        assertEquals(2, secondPage.size());
+        assertTrue(secondPage.stream().noneMatch(firstPage::contains));
+
+        List<ShortURLEntity> deleted = shortURLRepository.findPage(
+                ShortURLFilter.builder().status(ShortURLStatus.DELETED).build(), null, 10);
+        assertEquals(1, deleted.size());
+        assertEquals("code4", deleted.get(0).getCode());
+    }
+
+    @Test
+    void testFindReusable_FilterRedirectSettingsAndDates() {
+        String url = "https://example.com/reuse";
+        shortURLRepository.save(ShortURLEntity.builder().code("reuse1").redirectUrl(url).build());
+        shortURLRepository.save(ShortURLEntity.builder().code("reuse2").redirectUrl(url).build());
+        shortURLRepository.save(ShortURLEntity.builder().code("permanent").redirectUrl(url).redirectStatus(RedirectStatus.MOVED_PERMANENTLY).build());
+        shortURLRepository.save(ShortURLEntity.builder().code("cached").redirectUrl(url).cacheMaxAge(60).build());
+        shortURLRepository.save(ShortURLEntity.builder().code("expiring").redirectUrl(url).expiresAt(OffsetDateTime.now().plusDays(1)).build());
+        shortURLRepository.save(ShortURLEntity.builder().code("deleted").redirectUrl(url).deletedAt(OffsetDateTime.now()).build());
+
+        long hash = URLNormalizer.hash(url);
+
+        List<ShortURLEntity> found = shortURLRepository.findReusable(hash, RedirectStatus.FOUND, -1, PageRequest.of(0, 1));
+        assertEquals(1, found.size());
+        assertTrue(found.get(0).getCode().startsWith("reuse"));
+
+        assertEquals(2, shortURLRepository.findReusable(hash, RedirectStatus.FOUND, -1, PageRequest.of(0, 10)).size());
+        assertEquals(List.of("permanent"), shortURLRepository.findReusable(hash, RedirectStatus.MOVED_PERMANENTLY, -1, PageRequest.of(0, 10))
+                .stream().map(ShortURLEntity::getCode).toList());
+        assertEquals(List.of("cached"), shortURLRepository.findReusable(hash, RedirectStatus.FOUND, 60, PageRequest.of(0, 10))
+                .stream().map(ShortURLEntity::getCode).toList());
+    }
+
 }
@@ -0,0 +1,95 @@
+package me.bruno.shorturl.security;
+
+import me.bruno.shorturl.entity.APIAuthKeyEntity;
+import me.bruno.shorturl.entity.APIKeyUsageEntity;
+import me.bruno.shorturl.repository.ApiKeyUsageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class APIKeyLimiterTest {
+
+    @InjectMocks
+    APIKeyLimiter apiKeyLimiter;
+
+    @Mock
+    ApiKeyUsageRepository apiKeyUsageRepository;
+
+    @Mock
+    TransactionTemplate transactionTemplate;
+
+    APIAuthKeyEntity apiAuthKeyEntity;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(apiKeyLimiter, "enabled", true);
+        ReflectionTestUtils.setField(apiKeyLimiter, "usageRetentionDays", 7);
+
+        apiAuthKeyEntity = APIAuthKeyEntity.builder()
+                .key("digest")
+                .name("Key")
+                .rateLimit(1.0)
+                .rateBurst(2)
+                .dailyCreateQuota(10L)
+                .build();
+    }
+
+    @Test
+    void testTryAcquire_OverBurst_ReturnWait() {
+        assertTrue(apiKeyLimiter.tryAcquire(apiAuthKeyEntity).isZero());
+        assertTrue(apiKeyLimiter.tryAcquire(apiAuthKeyEntity).isZero());
+        assertTrue(apiKeyLimiter.tryAcquire(apiAuthKeyEntity).compareTo(Duration.ofMillis(900)) > 0);
+    }
+
+    @Test
+    void testTryAcquire_NoRateLimit_AlwaysAllowed() {
+        apiAuthKeyEntity.setRateLimit(null);
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(apiKeyLimiter.tryAcquire(apiAuthKeyEntity).isZero());
+        }
+    }
+
+    @Test
+    void testRemainingCreates_CountsPendingAndSynced() {
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        when(apiKeyUsageRepository.addCreates(anyString(), anyLong()))
+                .thenReturn(1);
+
+        apiKeyLimiter.recordCreates(apiAuthKeyEntity, 3);
+        assertEquals(7, apiKeyLimiter.remainingCreates(apiAuthKeyEntity));
+
+        // Other nodes created 5 more
+        when(apiKeyUsageRepository.findByDay(LocalDate.now(ZoneOffset.UTC)))
+                .thenReturn(List.of(APIKeyUsageEntity.builder().key("digest").creates(8).build()));
+
+        apiKeyLimiter.sync();
+
+        verify(apiKeyUsageRepository).addCreates(APIKeyUsageEntity.id("digest", LocalDate.now(ZoneOffset.UTC)), 3);
+        assertEquals(2, apiKeyLimiter.remainingCreates(apiAuthKeyEntity));
+    }
+
+}
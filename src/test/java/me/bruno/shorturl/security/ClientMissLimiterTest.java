@@ -0,0 +1,82 @@
+package me.bruno.shorturl.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientMissLimiterTest {
+
+    static final long WINDOW = TimeUnit.MINUTES.toNanos(1);
+    static final long BLOCK = TimeUnit.MINUTES.toNanos(5);
+
+    @Test
+    void testRecordMiss_OverLimit_BlockClient() {
+        ClientMissLimiter limiter = new ClientMissLimiter(3, WINDOW, BLOCK, 1000);
+        long now = System.nanoTime();
+
+        assertFalse(limiter.recordMiss("10.0.0.1", now));
+        assertFalse(limiter.recordMiss("10.0.0.1", now));
+        assertFalse(limiter.recordMiss("10.0.0.1", now));
+        assertTrue(limiter.recordMiss("10.0.0.1", now));
+
+        assertTrue(limiter.blockedFor("10.0.0.1", now) > 0);
+        assertTrue(limiter.blockedFor("10.0.0.2", now) <= 0);
+        assertTrue(limiter.blockedFor("10.0.0.1", now + BLOCK) <= 0);
+    }
+
+    @Test
+    void testRecordMiss_SlidingWindow_PreviousWindowWeighted() {
+        ClientMissLimiter limiter = new ClientMissLimiter(3, WINDOW, BLOCK, 1000);
+        long now = System.nanoTime();
+
+        for (int i = 0; i < 3; i++) {
+            limiter.recordMiss("10.0.0.1", now);
+        }
+
+        // Half of the previous window still counts, 1.5 + 2 misses
+        assertFalse(limiter.recordMiss("10.0.0.1", now + WINDOW + WINDOW / 2));
+        assertTrue(limiter.recordMiss("10.0.0.1", now + WINDOW + WINDOW / 2));
+
+        // Two windows later, the count starts over
+        assertFalse(limiter.recordMiss("10.0.0.3", now));
+        assertFalse(limiter.recordMiss("10.0.0.3", now + 2 * WINDOW));
+    }
+
+    @Test
+    void testRecordMiss_ManyClients_SizeBounded() {
+        ClientMissLimiter limiter = new ClientMissLimiter(3, WINDOW, BLOCK, 640);
+        long now = System.nanoTime();
+
+        for (int i = 0; i < 100_000; i++) {
+            limiter.recordMiss("client-" + i, now + i);
+        }
+
+        assertTrue(limiter.size() <= 640 + 64, "size " + limiter.size());
+    }
+
+    @Test
+    void testRecordMiss_ManyClients_OldestEvictedWhereverTheyAre() {
+        ClientMissLimiter limiter = new ClientMissLimiter(1, WINDOW, BLOCK, 64 * 64);
+        long now = System.nanoTime();
+
+        // Blocked, so they can be told apart from the new clients
+        for (int i = 0; i < 64 * 64; i++) {
+            limiter.recordMiss("old-" + i, now);
+            limiter.recordMiss("old-" + i, now);
+        }
+
+        for (int i = 0; i < 64 * 64 * 20; i++) {
+            limiter.recordMiss("new-" + i, now + 1 + i);
+        }
+
+        long remaining = 0;
+        for (int i = 0; i < 64 * 64; i++) {
+            remaining += limiter.blockedFor("old-" + i, now) > 0 ? 1 : 0;
+        }
+
+        assertEquals(0, remaining);
+    }
+
+}
@@ -0,0 +1,48 @@
+package me.bruno.shorturl.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    @Test
+    void testTryAcquire_Burst_ThenWaitForRate() {
+        TokenBucket bucket = new TokenBucket(10, 3);
+        long now = System.nanoTime();
+
+        assertEquals(0, bucket.tryAcquire(now));
+        assertEquals(0, bucket.tryAcquire(now));
+        assertEquals(0, bucket.tryAcquire(now));
+
+        long wait = bucket.tryAcquire(now);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), wait, TimeUnit.MILLISECONDS.toNanos(1));
+
+        assertEquals(0, bucket.tryAcquire(now + wait));
+        assertTrue(bucket.tryAcquire(now + wait) > 0);
+    }
+
+    @Test
+    void testIsFull_RefilledAfterIdle() {
+        TokenBucket bucket = new TokenBucket(10, 2);
+        long now = System.nanoTime();
+
+        bucket.tryAcquire(now);
+        bucket.tryAcquire(now);
+
+        assertFalse(bucket.isFull(now));
+        assertTrue(bucket.isFull(now + TimeUnit.MILLISECONDS.toNanos(200)));
+    }
+
+    @Test
+    void testHasLimits() {
+        TokenBucket bucket = new TokenBucket(5, 10);
+
+        assertTrue(bucket.hasLimits(5, 10));
+        assertFalse(bucket.hasLimits(5, 1));
+        assertFalse(bucket.hasLimits(50, 10));
+    }
+
+}
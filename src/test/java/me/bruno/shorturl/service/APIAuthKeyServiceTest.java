@@ -1,18 +1,26 @@
 package me.bruno.shorturl.service;
 
+import me.bruno.shorturl.cache.CacheChangeLog;
 import me.bruno.shorturl.dto.APIAuthKeyDTO;
 import me.bruno.shorturl.entity.APIAuthKeyEntity;
 import me.bruno.shorturl.mapper.APIAuthTokenMapper;
 import me.bruno.shorturl.repository.ApiKeyRepository;
+import me.bruno.shorturl.security.APIKeyDigest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -29,6 +37,12 @@ class APIAuthKeyServiceTest {
     @Mock
     APIAuthTokenMapper authApiMapper;
 
+    @Mock
+    CacheChangeLog cacheChangeLog;
+
+    @Mock
+    TransactionTemplate transactionTemplate;
+
     APIAuthKeyEntity apiAuthKeyEntity;
 
     APIAuthKeyDTO apiAuthKeyDTO;
@@ -36,7 +50,7 @@ class APIAuthKeyServiceTest {
     @BeforeEach
     void setUp() {
         apiAuthKeyEntity = APIAuthKeyEntity.builder()
-                .key("abc")
+                .key(APIKeyDigest.hex("abc"))
                 .name("Test Key")
                 .createdAt(OffsetDateTime.now())
                 .updatedAt(OffsetDateTime.now())
@@ -50,22 +64,70 @@ class APIAuthKeyServiceTest {
 
     @Test
     void testFindKey_Successfull_ReturnKey() {
-        String key = apiAuthKeyEntity.getKey();
+        String digest = apiAuthKeyEntity.getKey();
 
-        when(apiKeyRepository.findById(key))
+        when(apiKeyRepository.findById(digest))
                 .thenReturn(Optional.of(apiAuthKeyEntity));
 
-        assertEquals(key, apiAuthKeyService.getByKey(key).getKey());
+        assertEquals(digest, apiAuthKeyService.getByKey("abc").getKey());
     }
 
     @Test
     void testValidateKey_Successfull_ReturnTrue() {
-        String key = apiAuthKeyEntity.getKey();
-
-        when(apiKeyRepository.findById(key))
+        when(apiKeyRepository.findById(apiAuthKeyEntity.getKey()))
                 .thenReturn(Optional.of(apiAuthKeyEntity));
 
-        assertTrue(apiAuthKeyService.validateKey(key));
+        assertTrue(apiAuthKeyService.validateKey("abc"));
+    }
+
+    @Test
+    void testValidateKey_IndexLoaded_NoDatabaseQuery() {
+        when(apiKeyRepository.findAll())
+                .thenReturn(List.of(apiAuthKeyEntity));
+
+        apiAuthKeyService.loadKeyIndex();
+
+        assertTrue(apiAuthKeyService.validateKey("abc"));
+        assertFalse(apiAuthKeyService.validateKey("unknown"));
+        assertFalse(apiAuthKeyService.validateKey("unknown"));
+        assertFalse(apiAuthKeyService.validateKey(apiAuthKeyEntity.getKey())); // the digest is not a key
+        verify(apiKeyRepository, never()).findById(any());
+    }
+
+    @Test
+    void testLoadKeyIndex_PlainTextKey_ReplacedWithDigest() {
+        APIAuthKeyEntity plainKeyEntity = APIAuthKeyEntity.builder()
+                .key("plain")
+                .name("Plain Key")
+                .build();
+
+        when(apiKeyRepository.findAll())
+                .thenReturn(List.of(plainKeyEntity));
+
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        apiAuthKeyService.loadKeyIndex();
+
+        verify(apiKeyRepository).replaceKey("plain", APIKeyDigest.hex("plain"));
+        assertTrue(apiAuthKeyService.validateKey("plain"));
+    }
+
+    @Test
+    void testInvalidateKeys_RemovedKey_RemovedFromIndex() {
+        when(apiKeyRepository.findAll())
+                .thenReturn(List.of(apiAuthKeyEntity));
+
+        apiAuthKeyService.loadKeyIndex();
+
+        when(apiKeyRepository.findAllById(List.of(apiAuthKeyEntity.getKey())))
+                .thenReturn(List.of());
+
+        apiAuthKeyService.invalidateKeys(List.of(apiAuthKeyEntity.getKey()));
+
+        assertFalse(apiAuthKeyService.validateKey("abc"));
     }
 
     @Test
@@ -91,15 +153,50 @@ class APIAuthKeyServiceTest {
         APIAuthKeyEntity saved = apiAuthKeyService.save(testKeyDto);
 
         assertNotNull(saved);
-        assertNotNull(saved.getKey());
-        assertFalse(saved.getKey().isEmpty());
+        assertNotNull(saved.getSecret());
+        assertEquals(APIKeyDigest.hex(saved.getSecret()), saved.getKey());
+    }
+
+    @Test
+    void testSave_PutInIndexAfterCommit() {
+        APIAuthKeyEntity testKeyEntity = APIAuthKeyEntity.builder()
+                .name("Test Key")
+                .build();
+
+        APIAuthKeyDTO testKeyDto = APIAuthKeyDTO.builder()
+                .name("Test Key")
+                .build();
+
+        when(apiKeyRepository.findAll())
+                .thenReturn(List.of());
+        when(authApiMapper.toModel(testKeyDto))
+                .thenReturn(testKeyEntity);
+        when(apiKeyRepository.save(testKeyEntity))
+                .thenReturn(testKeyEntity);
+
+        apiAuthKeyService.loadKeyIndex();
+
+        TransactionSynchronizationManager.initSynchronization();
+        String secret;
+        try {
+            secret = apiAuthKeyService.save(testKeyDto).getSecret();
+
+            // Not committed yet, the key is not accepted
+            assertFalse(apiAuthKeyService.validateKey(secret));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertTrue(apiAuthKeyService.validateKey(secret));
     }
 
     @Test
     void testCreateDefaultKey_Successful_DoesNotThrow() {
         String apiDefaultKey = "abcdef";
 
-        when(apiKeyRepository.existsById(apiDefaultKey))
+        when(apiKeyRepository.existsById(APIKeyDigest.hex(apiDefaultKey)))
                 .thenReturn(false);
 
         when(apiKeyRepository.isEmpty())
@@ -121,7 +218,7 @@ class APIAuthKeyServiceTest {
     void testCreateDefaultKey_AlreadyExists_Throws() {
         String apiDefaultKey = "abcdef";
 
-        when(apiKeyRepository.existsById(apiDefaultKey))
+        when(apiKeyRepository.existsById(APIKeyDigest.hex(apiDefaultKey)))
                 .thenReturn(true);
 
         assertThrows(IllegalStateException.class, () -> apiAuthKeyService.createDefaultKey(apiDefaultKey), "Key already exists");
@@ -132,7 +229,7 @@ class APIAuthKeyServiceTest {
     void testCreateDefaultKey_NotEmpty_Throws() {
         String apiDefaultKey = "abcdef";
 
-        when(apiKeyRepository.existsById(apiDefaultKey))
+        when(apiKeyRepository.existsById(APIKeyDigest.hex(apiDefaultKey)))
                 .thenReturn(false);
 
         when(apiKeyRepository.isEmpty())
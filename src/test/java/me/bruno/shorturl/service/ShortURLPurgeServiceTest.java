@@ -0,0 +1,119 @@
+package me.bruno.shorturl.service;
+
+import me.bruno.shorturl.dto.PurgeResultDTO;
+import me.bruno.shorturl.repository.ShortURLRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ShortURLPurgeServiceTest {
+
+    @InjectMocks
+    ShortURLPurgeService shortURLPurgeService;
+
+    @Mock
+    ShortURLRepository shortURLRepository;
+
+    @Mock
+    TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(shortURLPurgeService, "retention", Duration.ofDays(30));
+        ReflectionTestUtils.setField(shortURLPurgeService, "batchSize", 2);
+        ReflectionTestUtils.setField(shortURLPurgeService, "pause", Duration.ZERO);
+    }
+
+    @Test
+    void testPurge_DeleteInBatches_ReturnResult() {
+        List<UUID> first = List.of(UUID.randomUUID(), UUID.randomUUID());
+        List<UUID> second = List.of(UUID.randomUUID());
+
+        when(shortURLRepository.findDeletedIdsBefore(any(OffsetDateTime.class), any(Pageable.class)))
+                .thenReturn(first)
+                .thenReturn(second);
+        when(shortURLRepository.purgeDeleted(eq(first), any(OffsetDateTime.class))).thenReturn(2);
+        when(shortURLRepository.purgeDeleted(eq(second), any(OffsetDateTime.class))).thenReturn(1);
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        PurgeResultDTO result = shortURLPurgeService.purge();
+
+        assertEquals(3, result.getPurged());
+        assertEquals(2, result.getBatches());
+        assertTrue(result.isCompleted());
+        assertFalse(result.isRunning());
+        assertTrue(result.getDeletedBefore().isBefore(OffsetDateTime.now().minusDays(29)));
+        assertSame(result, shortURLPurgeService.getProgress());
+    }
+
+    @Test
+    void testPurge_NothingDeleted_NoTransaction() {
+        when(shortURLRepository.findDeletedIdsBefore(any(OffsetDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        PurgeResultDTO result = shortURLPurgeService.purge();
+
+        assertEquals(0, result.getPurged());
+        assertTrue(result.isCompleted());
+        verify(transactionTemplate, times(0)).execute(any());
+    }
+
+    @Test
+    void testPurge_DatabaseError_NotCompleted() {
+        when(shortURLRepository.findDeletedIdsBefore(any(OffsetDateTime.class), any(Pageable.class)))
+                .thenThrow(new QueryTimeoutException("timeout"));
+
+        PurgeResultDTO result = shortURLPurgeService.purge();
+
+        assertFalse(result.isCompleted());
+
+        // The next purge is not blocked
+        assertNotNull(shortURLPurgeService.purge());
+    }
+
+    @Test
+    void testScheduledPurge_RunOnPurgeThread() throws InterruptedException {
+        ReflectionTestUtils.setField(shortURLPurgeService, "enabled", true);
+        CompletableFuture<String> purgeThread = new CompletableFuture<>();
+
+        when(shortURLRepository.findDeletedIdsBefore(any(OffsetDateTime.class), any(Pageable.class)))
+                .thenAnswer(invocation -> {
+                    purgeThread.complete(Thread.currentThread().getName());
+                    return List.of();
+                });
+
+        shortURLPurgeService.scheduledPurge();
+
+        assertEquals("short-url-purge", purgeThread.orTimeout(10, TimeUnit.SECONDS).join());
+
+        // The next purge can start once this one is done
+        while (shortURLPurgeService.getProgress().isRunning()) {
+            Thread.sleep(10);
+        }
+    }
+
+}
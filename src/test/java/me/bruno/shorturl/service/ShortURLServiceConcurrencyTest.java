@@ -0,0 +1,165 @@
+package me.bruno.shorturl.service;
+
+import me.bruno.shorturl.dto.ShortURLDTO;
+import me.bruno.shorturl.entity.RedirectStatus;
+import me.bruno.shorturl.entity.ShortURLEntity;
+import me.bruno.shorturl.entity.URLNormalizer;
+import me.bruno.shorturl.repository.ShortURLRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Concurrent creates of the same codes against the database, only the unique constraint of valid codes prevents duplicates
+ * Concurrent idempotent creates of the same destination are serialized by the service.
+ */
+@SpringBootTest
+public class ShortURLServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    ShortURLService shortURLService;
+
+    @Autowired
+    ShortURLRepository shortURLRepository;
+
+    @Test
+    void testSave_SameCustomCode_OnlyOneCreated() throws Exception {
+        String code = "race-" + UUID.randomUUID();
+
+        List<Boolean> created = runConcurrently(THREADS, thread -> tryCreate(code));
+
+        assertEquals(1, created.stream().filter(Boolean::booleanValue).count());
+        assertEquals(1, shortURLRepository.findActiveCodesIn(List.of(code)).size());
+    }
+
+    @Test
+    void testSave_OverlappingCustomCodes_EachCreatedOnce() throws Exception {
+        String prefix = "overlap-" + UUID.randomUUID() + "-";
+        List<String> codes = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            codes.add(prefix + i);
+        }
+
+        // Every thread creates every code, in its own order
+        List<Integer> createdByThread = runConcurrently(THREADS, thread -> {
+            List<String> order = new ArrayList<>(codes);
+            Collections.shuffle(order);
+
+            int created = 0;
+            for (String code : order) {
+                created += tryCreate(code) ? 1 : 0;
+            }
+            return created;
+        });
+
+        assertEquals(codes.size(), createdByThread.stream().mapToInt(Integer::intValue).sum());
+        assertEquals(codes.size(), shortURLRepository.findActiveCodesIn(codes).size());
+    }
+
+    @Test
+    void testSave_GeneratedCodes_AllCreatedAndDistinct() throws Exception {
+        List<List<String>> codesByThread = runConcurrently(THREADS, thread -> {
+            List<String> codes = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                codes.add(shortURLService.save(ShortURLDTO.builder().redirectUrl("https://example.com/" + i).build()).getCode());
+            }
+            return codes;
+        });
+
+        List<String> codes = codesByThread.stream().flatMap(List::stream).toList();
+        assertEquals(THREADS * 50, codes.stream().distinct().count());
+        assertEquals(codes.size(), shortURLRepository.findActiveCodesIn(codes).size());
+    }
+
+    @Test
+    void testSave_CodeOfDeletedShortURL_Created() {
+        String code = "reused-" + UUID.randomUUID();
+
+        ShortURLEntity deleted = shortURLService.save(ShortURLDTO.builder().code(code).redirectUrl("https://example.com/1").build());
+        shortURLService.removeById(deleted.getId());
+
+        ShortURLEntity created = shortURLService.save(ShortURLDTO.builder().code(code).redirectUrl("https://example.com/2").build());
+
+        assertNotEquals(deleted.getId(), created.getId());
+        assertEquals(2, shortURLRepository.findExistingCodes(List.of(code)).size());
+        assertEquals(List.of(code), shortURLRepository.findActiveCodesIn(List.of(code)));
+    }
+
+    @Test
+    void testSaveOrReuse_SameDestination_OnlyOneCreated() throws Exception {
+        String redirectUrl = "https://example.com/dedupe/" + UUID.randomUUID();
+
+        List<ShortURLService.ReuseResult> results = runConcurrently(THREADS, thread ->
+                shortURLService.saveOrReuse(ShortURLDTO.builder().redirectUrl(redirectUrl).build()));
+
+        assertEquals(1, results.stream().filter(result -> !result.reused()).count());
+        assertEquals(1, results.stream().map(result -> result.shortURL().getId()).distinct().count());
+        assertEquals(1, shortURLRepository.findReusable(URLNormalizer.hash(redirectUrl), RedirectStatus.FOUND, -1, PageRequest.of(0, THREADS)).size());
+    }
+
+    private boolean tryCreate(String code) {
+        try {
+            shortURLService.save(ShortURLDTO.builder().code(code).redirectUrl("https://example.com").build());
+            return true;
+        } catch (IllegalArgumentException e) {
+            assertEquals("code already exists", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Runs a task on each thread, all started at the same time
+     */
+    private static <T> List<T> runConcurrently(int threads, ThreadTask<T> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                int thread = i;
+                futures.add(executor.submit((Callable<T>) () -> {
+                    start.await();
+                    return task.run(thread);
+                }));
+            }
+
+            start.countDown();
+
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                try {
+                    results.add(future.get(1, TimeUnit.MINUTES));
+                } catch (ExecutionException e) {
+                    fail(e.getCause());
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThreadTask<T> {
+        T run(int thread) throws Exception;
+    }
+
+}
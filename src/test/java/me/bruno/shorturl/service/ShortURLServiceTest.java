@@ -1,20 +1,65 @@
 package me.bruno.shorturl.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import me.bruno.shorturl.cache.CacheChangeLog;
+import me.bruno.shorturl.cache.OffHeapCodeIndex;
+import me.bruno.shorturl.dto.ShortURLBatchResultDTO;
+import me.bruno.shorturl.dto.ShortURLDTO;
+import me.bruno.shorturl.entity.RedirectStatus;
 import me.bruno.shorturl.entity.ShortURLEntity;
+import me.bruno.shorturl.entity.URLNormalizer;
+import me.bruno.shorturl.generator.CodeGeneratorType;
+import me.bruno.shorturl.generator.RandomCodePool;
+import me.bruno.shorturl.generator.SequenceCodeGenerator;
+import me.bruno.shorturl.mapper.ShortURLMapper;
+import me.bruno.shorturl.repository.ShortURLLink;
 import me.bruno.shorturl.repository.ShortURLRepository;
 import org.apache.commons.lang3.StringUtils;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.mapstruct.factory.Mappers;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.SQLException;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 //@SpringBootTest
@@ -28,6 +73,24 @@ class ShortURLServiceTest {
     @Mock
     ShortURLRepository shortURLRepository;
 
+    @Mock
+    SequenceCodeGenerator sequenceCodeGenerator;
+
+    @Mock
+    RandomCodePool randomCodePool;
+
+    @Mock
+    CacheChangeLog cacheChangeLog;
+
+    @Mock
+    TransactionTemplate transactionTemplate;
+
+    @Spy
+    ShortURLMapper shortURLMapper = Mappers.getMapper(ShortURLMapper.class);
+
+    @Spy
+    Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
     ShortURLEntity shortURLEntity;
 
     @BeforeEach
@@ -64,6 +127,19 @@ class ShortURLServiceTest {
         assertEquals(uuid, shortURLService.getByCode(code).getId());
     }
 
+    @Test
+    void testFindShortURLByCode_NotFound_MissIsCached() {
+        String code = "unknown";
+
+        when(shortURLRepository.findByCodeAndDeletedAtIsNull(code))
+                .thenReturn(Optional.empty());
+
+        assertNull(shortURLService.getByCode(code));
+        assertNull(shortURLService.getByCode(code));
+
+        verify(shortURLRepository, times(1)).findByCodeAndDeletedAtIsNull(code);
+    }
+
     @Test
     void testExistsByCode_Successfull_ReturnTrue() {
         String code = shortURLEntity.getCode();
@@ -75,24 +151,301 @@ class ShortURLServiceTest {
     }
 
     @Test
-    void testValidateCode_DoesNotThrowException() {
-        assertDoesNotThrow(() -> shortURLService.validateCode("123456"));
+    void testFindShortURLByCode_CodeIndexCannotPut_ReturnFromCache() {
+        String code = shortURLEntity.getCode();
+        shortURLEntity.setRedirectUrl("https://example.com/very/long/path");
+        // Records larger than a chunk are rejected, like puts into a full index
+        ReflectionTestUtils.setField(shortURLService, "codeIndex", new OffHeapCodeIndex(16, 32));
+
+        when(shortURLRepository.findByCodeAndDeletedAtIsNull(code))
+                .thenReturn(Optional.of(shortURLEntity));
+
+        assertEquals(shortURLEntity.getId(), shortURLService.getByCode(code).getId());
+        assertEquals(shortURLEntity.getId(), shortURLService.getByCode(code).getId());
+
+        verify(shortURLRepository, times(1)).findByCodeAndDeletedAtIsNull(code);
+    }
+
+    @Test
+    void testRemoveById_DuringCodeIndexRebuild_NotInNewIndex() throws Exception {
+        String code = shortURLEntity.getCode();
+        ShortURLLink link = new ShortURLLink(code, shortURLEntity.getRedirectUrl(), RedirectStatus.FOUND, null);
+        AtomicBoolean deleted = new AtomicBoolean();
+
+        ReflectionTestUtils.setField(shortURLService, "codeIndexEnabled", true);
+        ReflectionTestUtils.setField(shortURLService, "codeIndexInitialCapacity", 16);
+        ReflectionTestUtils.setField(shortURLService, "codeIndexChunkSize", 4096);
+        ReflectionTestUtils.setField(shortURLService, "codeIndexPageSize", 1000);
+
+        // The page of the rebuild has the link until the delete is committed
+        when(shortURLRepository.findActiveLinksAfter(eq(""), any(Pageable.class)))
+                .thenAnswer(invocation -> deleted.get() ? List.of() : List.of(link));
+        when(shortURLRepository.findById(shortURLEntity.getId()))
+                .thenAnswer(invocation -> Optional.of(shortURLEntity));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 500; i++) {
+                deleted.set(false);
+                shortURLEntity.setDeletedAt(null);
+                CountDownLatch start = new CountDownLatch(1);
+
+                Future<?> rebuild = executor.submit(() -> {
+                    start.await();
+                    shortURLService.rebuildCodeIndex();
+                    return null;
+                });
+                Future<?> delete = executor.submit(() -> {
+                    start.await();
+                    deleted.set(true);
+                    shortURLService.removeById(shortURLEntity.getId());
+                    return null;
+                });
+
+                start.countDown();
+                rebuild.get(10, TimeUnit.SECONDS);
+                delete.get(10, TimeUnit.SECONDS);
+
+                OffHeapCodeIndex index = (OffHeapCodeIndex) ReflectionTestUtils.getField(shortURLService, "codeIndex");
+                assertNull(index.get(code), "deleted code served by the rebuilt index, iteration " + i);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testFindShortURLByCode_NotActiveYet_ReturnNullButCodeExists() {
+        String code = shortURLEntity.getCode();
+        shortURLEntity.setActiveFrom(OffsetDateTime.now().plusDays(1));
+
+        when(shortURLRepository.findByCodeAndDeletedAtIsNull(code))
+                .thenReturn(Optional.of(shortURLEntity));
+
+        assertNull(shortURLService.getByCode(code));
+        assertTrue(shortURLService.existsByCode(code));
+    }
+
+    @Test
+    void testFindShortURLByCode_Expired_ReturnNull() {
+        String code = shortURLEntity.getCode();
+        shortURLEntity.setActiveFrom(OffsetDateTime.now().minusDays(2));
+        shortURLEntity.setExpiresAt(OffsetDateTime.now().minusDays(1));
+
+        when(shortURLRepository.findByCodeAndDeletedAtIsNull(code))
+                .thenReturn(Optional.of(shortURLEntity));
+
+        assertNull(shortURLService.getDetailsByCode(code));
+    }
+
+    @Test
+    void testFindShortURLByCode_WithinWindow_ReturnShortURL() {
+        String code = shortURLEntity.getCode();
+        shortURLEntity.setActiveFrom(OffsetDateTime.now().minusDays(1));
+        shortURLEntity.setExpiresAt(OffsetDateTime.now().plusDays(1));
+
+        when(shortURLRepository.findByCodeAndDeletedAtIsNull(code))
+                .thenReturn(Optional.of(shortURLEntity));
+
+        assertEquals(shortURLEntity.getId(), shortURLService.getByCode(code).getId());
+    }
+
+    @Test
+    void testRemoveById_EvictCachesAfterCommit() {
+        String code = shortURLEntity.getCode();
+
+        when(shortURLRepository.findByCodeAndDeletedAtIsNull(code))
+                .thenReturn(Optional.of(shortURLEntity));
+        when(shortURLRepository.findById(shortURLEntity.getId()))
+                .thenReturn(Optional.of(shortURLEntity));
+
+        assertNotNull(shortURLService.getByCode(code));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            shortURLService.removeById(shortURLEntity.getId());
+
+            // Not committed yet, the code is still cached
+            assertTrue(shortURLService.existsByCode(code));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertFalse(shortURLService.existsByCode(code));
+        verify(shortURLRepository, times(1)).findByCodeAndDeletedAtIsNull(code);
+    }
+
+    @Test
+    void testSave_CodeChanged_RecordAndEvictPreviousCode() {
+        String previous = shortURLEntity.getCode();
+        ShortURLEntity renamed = ShortURLEntity.builder()
+                .id(shortURLEntity.getId())
+                .code("renamed")
+                .redirectUrl(shortURLEntity.getRedirectUrl())
+                .build();
+
+        when(shortURLRepository.findByCodeAndDeletedAtIsNull(previous))
+                .thenReturn(Optional.of(shortURLEntity))
+                .thenReturn(Optional.empty());
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(shortURLRepository.findCodeById(shortURLEntity.getId()))
+                .thenReturn(Optional.of(previous));
+        when(shortURLRepository.saveAndFlush(any(ShortURLEntity.class)))
+                .thenReturn(renamed);
+
+        assertNotNull(shortURLService.getByCode(previous));
+
+        shortURLService.save(ShortURLDTO.builder().id(shortURLEntity.getId()).code("renamed").redirectUrl(renamed.getRedirectUrl()).build());
+
+        assertNull(shortURLService.getByCode(previous));
+        assertEquals(renamed.getId(), shortURLService.getByCode("renamed").getId());
+        verify(cacheChangeLog).record(any(), eq(List.of(previous, "renamed")));
+    }
+
+    @Test
+    void testWarmCache_PutLinks_AnsweredFromCache() {
+        String code = shortURLEntity.getCode();
+
+        when(shortURLRepository.findByCodeInAndDeletedAtIsNull(List.of(code)))
+                .thenReturn(List.of(shortURLEntity));
+
+        assertEquals(1, shortURLService.warmCache(List.of(code)));
+        assertEquals(shortURLEntity.getId(), shortURLService.getByCode(code).getId());
+
+        verify(shortURLRepository, times(0)).findByCodeAndDeletedAtIsNull(code);
     }
 
     @Test
-    void testValidateCode_ThrowException_WhenEmptyString() {
-        assertThrows(IllegalArgumentException.class, () -> shortURLService.validateCode(""));
+    void testWarmCache_ChangedWhileLoading_NotPut() {
+        String code = shortURLEntity.getCode();
+
+        // Another node changes the link after the page was read
+        when(shortURLRepository.findByCodeInAndDeletedAtIsNull(List.of(code)))
+                .thenAnswer(invocation -> {
+                    shortURLService.invalidateCodes(List.of(code));
+                    return List.of(shortURLEntity);
+                });
+        when(shortURLRepository.findByCodeAndDeletedAtIsNull(code))
+                .thenReturn(Optional.empty());
+
+        assertEquals(0, shortURLService.warmCache(List.of(code)));
+        assertNull(shortURLService.getByCode(code));
     }
 
     @Test
-    void testValidateCode_ThrowException_WhenNullString() {
-        assertThrows(NullPointerException.class, () -> shortURLService.validateCode(null));
+    void testDeleteExpired_DeleteInChunks() {
+        ReflectionTestUtils.setField(shortURLService, "expirationChunkSize", 2);
+
+        when(shortURLRepository.findExpiredCodes(any(OffsetDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of("a", "b"))
+                .thenReturn(List.of("c"));
+        doAnswer(invocation -> {
+            invocation.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        assertEquals(3, shortURLService.deleteExpired());
+
+        verify(shortURLRepository).deleteExpired(eq(List.of("a", "b")), any(OffsetDateTime.class));
+        verify(shortURLRepository).deleteExpired(eq(List.of("c")), any(OffsetDateTime.class));
+        verify(cacheChangeLog).record(any(), eq(List.of("c")));
+        assertFalse(shortURLService.existsByCode("a"));
+    }
+
+    @Test
+    void testSave_CustomCodeTaken_ThrowException() {
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(shortURLRepository.saveAndFlush(any(ShortURLEntity.class)))
+                .thenThrow(codeConflict());
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> shortURLService.save(
+                ShortURLDTO.builder().code("taken").redirectUrl("http://localhost").build()));
+
+        assertEquals("code already exists", e.getMessage());
     }
 
     @Test
-    void testValidateCode_ThrowException_LengthString() {
+    void testSave_GeneratedCodeTaken_RetryWithNewCode() {
+        List<String> codes = new ArrayList<>();
+
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(shortURLRepository.saveAndFlush(any(ShortURLEntity.class)))
+                .thenAnswer(invocation -> {
+                    ShortURLEntity entity = invocation.getArgument(0);
+                    codes.add(entity.getCode());
+                    if (codes.size() == 1) {
+                        throw codeConflict();
+                    }
+                    entity.setId(UUID.randomUUID());
+                    return entity;
+                });
+
+        ShortURLEntity saved = shortURLService.save(ShortURLDTO.builder().redirectUrl("http://localhost").build());
+
+        assertEquals(2, codes.size());
+        assertEquals(codes.get(1), saved.getCode());
+        // Random codes get longer after a conflict
+        assertEquals(6, codes.get(0).length());
+        assertEquals(7, codes.get(1).length());
+        verify(cacheChangeLog).record(any(), eq(saved.getCode()));
+    }
+
+    @Test
+    void testSave_OtherIntegrityViolation_ThrowIt() {
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(shortURLRepository.saveAndFlush(any(ShortURLEntity.class)))
+                .thenThrow(integrityViolation("\"PUBLIC.PRIMARY_KEY_8 ON PUBLIC.SHORT_URL(ID)\""));
+
+        assertThrows(DataIntegrityViolationException.class, () -> shortURLService.save(
+                ShortURLDTO.builder().code("custom").redirectUrl("http://localhost").build()));
+    }
+
+    @Test
+    void testFindReusable_SameDestination_ReturnExistingThenCached() {
+        shortURLEntity.setRedirectUrl("https://example.com/a");
+        shortURLEntity.setRedirectStatus(RedirectStatus.FOUND);
+
+        when(shortURLRepository.findReusable(eq(URLNormalizer.hash("https://example.com/a")), eq(RedirectStatus.FOUND), eq(-1), any(Pageable.class)))
+                .thenReturn(List.of(shortURLEntity));
+        when(shortURLRepository.findByCodeAndDeletedAtIsNull(shortURLEntity.getCode()))
+                .thenReturn(Optional.of(shortURLEntity));
+
+        ShortURLDTO dto = ShortURLDTO.builder().redirectUrl("HTTPS://Example.com:443/a").build();
+
+        assertEquals(shortURLEntity.getId(), shortURLService.findReusable(dto).getId());
+        assertEquals(shortURLEntity.getId(), shortURLService.findReusable(dto).getId());
+
+        verify(shortURLRepository, times(1)).findReusable(anyLong(), any(), anyInt(), any(Pageable.class));
+    }
+
+    @Test
+    void testFindReusable_OtherRedirectSettings_ReturnNull() {
+        shortURLEntity.setRedirectUrl("https://example.com/a");
+        shortURLEntity.setRedirectStatus(RedirectStatus.MOVED_PERMANENTLY);
+
+        when(shortURLRepository.findReusable(anyLong(), any(), anyInt(), any(Pageable.class)))
+                .thenReturn(List.of(shortURLEntity));
+
+        assertNull(shortURLService.findReusable(ShortURLDTO.builder().redirectUrl("https://example.com/a").build()));
+    }
+
+    @Test
+    void testFindReusable_CustomCode_ReturnNull() {
+        assertNull(shortURLService.findReusable(ShortURLDTO.builder().code("custom").redirectUrl("https://example.com/a").build()));
+    }
+
+    @Test
+    void testSave_CodeTooLong_ThrowException() {
         String repeat = StringUtils.repeat("a", 145);
-        assertThrows(IllegalArgumentException.class, () -> shortURLService.validateCode(repeat));
+
+        assertThrows(IllegalArgumentException.class, () -> shortURLService.save(
+                ShortURLDTO.builder().code(repeat).redirectUrl("http://localhost").build()));
     }
 
     @Test
@@ -103,6 +456,105 @@ class ShortURLServiceTest {
         assertTrue(code.length() < 144);
     }
 
+    @Test
+    void testGenerateSequenceCode_ReturnNextCode_WithoutQuery() {
+        when(sequenceCodeGenerator.nextCode())
+                .thenReturn("000001");
+
+        assertEquals("000001", shortURLService.generateSequenceCode());
+        verifyNoInteractions(shortURLRepository);
+    }
+
+    @Test
+    void testSave_SequenceCodeTaken_CountCollisionAndRetry() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(shortURLService, "codeGenerator", CodeGeneratorType.SEQUENCE);
+        shortURLService.bindTo(meterRegistry);
+
+        when(sequenceCodeGenerator.nextCode())
+                .thenReturn(shortURLEntity.getCode(), "000001");
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(shortURLRepository.saveAndFlush(any(ShortURLEntity.class)))
+                .thenAnswer(invocation -> {
+                    ShortURLEntity entity = invocation.getArgument(0);
+                    // Taken by a custom code
+                    if (entity.getCode().equals(shortURLEntity.getCode())) {
+                        throw codeConflict();
+                    }
+                    entity.setId(UUID.randomUUID());
+                    return entity;
+                });
+
+        ShortURLEntity saved = shortURLService.save(ShortURLDTO.builder().redirectUrl("http://localhost").build());
+
+        assertEquals("000001", saved.getCode());
+        assertEquals(1, meterRegistry.get("shorturl.code.collisions").functionCounter().count());
+        assertEquals(0, meterRegistry.get("shorturl.code.length.escalations").functionCounter().count());
+    }
+
+    @Test
+    void testGeneratePooledCode_ReturnPooledCode() {
+        when(randomCodePool.poll())
+                .thenReturn("abcdef");
+
+        assertEquals("abcdef", shortURLService.generatePooledCode());
+    }
+
+    @Test
+    void testGeneratePooledCode_EmptyPool_ReturnRandomCode() {
+        when(randomCodePool.poll())
+                .thenReturn(null);
+
+        String code = shortURLService.generatePooledCode();
+
+        assertNotNull(code);
+        assertTrue(StringUtils.isAlphanumeric(code));
+    }
+
+    @Test
+    void testSaveAll_ReturnResultPerItem() {
+        ReflectionTestUtils.setField(shortURLService, "batchChunkSize", 2);
+
+        when(shortURLRepository.findActiveCodesIn(anyCollection()))
+                .thenAnswer(invocation -> invocation.<Collection<String>>getArgument(0).contains("taken")
+                        ? List.of("taken")
+                        : List.of());
+
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        when(shortURLRepository.saveAll(anyList()))
+                .thenAnswer(invocation -> {
+                    List<ShortURLEntity> entities = new ArrayList<>(invocation.getArgument(0));
+                    entities.forEach(entity -> entity.setId(UUID.randomUUID()));
+                    return entities;
+                });
+
+        List<ShortURLBatchResultDTO> results = shortURLService.saveAll(List.of(
+                ShortURLDTO.builder().code("taken").redirectUrl("http://localhost").build(),
+                ShortURLDTO.builder().code("custom").redirectUrl("http://localhost").build(),
+                ShortURLDTO.builder().redirectUrl("not an url").build(),
+                ShortURLDTO.builder().redirectUrl("http://localhost").build()
+        ), 0);
+
+        assertEquals(4, results.size());
+
+        assertFalse(results.get(0).isCreated());
+        assertEquals("code already exists", results.get(0).getError());
+
+        assertTrue(results.get(1).isCreated());
+        assertEquals("custom", results.get(1).getCode());
+
+        assertFalse(results.get(2).isCreated());
+        assertEquals(2, results.get(2).getIndex());
+
+        assertTrue(results.get(3).isCreated());
+        assertEquals(3, results.get(3).getIndex());
+        assertNotNull(results.get(3).getId());
+        assertEquals(6, results.get(3).getCode().length());
+    }
+
     @Test
     void testGenerateRandomCode_ReturnString() {
         String code = shortURLService.generateRandomCode(8);
@@ -111,4 +563,15 @@ class ShortURLServiceTest {
         assertEquals(8, code.length());
         assertTrue(StringUtils.isAlphanumeric(code));
     }
-}
\ No newline at end of file
+
+    private static DataIntegrityViolationException codeConflict() {
+        return integrityViolation("\"PUBLIC.UNIQUE_ACTIVE_CODE_INDEX_8 ON PUBLIC.SHORT_URL(ACTIVE_CODE) VALUES ( /* 1 */ '123' )\"");
+    }
+
+    // Same chain as Spring's translation of an H2 constraint violation, the constraint name extracted by the dialect
+    private static DataIntegrityViolationException integrityViolation(String constraintName) {
+        SQLException sqlException = new SQLException("Unique index or primary key violation: " + constraintName, "23505");
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", sqlException, constraintName));
+    }
+}
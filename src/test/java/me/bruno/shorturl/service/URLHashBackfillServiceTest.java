@@ -0,0 +1,91 @@
+package me.bruno.shorturl.service;
+
+import me.bruno.shorturl.entity.URLNormalizer;
+import me.bruno.shorturl.repository.URLHashRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class URLHashBackfillServiceTest {
+
+    @InjectMocks
+    URLHashBackfillService urlHashBackfillService;
+
+    @Mock
+    URLHashRepository urlHashRepository;
+
+    @Mock
+    TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(urlHashBackfillService, "batchSize", 2);
+        ReflectionTestUtils.setField(urlHashBackfillService, "pause", Duration.ZERO);
+    }
+
+    @Test
+    void testBackfill_FillInBatches_ContinueAfterLastId() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+
+        when(urlHashRepository.findWithoutHash(isNull(), eq(2)))
+                .thenReturn(List.of(Map.entry(first, "https://example.com/1"), Map.entry(second, "HTTPS://Example.com/2")));
+        when(urlHashRepository.findWithoutHash(eq(second), eq(2)))
+                .thenReturn(List.of(Map.entry(third, "https://example.com/3")));
+        doAnswer(invocation -> {
+            invocation.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        assertEquals(3, urlHashBackfillService.backfill());
+
+        verify(urlHashRepository).setHashes(eq(List.of(
+                Map.entry(first, URLNormalizer.hash("https://example.com/1")),
+                Map.entry(second, URLNormalizer.hash("https://example.com/2"))
+        )), eq(2));
+        verify(urlHashRepository).setHashes(eq(List.of(Map.entry(third, URLNormalizer.hash("https://example.com/3")))), eq(2));
+    }
+
+    @Test
+    void testBackfill_NothingToFill_NoTransaction() {
+        when(urlHashRepository.findWithoutHash(isNull(), anyInt())).thenReturn(List.of());
+
+        assertEquals(0, urlHashBackfillService.backfill());
+
+        verify(transactionTemplate, never()).executeWithoutResult(any());
+    }
+
+    @Test
+    void testBackfill_DatabaseError_StopAndReturnFilled() {
+        when(urlHashRepository.findWithoutHash(isNull(), anyInt())).thenThrow(new QueryTimeoutException("timeout"));
+
+        assertEquals(0, urlHashBackfillService.backfill());
+
+        verify(urlHashRepository, never()).setHashes(any(), anyInt());
+    }
+
+}
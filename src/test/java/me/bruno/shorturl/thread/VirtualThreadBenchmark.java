@@ -0,0 +1,137 @@
+package me.bruno.shorturl.thread;
+
+import me.bruno.shorturl.ShortUrlApplication;
+import me.bruno.shorturl.dto.ShortURLDTO;
+import me.bruno.shorturl.service.ShortURLService;
+import org.h2.api.Trigger;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compares the throughput of the API with platform and virtual request threads under high concurrency
+ * Every request reads a ShortURL by id, so it waits on the database (through the same Hikari pool in both runs).
+ * In-memory H2 answers in microseconds, a trigger adds a fixed latency to each read of short_url to stand in
+ * for the network and disk wait of a real database.
+ * Run with {@code ./gradlew virtualThreadBenchmark -PjavaVersion=21} on Java 21, the virtual threads run is skipped on older runtimes.
+ * Arguments: concurrency (default 1000), duration in seconds (default 20), links (default 1000),
+ * database latency in milliseconds (default 5, 0 to disable).
+ */
+public class VirtualThreadBenchmark {
+
+    private static final String API_KEY = "benchmark";
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        Duration duration = Duration.ofSeconds(args.length > 1 ? Long.parseLong(args[1]) : 20);
+        int links = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        DatabaseLatency.millis = args.length > 3 ? Long.parseLong(args[3]) : 5;
+
+        System.out.println(run(false, concurrency, duration, links));
+
+        if (VirtualThreads.isSupported()) {
+            System.out.println(run(true, concurrency, duration, links));
+        } else {
+            System.out.println("virtual threads: skipped, requires Java 21 (running on " + Runtime.version() + ")");
+        }
+    }
+
+    private static String run(boolean virtualThreads, int concurrency, Duration duration, int links) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ShortUrlApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:benchmark-" + virtualThreads + ";DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.flyway.enabled=false",
+                        "spring.datasource.hikari.maximum-pool-size=10",
+                        "server.tomcat.threads.max=200",
+                        "short-url.api.default.key=" + API_KEY,
+                        "short-url.threads.virtual.enabled=" + virtualThreads
+                )
+                .run()) {
+            int port = Integer.parseInt(context.getEnvironment().getRequiredProperty("local.server.port"));
+            ShortURLService shortURLService = context.getBean(ShortURLService.class);
+
+            List<UUID> ids = new ArrayList<>();
+            for (int i = 0; i < links; i++) {
+                ids.add(shortURLService.save(ShortURLDTO.builder().redirectUrl("https://example.com/" + i).build()).getId());
+            }
+
+            // Added after seeding, so only the measured reads wait
+            if (DatabaseLatency.millis > 0) {
+                context.getBean(JdbcTemplate.class).execute("CREATE TRIGGER short_url_latency BEFORE SELECT ON short_url CALL \""
+                        + DatabaseLatency.class.getName() + "\"");
+            }
+
+            HttpClient client = HttpClient.newBuilder().build();
+            LongAdder completed = new LongAdder();
+            LongAdder failed = new LongAdder();
+            long deadline = System.nanoTime() + duration.toNanos();
+
+            // Closed loop, each client thread sends its next request when the previous one completes
+            ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+            for (int i = 0; i < concurrency; i++) {
+                clients.execute(() -> {
+                    while (System.nanoTime() < deadline) {
+                        UUID id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+                        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/shorturl/" + id))
+                                .header("API-Key", API_KEY)
+                                .build();
+
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            (response.statusCode() == 200 ? completed : failed).increment();
+                        } catch (Exception e) {
+                            failed.increment();
+                        }
+                    }
+                });
+            }
+
+            clients.shutdown();
+            clients.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS);
+
+            return String.format("%s threads: %d requests/s, %d failed (concurrency %d, %ds, database latency %dms)",
+                    virtualThreads ? "virtual" : "platform",
+                    completed.sum() / Math.max(1, duration.toSeconds()),
+                    failed.sum(),
+                    concurrency,
+                    duration.toSeconds(),
+                    DatabaseLatency.millis);
+        }
+    }
+
+    /**
+     * H2 trigger sleeping before each select of a table, the connection is held meanwhile like during a network round trip
+     */
+    public static class DatabaseLatency implements Trigger {
+
+        static volatile long millis;
+
+        @Override
+        public void fire(Connection connection, Object[] oldRow, Object[] newRow) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+    }
+
+}